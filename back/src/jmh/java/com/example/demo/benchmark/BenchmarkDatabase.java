@@ -0,0 +1,97 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Base PostgreSQL dédiée aux benchmarks (mcp_bench par défaut), distincte de la base de développement.
+ * Surcharge possible avec -Djmh.db.url / -Djmh.db.admin-url passés aux forks (-jvmArgsAppend).
+ */
+final class BenchmarkDatabase {
+
+    static final String DATABASE = "mcp_bench";
+    static final String URL = System.getProperty(
+            "jmh.db.url", "jdbc:postgresql://localhost:5432/" + DATABASE + "?reWriteBatchedInserts=true");
+    static final String ADMIN_URL = System.getProperty("jmh.db.admin-url", "jdbc:postgresql://localhost:5432/postgres");
+    static final String USER = System.getProperty("jmh.db.user", "postgres");
+    static final String PASSWORD = System.getProperty("jmh.db.password", "postgres");
+
+    private static final int CLIENTS = 500;
+    private static final int TECHNICIENS = 50;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Crée la base si besoin puis démarre l'application sans couche web, schéma compris.
+     */
+    static ConfigurableApplicationContext start() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(ADMIN_URL, USER, PASSWORD);
+             var exists = connection.prepareStatement("SELECT 1 FROM pg_database WHERE datname = ?")) {
+            exists.setString(1, DATABASE);
+            try (var rs = exists.executeQuery()) {
+                if (!rs.next()) {
+                    connection.createStatement().execute("CREATE DATABASE " + DATABASE);
+                }
+            }
+        }
+
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=" + URL,
+                        "spring.datasource.username=" + USER,
+                        "spring.datasource.password=" + PASSWORD,
+                        "spring.jpa.show-sql=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN"
+                )
+                .run();
+    }
+
+    /**
+     * Ramène la table chantiers à exactement {@code rows} lignes générées côté serveur.
+     * Les données ne sont régénérées que si le volume change, pour enchaîner les runs rapidement.
+     */
+    static void seed(JdbcTemplate jdbc, int rows) {
+        if (jdbc.queryForObject("SELECT count(*) FROM clients", Long.class) < CLIENTS) {
+            jdbc.update("INSERT INTO clients (nom) SELECT 'Client bench ' || g FROM generate_series(1, ?) g", CLIENTS);
+        }
+        if (jdbc.queryForObject("SELECT count(*) FROM techniciens", Long.class) < TECHNICIENS) {
+            jdbc.update("""
+                    INSERT INTO techniciens (nom, prenom, email, created_at)
+                    SELECT 'Tech ' || g, 'Bench', 'bench' || g || '@example.com', now()
+                    FROM generate_series(1, ?) g
+                    """, TECHNICIENS);
+        }
+        if (jdbc.queryForObject("SELECT count(*) FROM chantiers", Long.class) == rows) {
+            return;
+        }
+
+        jdbc.execute("TRUNCATE chantiers CASCADE");
+        jdbc.update("""
+                WITH c AS (SELECT array_agg(id) AS ids FROM clients),
+                     t AS (SELECT array_agg(id) AS ids FROM techniciens)
+                INSERT INTO chantiers (reference, adresse, type_installation, date_intervention, statut,
+                                       created_at, client_id, technicien_id)
+                SELECT 'BENCH-' || g,
+                       g || ' rue des Essais, ' || (10000 + g % 90000) || ' Ville ' || g % 1000,
+                       (ARRAY['PAC', 'Photovoltaïque', 'Chaudière', 'Climatisation'])[g % 4 + 1],
+                       current_date + (g % 730 - 365),
+                       (ARRAY['BROUILLON', 'EN_COURS', 'TERMINE', 'VALIDE', 'REFUSE'])[g % 5 + 1],
+                       now() - g * interval '1 minute',
+                       c.ids[g % array_length(c.ids, 1) + 1],
+                       t.ids[g % array_length(t.ids, 1) + 1]
+                FROM generate_series(1, ?) g, c, t
+                """, rows);
+        jdbc.execute("ANALYZE chantiers");
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.ChantierRequest;
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partie CPU de POST /api/chantiers : lecture du corps puis {@link ChantierRequest#applyTo}.
+ * Client et technicien sont fournis tels que le cache de références les renvoie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateChantierBenchmark {
+
+    private static final String CORPS = """
+            {"reference": "BENCH-1", "adresse": "1 rue des Essais, 75000 Paris", "typeInstallation": "PAC",
+             "dateIntervention": "2030-01-15", "statut": "EN_COURS", "clientId": 1, "technicienId": 1}
+            """;
+
+    private ObjectMapper objectMapper;
+    private ChantierRequest request;
+    private Client client;
+    private Technicien technicien;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        request = objectMapper.readValue(CORPS, ChantierRequest.class);
+        client = new Client();
+        client.setId(1L);
+        client.setNom("Client bench");
+        technicien = new Technicien("Tech", "Bench", "bench@example.com");
+        technicien.setId(1L);
+    }
+
+    @Benchmark
+    public Chantier applyTo() {
+        return create(request);
+    }
+
+    @Benchmark
+    public Chantier lectureEtApplyTo() throws JsonProcessingException {
+        return create(objectMapper.readValue(CORPS, ChantierRequest.class));
+    }
+
+    private Chantier create(ChantierRequest request) {
+        Chantier chantier = new Chantier();
+        request.applyTo(chantier);
+        chantier.setClient(client);
+        chantier.setTechnicien(technicien);
+        return chantier;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.PlanningOptimizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optimisation des affectations sur 30 jours et 20 départements, un technicien sur dix déjà pris un jour.
+ * Avec budget 0 on mesure la construction gloutonne seule ; sinon la durée suit le budget, le score
+ * obtenu est ce qui compte (voir PlanningOptimizerTests).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PlanningOptimizerBenchmark {
+
+    private static final int JOURS = 30;
+    private static final int ZONES = 20;
+
+    @Param({"1000:50", "5000:200", "20000:800"})
+    public String taille;
+
+    @Param({"0", "1000"})
+    public long budgetMs;
+
+    private PlanningOptimizer.Probleme probleme;
+    private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+    @Setup
+    public void setUp() {
+        String[] parts = taille.split(":");
+        int chantiers = Integer.parseInt(parts[0]);
+        int techniciens = Integer.parseInt(parts[1]);
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] jours = new int[chantiers];
+        int[] zones = new int[chantiers];
+        for (int c = 0; c < chantiers; c++) {
+            jours[c] = random.nextInt(JOURS);
+            zones[c] = random.nextInt(ZONES);
+        }
+        boolean[][] occupe = new boolean[techniciens][JOURS];
+        int[] charge = new int[techniciens];
+        for (int t = 0; t < techniciens; t += 10) {
+            occupe[t][random.nextInt(JOURS)] = true;
+            charge[t] = 1;
+        }
+        probleme = new PlanningOptimizer.Probleme(jours, zones, JOURS, ZONES, occupe, charge, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public PlanningOptimizer.Solution optimiser() {
+        return PlanningOptimizer.solve(probleme, budgetMs, Runtime.getRuntime().availableProcessors(), executor);
+    }
+}
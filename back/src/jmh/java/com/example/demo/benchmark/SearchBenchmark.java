@@ -0,0 +1,75 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.ChantierFilter;
+import com.example.demo.dto.ChantierSummary;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.repository.ChantierRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChantierRepository#search} tel qu'appelé par GET /api/chantiers (page de 20, tri id desc).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final Pageable PREMIERE_PAGE = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "id"));
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ChantierRepository chantierRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        context = BenchmarkDatabase.start();
+        BenchmarkDatabase.seed(context.getBean(JdbcTemplate.class), rows);
+        chantierRepository = context.getBean(ChantierRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<ChantierSummary> premierePage() {
+        return chantierRepository.search(ChantierFilter.AUCUN, PREMIERE_PAGE);
+    }
+
+    @Benchmark
+    public Page<ChantierSummary> filtreStatut() {
+        return chantierRepository.search(ChantierFilter.of(null, ChantierStatut.EN_COURS, null), PREMIERE_PAGE);
+    }
+
+    @Benchmark
+    public Page<ChantierSummary> rechercheTexte() {
+        return chantierRepository.search(ChantierFilter.of("rue des essais, 4242", null, null), PREMIERE_PAGE);
+    }
+}
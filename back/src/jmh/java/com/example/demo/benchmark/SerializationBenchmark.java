@@ -0,0 +1,88 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.ChantierSummary;
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation d'une page de 20 chantiers : entités avec client et technicien imbriqués contre projection plate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private ObjectMapper objectMapper;
+    private Page<Chantier> entites;
+    private Page<ChantierSummary> resumes;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<Chantier> chantiers = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Client client = new Client();
+            client.setId((long) i);
+            client.setNom("Client " + i);
+            Technicien technicien = new Technicien("Tech " + i, "Bench", "bench" + i + "@example.com");
+            technicien.setId((long) i);
+
+            Chantier chantier = new Chantier();
+            chantier.setId((long) i);
+            chantier.setReference("BENCH-" + i);
+            chantier.setAdresse(i + " rue des Essais, 75000 Paris");
+            chantier.setTypeInstallation("PAC");
+            chantier.setDateIntervention(LocalDate.of(2030, 1, 1).plusDays(i));
+            chantier.setStatut(ChantierStatut.EN_COURS);
+            chantier.setSignatureSha256("%064x".formatted(i));
+            chantier.setDateSignature(LocalDateTime.of(2030, 1, 1, 10, 0));
+            chantier.setClient(client);
+            chantier.setTechnicien(technicien);
+            chantiers.add(chantier);
+        }
+
+        PageRequest pageable = PageRequest.of(0, PAGE_SIZE);
+        entites = new PageImpl<>(chantiers, pageable, 1000);
+        resumes = entites.map(ChantierSummary::from);
+    }
+
+    @Benchmark
+    public byte[] pageEntites() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(entites);
+    }
+
+    @Benchmark
+    public byte[] pageResumes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(resumes);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Borne le nombre de requêtes traitées en parallèle sous le nombre de connexions du pool, en laissant de la marge
+ * aux tâches de fond.
+ * Avec les threads virtuels, Tomcat n'a plus de limite de threads : sans ce garde, une rafale ferait
+ * attendre des milliers de requêtes dans Hikari jusqu'au timeout. Au-delà du délai d'attente : 503 + Retry-After.
+ * Les réponses servies sans base (index en mémoire, fichiers statiques, abonnements SSE) ne prennent pas de place ;
+ * une réponse asynchrone (export en flux) garde la sienne jusqu'à la fin de son écriture.
+ * Placé avant les filtres qui lisent la base ({@link IdempotencyFilter}) : leurs requêtes comptent aussi.
+ */
+@Component
+@Order(DatabaseConcurrencyGuard.ORDER)
+public class DatabaseConcurrencyGuard extends OncePerRequestFilter {
+
+    // Après les filtres de Spring Boot (observation des requêtes HTTP comprise : les 503 sont mesurés).
+    public static final int ORDER = 0;
+
+    // Planning et tableau de bord lus en mémoire, abonnements SSE qui ne tiennent pas de connexion.
+    private static final List<String> SANS_BASE = List.of(
+            "/actuator",
+            "/api/planning", "/planning",
+            "/api/techniciens/available", "/techniciens/available",
+            "/api/dashboard", "/dashboard",
+            "/api/chantiers/stream", "/chantiers/stream"
+    );
+    private static final Pattern STATIQUE = Pattern.compile("/|.*\\.(html|css|js|ico|png|svg|map)");
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final Counter rejected;
+
+    public DatabaseConcurrencyGuard(
+            @Value("${datasource.guard.max-concurrent:16}") int maxConcurrent,
+            @Value("${datasource.guard.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+            MeterRegistry meterRegistry
+    ) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.rejected = meterRegistry.counter("datasource.guard.rejected");
+        Gauge.builder("datasource.guard.available", permits, Semaphore::availablePermits).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String chemin = request.getRequestURI().substring(request.getContextPath().length());
+        return STATIQUE.matcher(chemin).matches()
+                || SANS_BASE.stream().anyMatch(prefixe -> chemin.equals(prefixe) || chemin.startsWith(prefixe + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        boolean asynchrone = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Liberation());
+                asynchrone = true;
+            }
+        } finally {
+            if (!asynchrone) {
+                permits.release();
+            }
+        }
+    }
+
+    // Rend la place d'une réponse asynchrone une seule fois, qu'elle se termine normalement, en erreur ou en timeout.
+    private final class Liberation implements AsyncListener {
+
+        private final AtomicBoolean liberee = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberer();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberer();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberer();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Nouveau cycle asynchrone sur la même requête : la place reste prise jusqu'à sa fin.
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void liberer() {
+            if (liberee.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
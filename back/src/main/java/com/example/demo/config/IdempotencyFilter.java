@@ -0,0 +1,205 @@
+package com.example.demo.config;
+
+import com.example.demo.service.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * POST rejouables : un client qui renvoie une requête avec le même en-tête Idempotency-Key
+ * (après un timeout réseau par exemple) reçoit la réponse de la première au lieu de créer un doublon.
+ * 409 tant que la première est en cours, 422 si la clé est réutilisée pour une autre requête.
+ * Les erreurs 5xx ne sont pas conservées : la clé est libérée pour une nouvelle tentative.
+ * Après {@link DatabaseConcurrencyGuard} : la réservation de la clé interroge la base.
+ */
+@Component
+@Order(DatabaseConcurrencyGuard.ORDER + 1)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+
+    public IdempotencyFilter(IdempotencyStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cle = request.getHeader(HEADER);
+        if (cle.isBlank() || cle.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Idempotency-Key invalide");
+            return;
+        }
+        String chemin = request.getRequestURI();
+
+        UUID jeton = store.claim(cle, request.getMethod(), chemin);
+        if (jeton == null) {
+            replay(cle, request, response);
+            return;
+        }
+
+        DigestRequest digestRequest = new DigestRequest(request);
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(digestRequest, cachingResponse);
+        } catch (IOException | ServletException | RuntimeException e) {
+            store.release(cle, jeton);
+            throw e;
+        }
+
+        if (cachingResponse.getStatus() >= 500) {
+            store.release(cle, jeton);
+        } else {
+            store.complete(cle, jeton, digestRequest.digest(), cachingResponse.getStatus(),
+                    cachingResponse.getContentType(), cachingResponse.getContentAsByteArray());
+        }
+        cachingResponse.copyBodyToResponse();
+    }
+
+    private void replay(String cle, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        IdempotencyStore.Reponse reponse = store.find(cle);
+        if (reponse == null || reponse.enCours()) {
+            // Première requête encore en cours (ou libérée à l'instant après une erreur) : le client réessaiera.
+            response.sendError(HttpStatus.CONFLICT.value(), "Requête d'origine en cours de traitement");
+            return;
+        }
+
+        MessageDigest digest = sha256();
+        if (!isMultipart(request)) {
+            try (InputStream body = request.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = body.read(buffer)) > 0) {
+                    digest.update(buffer, 0, n);
+                }
+            }
+        }
+        if (!reponse.correspond(request.getMethod(), request.getRequestURI(), digest.digest())) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), "Idempotency-Key déjà utilisée pour une autre requête");
+            return;
+        }
+
+        response.setStatus(reponse.statut());
+        if (reponse.contentType() != null) {
+            response.setContentType(reponse.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(reponse.corps() == null ? 0 : reponse.corps().length);
+        if (reponse.corps() != null) {
+            response.getOutputStream().write(reponse.corps());
+        }
+    }
+
+    // Le conteneur lit lui-même les corps multipart : l'empreinte se limite alors à la méthode et au chemin.
+    private static boolean isMultipart(HttpServletRequest request) {
+        return request.getContentType() != null
+                && request.getContentType().toLowerCase(Locale.ROOT).startsWith("multipart/");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Calcule l'empreinte du corps au fil de sa lecture par le contrôleur, sans le copier : les imports en masse
+     * restent en flux. Ce que le contrôleur n'a pas lu est lu ici à la fin.
+     */
+    private static final class DigestRequest extends HttpServletRequestWrapper {
+
+        private final MessageDigest digest = sha256();
+        private ServletInputStream stream;
+
+        DigestRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                ServletInputStream delegate = super.getInputStream();
+                stream = new ServletInputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        int b = delegate.read();
+                        if (b >= 0) {
+                            digest.update((byte) b);
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = delegate.read(b, off, len);
+                        if (n > 0) {
+                            digest.update(b, off, n);
+                        }
+                        return n;
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return delegate.isFinished();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener listener) {
+                        delegate.setReadListener(listener);
+                    }
+                };
+            }
+            return stream;
+        }
+
+        byte[] digest() {
+            if (isMultipart(this)) {
+                return sha256().digest();
+            }
+            byte[] buffer = new byte[8192];
+            try {
+                InputStream reste = getInputStream();
+                while (reste.read(buffer) > 0) {
+                    // lecture pour l'empreinte seulement
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Flux fermé ou corps lu par getReader() : l'empreinte porte sur ce qui a été lu.
+            }
+            return digest.digest();
+        }
+    }
+}
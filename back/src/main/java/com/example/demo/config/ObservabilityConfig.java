@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Les latences HTTP (http.server.requests), des méthodes de repository (spring.data.repository.invocations),
+ * les statistiques Hibernate et les caches sont instrumentés par Actuator ; on y ajoute le journal des requêtes lentes.
+ */
+@Configuration
+public class ObservabilityConfig {
+
+    @Bean
+    static BeanPostProcessor slowQueryDataSourceProxy(
+            @Value("${datasource.slow-query.threshold-ms:500}") long thresholdMs,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new SlowQueryListener(thresholdMs, meterRegistry))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+/**
+ * Journalise le SQL et les paramètres liés des requêtes plus lentes que le seuil,
+ * et les compte dans le compteur {@code jdbc.slow.queries}.
+ */
+public class SlowQueryListener implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryListener.class);
+
+    private final long thresholdMs;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final DefaultQueryLogEntryCreator entryCreator = new DefaultQueryLogEntryCreator();
+
+    public SlowQueryListener(long thresholdMs, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.thresholdMs = thresholdMs;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMs) {
+            return;
+        }
+        // Le registre est résolu à la demande : la DataSource est créée avant lui.
+        meterRegistry.ifAvailable(registry -> registry.counter("jdbc.slow.queries").increment());
+        if (log.isWarnEnabled()) {
+            log.warn("Requête lente : {}", entryCreator.getLogEntry(execInfo, queryInfoList, false, true, false));
+        }
+    }
+}
@@ -1,4 +1,4 @@
-﻿package com.example.demo.config;
+package com.example.demo.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -17,6 +17,8 @@ public class WebConfig implements WebMvcConfigurer {
                         "http://127.0.0.1:3000"
                 )
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowedHeaders("*");
+                .allowedHeaders("*")
+                // Lisibles par l'application React (requêtes conditionnelles, POST rejoués).
+                .exposedHeaders("ETag", "Last-Modified", IdempotencyFilter.REPLAYED_HEADER);
     }
 }
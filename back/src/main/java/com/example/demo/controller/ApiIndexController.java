@@ -1,4 +1,4 @@
-﻿package com.example.demo.controller;
+package com.example.demo.controller;
 
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -16,7 +16,12 @@ public class ApiIndexController {
                         "clients", "/api/clients",
                         "techniciens", "/api/techniciens",
                         "chantiers", "/api/chantiers",
-                        "verifications", "/api/verifications"
+                        "verifications", "/api/verifications",
+                        "dashboard", "/api/dashboard/stats",
+                        "planning", "/api/planning",
+                        "reports", "/api/reports/monthly",
+                        "sync", "/api/sync",
+                        "metrics", "/actuator/prometheus"
                 )
         );
     }
@@ -1,146 +1,423 @@
-﻿package com.example.demo.controller;
+package com.example.demo.controller;
 
+import com.example.demo.dto.ChantierFilter;
+import com.example.demo.dto.ChantierProche;
+import com.example.demo.dto.ChantierRequest;
+import com.example.demo.dto.ChantierSummary;
 import com.example.demo.entity.Chantier;
 import com.example.demo.entity.ChantierStatut;
+import com.example.demo.pagination.CountStrategy;
+import com.example.demo.pagination.CursorCodec;
+import com.example.demo.pagination.CursorPage;
+import com.example.demo.pagination.KeysetSpecification;
+import com.example.demo.pagination.PageCounter;
+import com.example.demo.pagination.SortableFields;
 import com.example.demo.repository.ChantierRepository;
-import com.example.demo.repository.ClientRepository;
-import com.example.demo.repository.TechnicienRepository;
+import com.example.demo.repository.ChantierRepository.Proximite;
+import com.example.demo.service.ChantierEventBus;
+import com.example.demo.service.ChantierExportService;
+import com.example.demo.service.ChantierExportService.ExportFormat;
+import com.example.demo.service.ChantierImportService;
+import com.example.demo.service.ChantierImportService.ImportReport;
+import com.example.demo.service.ChantierMergeService;
+import com.example.demo.service.ChantierMergeService.ConflitVersion;
+import com.example.demo.service.ChantierWriteService;
+import com.example.demo.service.ChantierWriteService.Ecriture;
+import com.example.demo.service.ChantierWriteService.Issue;
+import com.example.demo.service.JsonPageCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping({"/api/chantiers", "/chantiers"})
 public class ChantierController {
 
+    private static final int MAX_TENTATIVES = 3;
+    // Bornes des recherches de proximité : au-delà, ce n'est plus « autour de », c'est un export.
+    private static final double MAX_RAYON_METRES = 500_000;
+    private static final int MAX_RESULTATS_PROXIMITE = 1000;
+
     private final ChantierRepository chantierRepository;
-    private final ClientRepository clientRepository;
-    private final TechnicienRepository technicienRepository;
+    private final ChantierWriteService chantierWriteService;
+    private final CursorCodec cursorCodec;
+    private final ChantierImportService chantierImportService;
+    private final ChantierExportService chantierExportService;
+    private final JsonPageCache jsonPageCache;
+    private final PageCounter pageCounter;
+    private final ChantierEventBus chantierEventBus;
 
     public ChantierController(
             ChantierRepository chantierRepository,
-            ClientRepository clientRepository,
-            TechnicienRepository technicienRepository
+            ChantierWriteService chantierWriteService,
+            CursorCodec cursorCodec,
+            ChantierImportService chantierImportService,
+            ChantierExportService chantierExportService,
+            JsonPageCache jsonPageCache,
+            PageCounter pageCounter,
+            ChantierEventBus chantierEventBus
     ) {
         this.chantierRepository = chantierRepository;
-        this.clientRepository = clientRepository;
-        this.technicienRepository = technicienRepository;
+        this.chantierWriteService = chantierWriteService;
+        this.cursorCodec = cursorCodec;
+        this.chantierImportService = chantierImportService;
+        this.chantierExportService = chantierExportService;
+        this.jsonPageCache = jsonPageCache;
+        this.pageCounter = pageCounter;
+        this.chantierEventBus = chantierEventBus;
     }
 
+    /**
+     * Page de {@link ChantierSummary} sous ETag faible : une sonde (dernière modification, versions des
+     * clients/techniciens) et le total en mémoire suffisent pour répondre 304 ou servir le JSON en cache.
+     * Filtres combinables : statut, technicienId et clientId répétables (ou séparés par des virgules),
+     * période dateDebut/dateFin incluse ou date exacte dateIntervention.
+     * {@code count} choisit le calcul du total (exact, estimated, cached), rappelé dans {@code countStrategy}.
+     * Les chantiers archivés n'y figurent pas ; {@code archives=true} les cherche, eux seuls.
+     */
     @GetMapping
-    public Page<Chantier> getAllChantiers(
+    public ResponseEntity<byte[]> getAllChantiers(
             @RequestParam(required = false) String q,
-            @RequestParam(required = false) ChantierStatut statut,
+            @RequestParam(required = false) List<ChantierStatut> statut,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateIntervention,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin,
+            @RequestParam(required = false) List<Long> technicienId,
+            @RequestParam(required = false) List<Long> clientId,
+            @RequestParam(required = false) String typeInstallation,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id,desc") String[] sort,
+            @RequestParam(defaultValue = "cached") String count,
+            @RequestParam(defaultValue = "false") boolean archives,
+            WebRequest request
+    ) {
+        ChantierFilter filter;
+        SortableFields.Order order;
+        CountStrategy strategy;
+        try {
+            filter = ChantierFilter.of(q, statut, dateIntervention, dateDebut, dateFin, technicienId, clientId,
+                    typeInstallation);
+            order = SortableFields.CHANTIERS.parse(sort);
+            strategy = CountStrategy.parse(count);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Pageable pageable = PageRequest.of(page, size, order.toSort());
+        if (archives) {
+            return getArchives(filter, pageable, strategy, request);
+        }
+
+        // Pas de Last-Modified : une date écrite avant le commit peut être antérieure à celle déjà servie.
+        String etag = chantierRepository.listVersion();
+        return jsonPageCache.respond(
+                JsonPageCache.CHANTIERS,
+                etag,
+                -1,
+                request,
+                () -> pageCounter.page(chantierRepository.findSummaries(filter, pageable), pageable,
+                        strategy, JsonPageCache.CHANTIERS + "|" + etag + "|" + filter,
+                        () -> chantierRepository.count(filter),
+                        () -> chantierRepository.estimateCount(filter))
+        );
+    }
+
+    // Mêmes filtres, tris et comptages, sur la table des archives ; sans total en mémoire.
+    private ResponseEntity<byte[]> getArchives(ChantierFilter filter, Pageable pageable, CountStrategy strategy,
+                                               WebRequest request) {
+        String etag = "archives-" + chantierRepository.archiveVersion();
+        return jsonPageCache.respond(
+                JsonPageCache.ARCHIVES,
+                etag,
+                -1,
+                request,
+                () -> pageCounter.page(chantierRepository.findArchivedSummaries(filter, pageable), pageable,
+                        strategy, JsonPageCache.ARCHIVES + "|" + etag + "|" + filter,
+                        () -> chantierRepository.countArchived(filter),
+                        () -> chantierRepository.estimateArchivedCount(filter))
+        );
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPage<ChantierSummary>> getChantiersAfter(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) List<ChantierStatut> statut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateIntervention,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin,
+            @RequestParam(required = false) List<Long> technicienId,
+            @RequestParam(required = false) List<Long> clientId,
+            @RequestParam(required = false) String typeInstallation,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "id,desc") String[] sort
     ) {
-        String sortBy = sort.length > 0 ? sort[0] : "id";
-        String sortDir = sort.length > 1 ? sort[1] : "desc";
-        Sort.Direction direction = "asc".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return chantierRepository.search(q, statut, dateIntervention, pageable);
+        if (size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            var order = SortableFields.CHANTIERS.parse(sort);
+            var filter = ChantierFilter.of(q, statut, dateIntervention, dateDebut, dateFin, technicienId, clientId,
+                    typeInstallation);
+            var keys = cursorCodec.decode(after, Chantier.class);
+            var rows = KeysetSpecification.fetch(order, keys, ChantierRepository.searchSpecification(filter), size + 1,
+                    (spec, limit) -> chantierRepository.findBy(spec,
+                            query -> query.sortBy(order.toSort()).limit(limit).project("client", "technicien").all()));
+            return ResponseEntity.ok(cursorCodec.toPage(rows, size, order.field()).map(ChantierSummary::from));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Page<ChantierSummary>> searchChantiers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Page<Long> ids = chantierRepository.searchRankedIds(q.trim(), PageRequest.of(page, size));
+        Map<Long, ChantierSummary> summaries = chantierRepository.findSummariesByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(ChantierSummary::id, Function.identity()));
+        return ResponseEntity.ok(ids.map(summaries::get));
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<Chantier> getChantierById(@PathVariable Long id) {
+    /**
+     * Chantiers géocodés dans un rayon (mètres) autour d'un point, du plus proche au plus lointain.
+     */
+    @GetMapping("/near")
+    public ResponseEntity<List<ChantierProche>> getChantiersNear(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam double radius,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        if (!isPosition(lat, lon) || !(radius > 0 && radius <= MAX_RAYON_METRES)
+                || limit < 1 || limit > MAX_RESULTATS_PROXIMITE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(toProches(chantierRepository.findWithinRadius(lat, lon, radius, limit)));
+    }
+
+    /**
+     * Les {@code k} chantiers géocodés les plus proches d'un point, quelle que soit la distance.
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<List<ChantierProche>> getChantiersNearest(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "10") int k
+    ) {
+        if (!isPosition(lat, lon) || k < 1 || k > MAX_RESULTATS_PROXIMITE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(toProches(chantierRepository.findNearest(lat, lon, 0, k)));
+    }
+
+    /**
+     * Les {@code k} chantiers les plus proches d'un chantier (lui exclu) ; 404 si le chantier n'existe pas ou
+     * n'est pas encore géocodé.
+     */
+    @GetMapping("/{id}/nearest")
+    public ResponseEntity<List<ChantierProche>> getChantiersNearestTo(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int k
+    ) {
+        if (k < 1 || k > MAX_RESULTATS_PROXIMITE) {
+            return ResponseEntity.badRequest().build();
+        }
         return chantierRepository.findById(id)
-                .map(ResponseEntity::ok)
+                .filter(chantier -> chantier.getLatitude() != null)
+                .map(chantier -> ResponseEntity.ok(toProches(chantierRepository.findNearest(
+                        chantier.getLatitude(), chantier.getLongitude(), chantier.getId(), k))))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    @PostMapping
-    public ResponseEntity<Chantier> createChantier(@RequestBody ChantierRequest request) {
-        var client = clientRepository.findById(request.clientId()).orElse(null);
-        if (client == null) {
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportChantiers(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) List<ChantierStatut> statut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateIntervention,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin,
+            @RequestParam(required = false) List<Long> technicienId,
+            @RequestParam(required = false) List<Long> clientId,
+            @RequestParam(required = false) String typeInstallation,
+            @RequestParam(defaultValue = "csv") String format
+    ) {
+        ChantierFilter filter;
+        try {
+            filter = ChantierFilter.of(q, statut, dateIntervention, dateDebut, dateFin, technicienId, clientId,
+                    typeInstallation);
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
-
-        var technicien = technicienRepository.findById(request.technicienId()).orElse(null);
-        if (technicien == null) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
 
-        Chantier chantier = new Chantier();
-        applyRequest(chantier, request);
-        chantier.setClient(client);
-        chantier.setTechnicien(technicien);
-        return ResponseEntity.ok(chantierRepository.save(chantier));
+        StreamingResponseBody body = out -> chantierExportService.export(exportFormat, filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"chantiers." + exportFormat.extension() + "\"")
+                .body(body);
     }
 
-    @PutMapping("/{id}")
-    public ResponseEntity<Chantier> updateChantier(@PathVariable Long id, @RequestBody ChantierRequest request) {
-        var existing = chantierRepository.findById(id).orElse(null);
-        if (existing == null) {
-            return ResponseEntity.notFound().build();
+    /**
+     * Flux SSE des créations, modifications et suppressions de chantiers, filtré par technicien et/ou statut.
+     * Événements {@code chantier} (notification JSON) et {@code resync} (notifications perdues : relire la liste).
+     * 503 au-delà de chantiers.stream.max-subscribers.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChantiers(
+            @RequestParam(required = false) Long technicienId,
+            @RequestParam(required = false) ChantierStatut statut
+    ) {
+        SseEmitter emitter = chantierEventBus.subscribe(technicienId, statut);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
         }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(emitter);
+    }
 
-        var client = clientRepository.findById(request.clientId()).orElse(null);
-        if (client == null) {
+    /**
+     * ETag : date de modification du chantier et versions du client et du technicien imbriqués.
+     * Sur If-None-Match identique, Spring répond 304 sans sérialiser le corps.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Chantier> getChantierById(@PathVariable Long id) {
+        return chantierRepository.findDetailById(id)
+                .map(chantier -> {
+                    LocalDateTime modifie = chantier.getUpdatedAt() != null ? chantier.getUpdatedAt() : chantier.getCreatedAt();
+                    Instant instant = modifie.atZone(ZoneId.systemDefault()).toInstant();
+                    String etag = chantier.getId() + "-" + instant.getEpochSecond() + "." + instant.getNano() / 1000
+                            + "-" + chantier.getClient().getVersion() + "-" + chantier.getTechnicien().getVersion();
+                    return ResponseEntity.ok()
+                            .eTag(etag)
+                            .lastModified(instant)
+                            .cacheControl(CacheControl.noCache())
+                            .body(chantier);
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 409 avec le détail du conflit si le technicien a déjà un chantier ce jour-là.
+     */
+    @PostMapping
+    public ResponseEntity<?> createChantier(@RequestBody ChantierRequest request) {
+        return toResponse(chantierWriteService.create(request));
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReport> importChantiersJson(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(chantierImportService.importJson(body));
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
+    }
 
-        var technicien = technicienRepository.findById(request.technicienId()).orElse(null);
-        if (technicien == null) {
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<ImportReport> importChantiersCsv(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(chantierImportService.importCsv(body));
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
-
-        applyRequest(existing, request);
-        existing.setClient(client);
-        existing.setTechnicien(technicien);
-        return ResponseEntity.ok(chantierRepository.save(existing));
     }
 
-    @PostMapping("/{id}/cloturer")
-    public ResponseEntity<Chantier> cloturerChantier(@PathVariable Long id) {
-        var chantier = chantierRepository.findById(id).orElse(null);
-        if (chantier == null) {
-            return ResponseEntity.notFound().build();
+    /**
+     * Avec {@code version} : 409 si un autre a modifié le chantier entre-temps sur les mêmes champs,
+     * sinon fusion des champs disjoints. Une mise à jour concurrente détectée au commit est rejouée.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateChantier(@PathVariable Long id, @RequestBody ChantierRequest request) {
+        for (int tentative = 1; ; tentative++) {
+            try {
+                return toResponse(chantierWriteService.update(id, request));
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // Le rollback a vidé le contexte de persistance : la tentative suivante relit l'état validé.
+                if (tentative >= MAX_TENTATIVES) {
+                    var courant = chantierRepository.findDetailById(id).orElse(null);
+                    return courant == null
+                            ? ResponseEntity.notFound().build()
+                            : ResponseEntity.status(HttpStatus.CONFLICT).body(new ConflitVersion(
+                                    courant.getVersion(), ChantierMergeService.CHAMPS, courant));
+                }
+            }
         }
+    }
 
-        chantier.cloturer();
-        return ResponseEntity.ok(chantierRepository.save(chantier));
+    @PostMapping("/{id}/cloturer")
+    public ResponseEntity<?> cloturerChantier(@PathVariable Long id) {
+        return toResponse(chantierWriteService.cloturer(id));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteChantier(@PathVariable Long id) {
-        if (!chantierRepository.existsById(id)) {
+        if (chantierWriteService.delete(id).issue() == Issue.INTROUVABLE) {
             return ResponseEntity.notFound().build();
         }
-
-        chantierRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 
-    private void applyRequest(Chantier chantier, ChantierRequest request) {
-        chantier.setReference(request.reference());
-        chantier.setAdresse(request.adresse());
-        chantier.setTypeInstallation(request.typeInstallation());
-        chantier.setDateIntervention(request.dateIntervention());
-        chantier.setStatut(request.statut() == null ? ChantierStatut.BROUILLON : request.statut());
-        chantier.setSignatureClient(request.signatureClient());
-        chantier.setDateSignature(request.dateSignature());
-    }
-
-    public record ChantierRequest(
-            String reference,
-            String adresse,
-            String typeInstallation,
-            LocalDate dateIntervention,
-            ChantierStatut statut,
-            String signatureClient,
-            LocalDateTime dateSignature,
-            Long clientId,
-            Long technicienId
-    ) {
+    private static ResponseEntity<?> toResponse(Ecriture ecriture) {
+        return switch (ecriture.issue()) {
+            case OK -> ResponseEntity.ok(ecriture.chantier());
+            case INTROUVABLE -> ResponseEntity.notFound().build();
+            case INVALIDE -> ResponseEntity.badRequest().build();
+            case CONFLIT -> ResponseEntity.status(HttpStatus.CONFLICT).body(ecriture.detail());
+        };
+    }
+
+    private static boolean isPosition(double lat, double lon) {
+        return lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180;
     }
-}
 
+    // Les lignes de liste sont lues en une requête par identifiants, puis remises dans l'ordre des distances.
+    private List<ChantierProche> toProches(List<Proximite> proximites) {
+        if (proximites.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ChantierSummary> summaries = chantierRepository
+                .findSummariesByIdIn(proximites.stream().map(Proximite::getId).toList()).stream()
+                .collect(Collectors.toMap(ChantierSummary::id, Function.identity()));
+        return proximites.stream()
+                .filter(p -> summaries.containsKey(p.getId()))
+                .map(p -> new ChantierProche(summaries.get(p.getId()), p.getLatitude(), p.getLongitude(),
+                        p.getDistance()))
+                .toList();
+    }
+}
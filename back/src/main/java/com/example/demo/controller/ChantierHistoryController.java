@@ -0,0 +1,36 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.ChantierEvenement;
+import com.example.demo.repository.ChantierEvenementRepository;
+import com.example.demo.service.ChantierAuditLog;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping({"/api/chantiers/{id}/history", "/chantiers/{id}/history"})
+public class ChantierHistoryController {
+
+    private final ChantierEvenementRepository evenementRepository;
+    private final ChantierAuditLog auditLog;
+
+    public ChantierHistoryController(ChantierEvenementRepository evenementRepository, ChantierAuditLog auditLog) {
+        this.evenementRepository = evenementRepository;
+        this.auditLog = auditLog;
+    }
+
+    /**
+     * Historique chronologique ; reste consultable après la suppression du chantier.
+     */
+    @GetMapping
+    public Page<ChantierEvenement> getHistory(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        // Les événements encore en file sont écrits d'abord : on relit ses propres modifications.
+        auditLog.flush();
+        return evenementRepository.findByChantierId(id, PageRequest.of(page, size, Sort.by("createdAt", "id")));
+    }
+}
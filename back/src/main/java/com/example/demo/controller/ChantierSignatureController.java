@@ -0,0 +1,110 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.repository.ChantierRepository;
+import com.example.demo.service.SignatureService;
+import com.example.demo.service.SignatureService.SignatureTooLargeException;
+import com.example.demo.service.SignatureService.StoredSignature;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping({"/api/chantiers/{id}/signature", "/chantiers/{id}/signature"})
+public class ChantierSignatureController {
+
+    private final ChantierRepository chantierRepository;
+    private final SignatureService signatureService;
+
+    public ChantierSignatureController(ChantierRepository chantierRepository, SignatureService signatureService) {
+        this.chantierRepository = chantierRepository;
+        this.signatureService = signatureService;
+    }
+
+    /**
+     * ETag = SHA-256 du contenu : Spring MVC répond 304 sur If-None-Match et 206 sur Range.
+     */
+    @GetMapping
+    public ResponseEntity<Resource> getSignature(@PathVariable Long id) {
+        var chantier = chantierRepository.findById(id).orElse(null);
+        if (chantier == null || chantier.getSignatureRef() == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(chantier.getSignatureSha256())
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(MediaType.parseMediaType(chantier.getSignatureContentType()))
+                .body(signatureService.load(chantier));
+    }
+
+    @PutMapping(consumes = "image/*")
+    public ResponseEntity<SignatureInfo> putSignature(
+            @PathVariable Long id,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) throws IOException {
+        return store(id, contentType, body);
+    }
+
+    @PutMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<SignatureInfo> putSignatureMultipart(
+            @PathVariable Long id,
+            @RequestParam("file") MultipartFile file
+    ) throws IOException {
+        MediaType contentType = file.getContentType() == null ? null : MediaType.parseMediaType(file.getContentType());
+        if (contentType == null || !contentType.getType().equals("image")) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+        try (InputStream body = file.getInputStream()) {
+            return store(id, contentType, body);
+        }
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> deleteSignature(@PathVariable Long id) throws IOException {
+        var chantier = chantierRepository.findById(id).orElse(null);
+        if (chantier == null || chantier.getSignatureRef() == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        signatureService.detach(chantier);
+        return ResponseEntity.noContent().build();
+    }
+
+    private ResponseEntity<SignatureInfo> store(Long id, MediaType mediaType, InputStream body) throws IOException {
+        var chantier = chantierRepository.findById(id).orElse(null);
+        if (chantier == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StoredSignature stored;
+        try {
+            stored = signatureService.store(body);
+        } catch (SignatureTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Paramètres (charset…) sans objet pour une image
+        String contentType = new MediaType(mediaType.getType(), mediaType.getSubtype()).toString();
+        Chantier saved = signatureService.attach(chantier, stored, contentType);
+        return ResponseEntity.ok()
+                .eTag(stored.sha256())
+                .body(new SignatureInfo(stored.sha256(), stored.taille(), contentType, saved.getDateSignature()));
+    }
+
+    public record SignatureInfo(String sha256, long taille, String contentType, LocalDateTime dateSignature) {
+    }
+}
@@ -1,52 +1,127 @@
-﻿package com.example.demo.controller;
+package com.example.demo.controller;
 
 import com.example.demo.entity.Client;
+import com.example.demo.pagination.CountStrategy;
+import com.example.demo.pagination.CursorCodec;
+import com.example.demo.pagination.CursorPage;
+import com.example.demo.pagination.KeysetSpecification;
+import com.example.demo.pagination.PageCounter;
+import com.example.demo.pagination.SortableFields;
 import com.example.demo.repository.ClientRepository;
+import com.example.demo.service.DashboardStatsService;
+import com.example.demo.service.JsonPageCache;
+import com.example.demo.service.ReferenceCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping({"/api/clients", "/clients"})
 public class ClientController {
 
     private final ClientRepository clientRepository;
+    private final DashboardStatsService dashboardStatsService;
+    private final CursorCodec cursorCodec;
+    private final ReferenceCache referenceCache;
 
-    public ClientController(ClientRepository clientRepository) {
+    private final JsonPageCache jsonPageCache;
+    private final PageCounter pageCounter;
+
+    public ClientController(
+            ClientRepository clientRepository,
+            DashboardStatsService dashboardStatsService,
+            CursorCodec cursorCodec,
+            ReferenceCache referenceCache,
+            JsonPageCache jsonPageCache,
+            PageCounter pageCounter
+    ) {
         this.clientRepository = clientRepository;
+        this.dashboardStatsService = dashboardStatsService;
+        this.cursorCodec = cursorCodec;
+        this.referenceCache = referenceCache;
+        this.jsonPageCache = jsonPageCache;
+        this.pageCounter = pageCounter;
     }
 
     @GetMapping
-    public Page<Client> getAllClients(
+    public ResponseEntity<byte[]> getAllClients(
             @RequestParam(required = false) String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id,desc") String[] sort,
+            @RequestParam(defaultValue = "cached") String count,
+            WebRequest request
+    ) {
+        SortableFields.Order order;
+        CountStrategy strategy;
+        try {
+            order = SortableFields.CLIENTS.parse(sort);
+            strategy = CountStrategy.parse(count);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Pageable pageable = PageRequest.of(page, size, order.toSort());
+
+        String version = clientRepository.listVersion();
+        boolean filtre = q != null && !q.isBlank();
+        return jsonPageCache.respond(JsonPageCache.CLIENTS, version, -1, request, () -> pageCounter.page(
+                filtre
+                        ? clientRepository.findByNomContainingIgnoreCase(q, pageable)
+                        : clientRepository.findAllBy(pageable),
+                pageable,
+                strategy,
+                JsonPageCache.CLIENTS + "|" + version + "|" + (filtre ? q : ""),
+                filtre
+                        ? () -> clientRepository.countByNomContainingIgnoreCase(q)
+                        : clientRepository::count,
+                // Pas d'estimation pour une recherche par sous-chaîne : repli sur le comptage exact.
+                filtre ? null : clientRepository::estimateCount
+        ));
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPage<Client>> getClientsAfter(
+            @RequestParam(required = false) String q,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "id,desc") String[] sort
     ) {
-        String sortBy = sort.length > 0 ? sort[0] : "id";
-        String sortDir = sort.length > 1 ? sort[1] : "desc";
-        Sort.Direction direction = "asc".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+        if (size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        if (q != null && !q.isBlank()) {
-            return clientRepository.findByNomContainingIgnoreCase(q, pageable);
+        try {
+            var order = SortableFields.CLIENTS.parse(sort);
+            var keys = cursorCodec.decode(after, Client.class);
+            var rows = KeysetSpecification.fetch(order, keys, ClientRepository.nomContains(q), size + 1,
+                    (spec, limit) -> clientRepository.findBy(spec,
+                            query -> query.sortBy(order.toSort()).limit(limit).all()));
+            return ResponseEntity.ok(cursorCodec.toPage(rows, size, order.field()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        return clientRepository.findAll(pageable);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Client> getClientById(@PathVariable Long id) {
         return clientRepository.findById(id)
-                .map(ResponseEntity::ok)
+                .map(client -> ResponseEntity.ok()
+                        .eTag(client.getId() + "-" + client.getVersion())
+                        .cacheControl(CacheControl.noCache())
+                        .body(client))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public Client createClient(@RequestBody Client client) {
-        return clientRepository.save(client);
+        Client saved = clientRepository.save(client);
+        dashboardStatsService.clientsChanged(1);
+        jsonPageCache.invalidate(JsonPageCache.CLIENTS);
+        return saved;
     }
 
     @PutMapping("/{id}")
@@ -57,7 +132,11 @@ public class ClientController {
         }
 
         existing.setNom(client.getNom());
-        return ResponseEntity.ok(clientRepository.save(existing));
+        Client saved = clientRepository.save(existing);
+        referenceCache.evictClient(id);
+        // Le nom du client apparaît aussi dans les lignes de chantiers.
+        jsonPageCache.invalidate(JsonPageCache.CLIENTS, JsonPageCache.CHANTIERS);
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/{id}")
@@ -67,6 +146,9 @@ public class ClientController {
         }
 
         clientRepository.deleteById(id);
+        referenceCache.evictClient(id);
+        dashboardStatsService.clientsChanged(-1);
+        jsonPageCache.invalidate(JsonPageCache.CLIENTS, JsonPageCache.CHANTIERS);
         return ResponseEntity.noContent().build();
     }
 }
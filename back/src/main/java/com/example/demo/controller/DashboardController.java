@@ -0,0 +1,23 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.DashboardStatsService;
+import com.example.demo.service.DashboardStatsService.DashboardStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping({"/api/dashboard", "/dashboard"})
+public class DashboardController {
+
+    private final DashboardStatsService dashboardStatsService;
+
+    public DashboardController(DashboardStatsService dashboardStatsService) {
+        this.dashboardStatsService = dashboardStatsService;
+    }
+
+    @GetMapping("/stats")
+    public DashboardStats getStats() {
+        return dashboardStatsService.snapshot();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.PlanningOptimisationRequest;
+import com.example.demo.service.PlanningService;
+import com.example.demo.service.PlanningService.Optimisation;
+import com.example.demo.service.PlanningService.Planning;
+import com.example.demo.service.PlanningService.TechnicienInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@RestController
+public class PlanningController {
+
+    private static final long MAX_JOURS = 366;
+    private static final int MAX_CHANTIERS_OPTIMISES = 20_000;
+    private static final long MAX_BUDGET_MS = 10_000;
+
+    private final PlanningService planningService;
+    private final long budgetParDefautMs;
+
+    public PlanningController(
+            PlanningService planningService,
+            @Value("${planning.optimize.budget-ms:2000}") long budgetParDefautMs
+    ) {
+        this.planningService = planningService;
+        this.budgetParDefautMs = budgetParDefautMs;
+    }
+
+    @GetMapping({"/api/planning", "/planning"})
+    public ResponseEntity<Planning> getPlanning(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_JOURS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(planningService.planning(from, to));
+    }
+
+    @GetMapping({"/api/techniciens/available", "/techniciens/available"})
+    public List<TechnicienInfo> getTechniciensDisponibles(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        return planningService.disponibles(date);
+    }
+
+    @PostMapping({"/api/planning/optimize", "/planning/optimize"})
+    public ResponseEntity<Optimisation> optimize(@RequestBody PlanningOptimisationRequest request) {
+        if (request.chantiers() == null || request.chantiers().isEmpty()
+                || request.chantiers().size() > MAX_CHANTIERS_OPTIMISES) {
+            return ResponseEntity.badRequest().build();
+        }
+        long budgetMs = request.budgetMs() == null ? budgetParDefautMs : request.budgetMs();
+        if (budgetMs < 0 || budgetMs > MAX_BUDGET_MS) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optimisation optimisation = planningService.optimiser(
+                request.chantiers(),
+                request.technicienIds(),
+                Boolean.TRUE.equals(request.proximite()),
+                budgetMs
+        );
+        if (optimisation == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        return ResponseEntity.ok(optimisation);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.ReportingService;
+import com.example.demo.service.ReportingService.Rafraichissement;
+import com.example.demo.service.ReportingService.Rapport;
+import com.example.demo.service.ReportingService.RapportInstallation;
+import com.example.demo.service.ReportingService.RapportMensuel;
+import com.example.demo.service.ReportingService.RapportTechnicien;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Rapports lus dans les tables d'agrégats ; période par défaut : les 12 derniers mois.
+ */
+@RestController
+@RequestMapping({"/api/reports", "/reports"})
+public class ReportController {
+
+    private static final long MAX_MOIS = 120;
+
+    private final ReportingService reportingService;
+
+    public ReportController(ReportingService reportingService) {
+        this.reportingService = reportingService;
+    }
+
+    @GetMapping("/monthly")
+    public ResponseEntity<Rapport<RapportMensuel>> getMensuel(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+    ) {
+        return report(from, to, reportingService::mensuel);
+    }
+
+    @GetMapping("/techniciens")
+    public ResponseEntity<Rapport<RapportTechnicien>> getParTechnicien(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+    ) {
+        return report(from, to, reportingService::parTechnicien);
+    }
+
+    @GetMapping("/installations")
+    public ResponseEntity<Rapport<RapportInstallation>> getParInstallation(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+    ) {
+        return report(from, to, reportingService::parInstallation);
+    }
+
+    @PostMapping("/refresh")
+    public Rafraichissement refresh(@RequestParam(defaultValue = "false") boolean full) {
+        return reportingService.refresh(full);
+    }
+
+    private static <T> ResponseEntity<Rapport<T>> report(
+            YearMonth from,
+            YearMonth to,
+            BiFunction<YearMonth, YearMonth, Rapport<T>> query
+    ) {
+        YearMonth fin = to == null ? YearMonth.now() : to;
+        YearMonth debut = from == null ? fin.minusMonths(11) : from;
+        if (fin.isBefore(debut) || ChronoUnit.MONTHS.between(debut, fin) >= MAX_MOIS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(query.apply(debut, fin));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.SyncMutation;
+import com.example.demo.service.ChantierWriteService.Issue;
+import com.example.demo.service.SyncService;
+import com.example.demo.service.SyncService.Bilan;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Synchronisation du frontend hors ligne : deltas depuis un jeton, et lot de modifications faites hors ligne.
+ */
+@RestController
+@RequestMapping({"/api/sync", "/sync"})
+public class SyncController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final SyncService syncService;
+
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    /**
+     * NDJSON (compressé en gzip si le client l'accepte) ; le jeton de la dernière ligne sert au prochain appel.
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> sync(@RequestParam(required = false) String since) {
+        LocalDateTime depuis;
+        try {
+            depuis = syncService.decode(since);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> syncService.write(depuis, out);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+
+    /**
+     * Tout ou rien : 200 avec un résultat par modification, sinon le premier échec
+     * (400 si la modification est invalide, 409 si elle entre en conflit avec l'état du serveur).
+     * Avec un en-tête Idempotency-Key, un lot renvoyé après une coupure n'est pas appliqué deux fois.
+     */
+    @PostMapping
+    public ResponseEntity<?> apply(@RequestBody List<SyncMutation> mutations) {
+        Bilan bilan;
+        try {
+            bilan = syncService.apply(mutations);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (bilan.echec() == null) {
+            return ResponseEntity.ok(bilan.resultats());
+        }
+        HttpStatus status = bilan.echec().raison() == Issue.INVALIDE ? HttpStatus.BAD_REQUEST : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(bilan.echec());
+    }
+}
@@ -1,54 +1,134 @@
-﻿package com.example.demo.controller;
+package com.example.demo.controller;
 
 import com.example.demo.entity.Technicien;
+import com.example.demo.pagination.CountStrategy;
+import com.example.demo.pagination.CursorCodec;
+import com.example.demo.pagination.CursorPage;
+import com.example.demo.pagination.KeysetSpecification;
+import com.example.demo.pagination.PageCounter;
+import com.example.demo.pagination.SortableFields;
 import com.example.demo.repository.TechnicienRepository;
+import com.example.demo.service.DashboardStatsService;
+import com.example.demo.service.JsonPageCache;
+import com.example.demo.service.PlanningService;
+import com.example.demo.service.ReferenceCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping({"/api/techniciens", "/techniciens"})
 public class TechnicienController {
 
     private final TechnicienRepository technicienRepository;
+    private final DashboardStatsService dashboardStatsService;
+    private final CursorCodec cursorCodec;
+    private final ReferenceCache referenceCache;
+    private final PlanningService planningService;
 
-    public TechnicienController(TechnicienRepository technicienRepository) {
+    private final JsonPageCache jsonPageCache;
+    private final PageCounter pageCounter;
+
+    public TechnicienController(
+            TechnicienRepository technicienRepository,
+            DashboardStatsService dashboardStatsService,
+            CursorCodec cursorCodec,
+            ReferenceCache referenceCache,
+            PlanningService planningService,
+            JsonPageCache jsonPageCache,
+            PageCounter pageCounter
+    ) {
         this.technicienRepository = technicienRepository;
+        this.dashboardStatsService = dashboardStatsService;
+        this.cursorCodec = cursorCodec;
+        this.referenceCache = referenceCache;
+        this.planningService = planningService;
+        this.jsonPageCache = jsonPageCache;
+        this.pageCounter = pageCounter;
     }
 
     @GetMapping
-    public Page<Technicien> getAllTechniciens(
+    public ResponseEntity<byte[]> getAllTechniciens(
             @RequestParam(required = false) String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id,desc") String[] sort,
+            @RequestParam(defaultValue = "cached") String count,
+            WebRequest request
+    ) {
+        SortableFields.Order order;
+        CountStrategy strategy;
+        try {
+            order = SortableFields.TECHNICIENS.parse(sort);
+            strategy = CountStrategy.parse(count);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Pageable pageable = PageRequest.of(page, size, order.toSort());
+
+        String version = technicienRepository.listVersion();
+        boolean filtre = q != null && !q.isBlank();
+        return jsonPageCache.respond(JsonPageCache.TECHNICIENS, version, -1, request, () -> pageCounter.page(
+                filtre
+                        ? technicienRepository.findByNomContainingIgnoreCaseOrPrenomContainingIgnoreCaseOrEmailContainingIgnoreCase(
+                                q, q, q, pageable)
+                        : technicienRepository.findAllBy(pageable),
+                pageable,
+                strategy,
+                JsonPageCache.TECHNICIENS + "|" + version + "|" + (filtre ? q : ""),
+                filtre
+                        ? () -> technicienRepository.countByNomContainingIgnoreCaseOrPrenomContainingIgnoreCaseOrEmailContainingIgnoreCase(
+                                q, q, q)
+                        : technicienRepository::count,
+                // Pas d'estimation pour une recherche par sous-chaîne : repli sur le comptage exact.
+                filtre ? null : technicienRepository::estimateCount
+        ));
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPage<Technicien>> getTechniciensAfter(
+            @RequestParam(required = false) String q,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "id,desc") String[] sort
     ) {
-        String sortBy = sort.length > 0 ? sort[0] : "id";
-        String sortDir = sort.length > 1 ? sort[1] : "desc";
-        Sort.Direction direction = "asc".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-
-        if (q != null && !q.isBlank()) {
-            return technicienRepository.findByNomContainingIgnoreCaseOrPrenomContainingIgnoreCaseOrEmailContainingIgnoreCase(
-                    q, q, q, pageable
-            );
+        if (size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            var order = SortableFields.TECHNICIENS.parse(sort);
+            var keys = cursorCodec.decode(after, Technicien.class);
+            var rows = KeysetSpecification.fetch(order, keys, TechnicienRepository.nomPrenomOrEmailContains(q),
+                    size + 1, (spec, limit) -> technicienRepository.findBy(spec,
+                            query -> query.sortBy(order.toSort()).limit(limit).all()));
+            return ResponseEntity.ok(cursorCodec.toPage(rows, size, order.field()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        return technicienRepository.findAll(pageable);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Technicien> getTechnicienById(@PathVariable Long id) {
         return technicienRepository.findById(id)
-                .map(ResponseEntity::ok)
+                .map(technicien -> ResponseEntity.ok()
+                        .eTag(technicien.getId() + "-" + technicien.getVersion())
+                        .cacheControl(CacheControl.noCache())
+                        .body(technicien))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public Technicien createTechnicien(@RequestBody Technicien technicien) {
-        return technicienRepository.save(technicien);
+        Technicien saved = technicienRepository.save(technicien);
+        dashboardStatsService.techniciensChanged(1);
+        planningService.technicienSaved(saved);
+        jsonPageCache.invalidate(JsonPageCache.TECHNICIENS);
+        return saved;
     }
 
     @PutMapping("/{id}")
@@ -61,7 +141,12 @@ public class TechnicienController {
         existing.setNom(technicien.getNom());
         existing.setPrenom(technicien.getPrenom());
         existing.setEmail(technicien.getEmail());
-        return ResponseEntity.ok(technicienRepository.save(existing));
+        Technicien saved = technicienRepository.save(existing);
+        referenceCache.evictTechnicien(id);
+        planningService.technicienSaved(saved);
+        // Nom et prénom apparaissent aussi dans les lignes de chantiers.
+        jsonPageCache.invalidate(JsonPageCache.TECHNICIENS, JsonPageCache.CHANTIERS);
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/{id}")
@@ -71,6 +156,10 @@ public class TechnicienController {
         }
 
         technicienRepository.deleteById(id);
+        referenceCache.evictTechnicien(id);
+        planningService.technicienDeleted(id);
+        dashboardStatsService.techniciensChanged(-1);
+        jsonPageCache.invalidate(JsonPageCache.TECHNICIENS, JsonPageCache.CHANTIERS);
         return ResponseEntity.noContent().build();
     }
 }
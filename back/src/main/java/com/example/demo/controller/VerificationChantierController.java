@@ -1,8 +1,14 @@
-﻿package com.example.demo.controller;
+package com.example.demo.controller;
 
+import com.example.demo.dto.VerificationRequest;
 import com.example.demo.entity.VerificationChantier;
-import com.example.demo.repository.ChantierRepository;
 import com.example.demo.repository.VerificationChantierRepository;
+import com.example.demo.service.VerificationService;
+import com.example.demo.service.VerificationService.Avancement;
+import com.example.demo.service.VerificationService.Soumission;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,24 +19,47 @@ import java.util.List;
 public class VerificationChantierController {
 
     private final VerificationChantierRepository verificationRepository;
-    private final ChantierRepository chantierRepository;
+    private final VerificationService verificationService;
 
     public VerificationChantierController(
             VerificationChantierRepository verificationRepository,
-            ChantierRepository chantierRepository
+            VerificationService verificationService
     ) {
         this.verificationRepository = verificationRepository;
-        this.chantierRepository = chantierRepository;
+        this.verificationService = verificationService;
     }
 
     @GetMapping
-    public List<VerificationChantier> getAllVerifications() {
-        return verificationRepository.findAll();
+    public ResponseEntity<Page<VerificationChantier>> getAllVerifications(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if (page < 0 || size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(verificationRepository.findAll(PageRequest.of(page, size, Sort.by("id"))));
     }
 
+    /**
+     * Check-list d'un chantier, par pages (une check-list fait quelques dizaines de points).
+     */
     @GetMapping("/chantier/{chantierId}")
-    public List<VerificationChantier> getVerificationsByChantier(@PathVariable Long chantierId) {
-        return verificationRepository.findByChantierId(chantierId);
+    public ResponseEntity<Page<VerificationChantier>> getVerificationsByChantier(
+            @PathVariable Long chantierId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size
+    ) {
+        if (page < 0 || size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(
+                verificationRepository.findByChantierId(chantierId, PageRequest.of(page, size, Sort.by("id"))));
+    }
+
+    @GetMapping("/chantier/{chantierId}/avancement")
+    public ResponseEntity<Avancement> getAvancement(@PathVariable Long chantierId) {
+        Avancement avancement = verificationService.avancement(chantierId);
+        return avancement == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(avancement);
     }
 
     @GetMapping("/{id}")
@@ -42,24 +71,34 @@ public class VerificationChantierController {
 
     @PostMapping("/chantier/{chantierId}")
     public ResponseEntity<VerificationChantier> createForChantier(@PathVariable Long chantierId) {
-        var chantier = chantierRepository.findById(chantierId).orElse(null);
-        if (chantier == null) {
+        Long id = verificationService.createEmpty(chantierId);
+        if (id == null) {
             return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.of(verificationRepository.findById(id));
+    }
 
-        VerificationChantier verification = new VerificationChantier();
-        verification.setChantier(chantier);
-        return ResponseEntity.ok(verificationRepository.save(verification));
+    /**
+     * Check-list complète en une requête : chaque point est créé ou mis à jour (clé : libellé du point).
+     */
+    @PostMapping("/chantier/{chantierId}/checklist")
+    public ResponseEntity<Soumission> submitChecklist(
+            @PathVariable Long chantierId,
+            @RequestBody List<VerificationRequest> points
+    ) {
+        try {
+            Soumission soumission = verificationService.submit(chantierId, points);
+            return soumission == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(soumission);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteVerification(@PathVariable Long id) {
-        if (!verificationRepository.existsById(id)) {
+        if (!verificationService.delete(id)) {
             return ResponseEntity.notFound().build();
         }
-
-        verificationRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 }
-
@@ -0,0 +1,87 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.ChantierStatut;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Critères de recherche des chantiers ; un critère null (ou vide) n'ajoute aucun prédicat à la requête.
+ *
+ * @param statuts        un ou plusieurs statuts (IN)
+ * @param dateDebut      date d'intervention minimale, incluse
+ * @param dateFin        date d'intervention maximale, incluse
+ * @param technicienIds  un ou plusieurs techniciens (IN)
+ * @param clientIds      un ou plusieurs clients (IN)
+ */
+public record ChantierFilter(
+        String q,
+        List<ChantierStatut> statuts,
+        LocalDate dateDebut,
+        LocalDate dateFin,
+        List<Long> technicienIds,
+        List<Long> clientIds,
+        String typeInstallation
+) {
+
+    // Au-delà, la liste IN n'est plus un filtre mais un export déguisé.
+    public static final int MAX_VALEURS = 100;
+
+    public static final ChantierFilter AUCUN = new ChantierFilter(null, null, null, null, null, null, null);
+
+    /**
+     * @throws IllegalArgumentException liste trop longue ou période inversée
+     */
+    public ChantierFilter {
+        q = q == null || q.isBlank() ? null : q.trim();
+        typeInstallation = typeInstallation == null || typeInstallation.isBlank() ? null : typeInstallation.trim();
+        statuts = normalize(statuts);
+        technicienIds = normalize(technicienIds);
+        clientIds = normalize(clientIds);
+        if (dateDebut != null && dateFin != null && dateDebut.isAfter(dateFin)) {
+            throw new IllegalArgumentException("dateDebut après dateFin");
+        }
+    }
+
+    /**
+     * Paramètres de l'API : {@code dateIntervention} (date exacte, historique) équivaut à dateDebut = dateFin.
+     */
+    public static ChantierFilter of(
+            String q,
+            List<ChantierStatut> statuts,
+            LocalDate dateIntervention,
+            LocalDate dateDebut,
+            LocalDate dateFin,
+            List<Long> technicienIds,
+            List<Long> clientIds,
+            String typeInstallation
+    ) {
+        if (dateIntervention != null) {
+            if (dateDebut != null || dateFin != null) {
+                throw new IllegalArgumentException("dateIntervention et dateDebut/dateFin sont exclusifs");
+            }
+            dateDebut = dateIntervention;
+            dateFin = dateIntervention;
+        }
+        return new ChantierFilter(q, statuts, dateDebut, dateFin, technicienIds, clientIds, typeInstallation);
+    }
+
+    public static ChantierFilter of(String q, ChantierStatut statut, LocalDate dateIntervention) {
+        return of(q, statut == null ? null : List.of(statut), dateIntervention, null, null, null, null, null);
+    }
+
+    public boolean isEmpty() {
+        return equals(AUCUN);
+    }
+
+    private static <T> List<T> normalize(List<T> valeurs) {
+        if (valeurs == null) {
+            return null;
+        }
+        List<T> distinctes = valeurs.stream().filter(v -> v != null).distinct().toList();
+        if (distinctes.size() > MAX_VALEURS) {
+            throw new IllegalArgumentException("Plus de " + MAX_VALEURS + " valeurs");
+        }
+        return distinctes.isEmpty() ? null : distinctes;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+/**
+ * Résultat d'une recherche de proximité : la ligne de liste, la position géocodée et la distance au point demandé.
+ *
+ * @param distance en mètres, sur la sphère terrestre
+ */
+public record ChantierProche(
+        ChantierSummary chantier,
+        double latitude,
+        double longitude,
+        double distance
+) {
+}
@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record ChantierRequest(
+        String reference,
+        String adresse,
+        String typeInstallation,
+        LocalDate dateIntervention,
+        ChantierStatut statut,
+        LocalDateTime dateSignature,
+        Long clientId,
+        Long technicienId,
+        // Version lue par le client : absente, la modification écrase l'état courant (dernier écrivain gagnant).
+        Long version
+) {
+
+    /**
+     * Recopie les champs simples ; client et technicien sont résolus par l'appelant.
+     */
+    public void applyTo(Chantier chantier) {
+        chantier.setReference(reference);
+        chantier.setAdresse(adresse);
+        chantier.setTypeInstallation(typeInstallation);
+        chantier.setDateIntervention(dateIntervention);
+        chantier.setStatut(statut == null ? ChantierStatut.BROUILLON : statut);
+        // La signature elle-même passe par PUT /api/chantiers/{id}/signature.
+        chantier.setDateSignature(dateSignature);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Modèle de lecture de la liste des chantiers : colonnes à plat, sans la signature ni le graphe d'entités.
+ */
+public record ChantierSummary(
+        Long id,
+        String reference,
+        String adresse,
+        String typeInstallation,
+        LocalDate dateIntervention,
+        ChantierStatut statut,
+        LocalDateTime dateSignature,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long clientId,
+        String clientNom,
+        Long technicienId,
+        String technicienNom,
+        String technicienPrenom,
+        int verificationsTotal,
+        int verificationsFaites,
+        // Version du chantier : à renvoyer avec une modification pour la fusion des écritures concurrentes.
+        Long version
+) {
+
+    /**
+     * Part des points de la check-list déjà vérifiés, null sans check-list.
+     */
+    @JsonProperty
+    public Double verificationsProgression() {
+        return verificationsTotal == 0 ? null : (double) verificationsFaites / verificationsTotal;
+    }
+
+    public static ChantierSummary from(Chantier chantier) {
+        var client = chantier.getClient();
+        var technicien = chantier.getTechnicien();
+        return new ChantierSummary(
+                chantier.getId(),
+                chantier.getReference(),
+                chantier.getAdresse(),
+                chantier.getTypeInstallation(),
+                chantier.getDateIntervention(),
+                chantier.getStatut(),
+                chantier.getDateSignature(),
+                chantier.getCreatedAt(),
+                chantier.getUpdatedAt(),
+                client.getId(),
+                client.getNom(),
+                technicien.getId(),
+                technicien.getNom(),
+                technicien.getPrenom(),
+                chantier.getVerificationsTotal(),
+                chantier.getVerificationsFaites(),
+                chantier.getVersion()
+        );
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Chantiers à répartir (sans technicien) et pool de techniciens ; pool vide = tous les techniciens.
+ */
+public record PlanningOptimisationRequest(
+        List<ChantierAPlanifier> chantiers,
+        List<Long> technicienIds,
+        Boolean proximite,
+        Long budgetMs
+) {
+
+    public record ChantierAPlanifier(String reference, String adresse, LocalDate dateIntervention) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Modification faite hors ligne, rejouée dans un lot de synchronisation.
+ *
+ * @param ref      identifiant provisoire attribué par le client à une création, réutilisable dans le lot
+ * @param id       chantier visé (ou vérification pour {@link Ressource#VERIFICATION} / {@link Operation#SUPPRESSION})
+ * @param cibleRef à la place de {@code id} : la {@code ref} d'une création antérieure du même lot
+ * @param data     {@link ChantierRequest} pour CREATION et MODIFICATION, liste de {@link VerificationRequest} pour CHECKLIST
+ */
+public record SyncMutation(
+        String ref,
+        Ressource ressource,
+        Operation operation,
+        Long id,
+        String cibleRef,
+        JsonNode data
+) {
+
+    public enum Ressource {
+        CHANTIER,
+        VERIFICATION
+    }
+
+    public enum Operation {
+        CREATION,
+        MODIFICATION,
+        CLOTURE,
+        SUPPRESSION,
+        // Soumission d'une check-list sur le chantier visé.
+        CHECKLIST
+    }
+}
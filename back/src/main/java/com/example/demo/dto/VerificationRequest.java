@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.VerificationResultat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Point de check-list soumis par un technicien ; {@code verifieLe} vaut l'heure de réception s'il est absent.
+ */
+public record VerificationRequest(
+        String point,
+        VerificationResultat resultat,
+        BigDecimal mesure,
+        String unite,
+        String commentaire,
+        LocalDateTime verifieLe
+) {
+}
@@ -1,18 +1,24 @@
 package com.example.demo.entity;
 
+import com.example.demo.service.ChantierAuditListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.OptimisticLock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Entity
 @Table(name = "chantiers")
+@EntityListeners(ChantierAuditListener.class)
 public class Chantier {
 
+    // Séquence poolée (et non IDENTITY) pour que Hibernate puisse regrouper les INSERT en batch JDBC.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chantiers_seq")
+    @SequenceGenerator(name = "chantiers_seq", sequenceName = "chantiers_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -21,6 +27,15 @@ public class Chantier {
     @Column(nullable = false)
     private String adresse;
 
+    // Position de l'adresse (GeocodingService), null si elle n'est pas localisable ; index spatial idx_chantiers_position.
+    private Double latitude;
+
+    private Double longitude;
+
+    // Dernier géocodage de l'adresse, null tant qu'elle n'a pas été traitée.
+    @JsonIgnore
+    private LocalDateTime geocodeLe;
+
     private String typeInstallation;
 
     private LocalDate dateIntervention;
@@ -29,7 +44,14 @@ public class Chantier {
     @Column(nullable = false)
     private ChantierStatut statut = ChantierStatut.BROUILLON;
 
-    private String signatureClient;
+    // Signature stockée hors de la ligne (SignatureService) : seules la clé de stockage et l'empreinte restent ici.
+    @JsonIgnore
+    private String signatureRef;
+
+    private String signatureSha256;
+
+    @JsonIgnore
+    private String signatureContentType;
 
     private LocalDateTime dateSignature;
 
@@ -38,18 +60,36 @@ public class Chantier {
 
     private LocalDateTime updatedAt;
 
-    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    // Verrouillage optimiste : une modification concurrente fait échouer l'UPDATE au lieu d'écraser l'autre.
+    @Version
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "client_id", nullable = false)
     private Client client;
 
-    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "technicien_id", nullable = false)
     private Technicien technicien;
 
+    // Avancement de la check-list, tenu à jour en SQL par VerificationService : la liste l'affiche sans charger les vérifications.
+    @Column(insertable = false, updatable = false, columnDefinition = "integer NOT NULL DEFAULT 0")
+    private int verificationsTotal;
+
+    @Column(insertable = false, updatable = false, columnDefinition = "integer NOT NULL DEFAULT 0")
+    private int verificationsFaites;
+
+    // Les vérifications vivent leur vie : en ajouter ne change pas la version du chantier.
     @JsonIgnore
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "chantier", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<VerificationChantier> verifications = new ArrayList<>();
 
+    // État au chargement, comparé par ChantierAuditListener pour historiser les modifications.
+    @Transient
+    @JsonIgnore
+    private Map<String, Object> etatAudit;
+
     @PrePersist
     public void prePersist() {
         this.createdAt = LocalDateTime.now();
@@ -93,6 +133,24 @@ public class Chantier {
         this.adresse = adresse;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public LocalDateTime getGeocodeLe() {
+        return geocodeLe;
+    }
+
+    public void localiser(Double latitude, Double longitude, LocalDateTime geocodeLe) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.geocodeLe = geocodeLe;
+    }
+
     public String getTypeInstallation() {
         return typeInstallation;
     }
@@ -117,12 +175,28 @@ public class Chantier {
         this.statut = statut;
     }
 
-    public String getSignatureClient() {
-        return signatureClient;
+    public String getSignatureRef() {
+        return signatureRef;
+    }
+
+    public void setSignatureRef(String signatureRef) {
+        this.signatureRef = signatureRef;
+    }
+
+    public String getSignatureSha256() {
+        return signatureSha256;
     }
 
-    public void setSignatureClient(String signatureClient) {
-        this.signatureClient = signatureClient;
+    public void setSignatureSha256(String signatureSha256) {
+        this.signatureSha256 = signatureSha256;
+    }
+
+    public String getSignatureContentType() {
+        return signatureContentType;
+    }
+
+    public void setSignatureContentType(String signatureContentType) {
+        this.signatureContentType = signatureContentType;
     }
 
     public LocalDateTime getDateSignature() {
@@ -149,6 +223,10 @@ public class Chantier {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public Client getClient() {
         return client;
     }
@@ -165,6 +243,22 @@ public class Chantier {
         this.technicien = technicien;
     }
 
+    public Map<String, Object> getEtatAudit() {
+        return etatAudit;
+    }
+
+    public void setEtatAudit(Map<String, Object> etatAudit) {
+        this.etatAudit = etatAudit;
+    }
+
+    public int getVerificationsTotal() {
+        return verificationsTotal;
+    }
+
+    public int getVerificationsFaites() {
+        return verificationsFaites;
+    }
+
     public List<VerificationChantier> getVerifications() {
         return verifications;
     }
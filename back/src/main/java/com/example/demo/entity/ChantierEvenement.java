@@ -0,0 +1,86 @@
+package com.example.demo.entity;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrée du journal des modifications d'un chantier, en ajout seul.
+ * Écrite en lot par ChantierAuditLog ; pas de clé étrangère pour que l'historique survive à la suppression.
+ */
+@Entity
+@Immutable
+@Table(
+        name = "chantier_evenements",
+        indexes = @Index(name = "idx_chantier_evenements_chantier", columnList = "chantier_id, id")
+)
+public class ChantierEvenement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "chantier_id", nullable = false)
+    private Long chantierId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ChantierEvenementType type;
+
+    @Enumerated(EnumType.STRING)
+    private ChantierStatut statutAvant;
+
+    @Enumerated(EnumType.STRING)
+    private ChantierStatut statutApres;
+
+    // {"champ": [ancienne valeur, nouvelle valeur], ...}
+    @Column(columnDefinition = "jsonb")
+    private String changements;
+
+    private String auteur;
+
+    // Version du chantier produite par cet événement (fusion des modifications concurrentes).
+    private Long version;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getChantierId() {
+        return chantierId;
+    }
+
+    public ChantierEvenementType getType() {
+        return type;
+    }
+
+    public ChantierStatut getStatutAvant() {
+        return statutAvant;
+    }
+
+    public ChantierStatut getStatutApres() {
+        return statutApres;
+    }
+
+    @JsonRawValue
+    public String getChangements() {
+        return changements;
+    }
+
+    public String getAuteur() {
+        return auteur;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.entity;
+
+public enum ChantierEvenementType {
+    CREATION,
+    MODIFICATION,
+    CHANGEMENT_STATUT,
+    SUPPRESSION
+}
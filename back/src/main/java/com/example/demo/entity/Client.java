@@ -2,6 +2,8 @@ package com.example.demo.entity;
 
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "clients")
 public class Client {
@@ -13,6 +15,19 @@ public class Client {
     @Column(nullable = false)
     private String nom;
 
+    // Incrémentée à chaque modification : sert d'ETag (pas de date de mise à jour sur les clients).
+    @Version
+    private Long version;
+
+    // Synchronisation hors ligne : clients créés ou modifiés depuis le dernier jeton.
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -28,4 +43,12 @@ public class Client {
     public void setNom(String nom) {
         this.nom = nom;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
 }
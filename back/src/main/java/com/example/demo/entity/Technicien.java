@@ -15,6 +15,19 @@ public class Technicien {
     private String email;
     
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Incrémentée à chaque modification : sert d'ETag.
+    @Version
+    private Long version;
+
+    // Synchronisation hors ligne : techniciens créés ou modifiés depuis le dernier jeton.
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
     
     // Constructeurs
     public Technicien() {}
@@ -40,4 +53,8 @@ public class Technicien {
     
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public Long getVersion() { return version; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
 }
@@ -3,6 +3,13 @@ package com.example.demo.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Point de la check-list d'un chantier ; un résultat nul signifie « à vérifier ».
+ * Unique par (chantier, point) : une check-list renvoyée met à jour ses points au lieu de les dupliquer.
+ */
 @Entity
 @Table(name = "verification_chantier")
 public class VerificationChantier {
@@ -16,6 +23,28 @@ public class VerificationChantier {
     @JsonIgnore
     private Chantier chantier;
 
+    // Lecture seule : l'id du chantier sans charger l'association.
+    @Column(name = "chantier_id", insertable = false, updatable = false)
+    private Long chantierId;
+
+    private String point;
+
+    @Enumerated(EnumType.STRING)
+    private VerificationResultat resultat;
+
+    @Column(precision = 12, scale = 3)
+    private BigDecimal mesure;
+
+    private String unite;
+
+    private String commentaire;
+
+    private LocalDateTime verifieLe;
+
+    // Écrite par VerificationService (synchronisation hors ligne).
+    @Column(insertable = false, updatable = false, columnDefinition = "timestamp NOT NULL DEFAULT now()")
+    private LocalDateTime updatedAt;
+
     public Long getId() {
         return id;
     }
@@ -31,4 +60,36 @@ public class VerificationChantier {
     public void setChantier(Chantier chantier) {
         this.chantier = chantier;
     }
+
+    public Long getChantierId() {
+        return chantierId;
+    }
+
+    public String getPoint() {
+        return point;
+    }
+
+    public VerificationResultat getResultat() {
+        return resultat;
+    }
+
+    public BigDecimal getMesure() {
+        return mesure;
+    }
+
+    public String getUnite() {
+        return unite;
+    }
+
+    public String getCommentaire() {
+        return commentaire;
+    }
+
+    public LocalDateTime getVerifieLe() {
+        return verifieLe;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.demo.entity;
+
+public enum VerificationResultat {
+    CONFORME,
+    NON_CONFORME,
+    NON_APPLICABLE
+}
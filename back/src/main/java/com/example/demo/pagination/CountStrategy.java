@@ -0,0 +1,22 @@
+package com.example.demo.pagination;
+
+import java.util.Locale;
+
+/**
+ * Calcul du total d'une page ({@code ?count=exact|estimated|cached}).
+ */
+public enum CountStrategy {
+    // COUNT(*) à chaque page.
+    EXACT,
+    // Estimation du planificateur PostgreSQL : aucun parcours, à afficher « ~12 000 ».
+    ESTIMATED,
+    // COUNT(*) exact, gardé par filtre tant que la version de la ressource ne change pas.
+    CACHED;
+
+    /**
+     * @throws IllegalArgumentException valeur inconnue
+     */
+    public static CountStrategy parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
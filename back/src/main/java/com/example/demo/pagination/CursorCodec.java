@@ -0,0 +1,82 @@
+package com.example.demo.pagination;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.ManagedType;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encode la position keyset (valeur de tri + id de la dernière ligne) en curseur opaque base64url.
+ */
+@Component
+public class CursorCodec {
+
+    private static final TypeReference<LinkedHashMap<String, Object>> KEYS_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public CursorCodec(ObjectMapper objectMapper, EntityManagerFactory entityManagerFactory) {
+        this.objectMapper = objectMapper;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * @return les clés de la dernière ligne vue, vide pour la première page
+     * @throws IllegalArgumentException si le curseur est illisible ou référence un attribut inconnu
+     */
+    public Map<String, Object> decode(String cursor, Class<?> entityType) {
+        if (cursor == null || cursor.isBlank()) {
+            return Map.of();
+        }
+
+        Map<String, Object> raw;
+        try {
+            raw = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), KEYS_TYPE);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur invalide", e);
+        }
+
+        // Le JSON perd les types (dates, Long) : on les restaure d'après le métamodèle JPA.
+        ManagedType<?> type = entityManagerFactory.getMetamodel().managedType(entityType);
+        Map<String, Object> keys = new LinkedHashMap<>();
+        raw.forEach((name, value) -> {
+            Class<?> javaType = type.getAttribute(name).getJavaType();
+            keys.put(name, value == null ? null : objectMapper.convertValue(value, javaType));
+        });
+        return keys;
+    }
+
+    public String encode(Map<String, Object> keys) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(keys));
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible d'encoder le curseur", e);
+        }
+    }
+
+    /**
+     * @param rows résultat d'une requête limitée à {@code size + 1} lignes, la ligne en trop signalant une page suivante
+     */
+    public <T> CursorPage<T> toPage(List<T> rows, int size, String sortBy) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, rows.size(), false, null);
+        }
+
+        List<T> content = rows.subList(0, size);
+        var last = PropertyAccessorFactory.forBeanPropertyAccess(content.get(size - 1));
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(sortBy, last.getPropertyValue(sortBy));
+        keys.put("id", last.getPropertyValue("id"));
+        return new CursorPage<>(content, size, true, encode(keys));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page en mode curseur : pas de total, seulement le curseur opaque de la page suivante.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        boolean hasNext,
+        String nextCursor
+) {
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), size, hasNext, nextCursor);
+    }
+}
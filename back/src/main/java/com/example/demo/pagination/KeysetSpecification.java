@@ -0,0 +1,97 @@
+package com.example.demo.pagination;
+
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Prédicat keyset « après la dernière ligne vue » sur (champ de tri, id).
+ * Suit l'ordre PostgreSQL par défaut : NULLS LAST en ASC, NULLS FIRST en DESC.
+ *
+ * <p>Chaque requête reste une borne sur l'index (champ, id) : {@code champ >= dernier AND (champ > dernier OR
+ * id > dernierId)} se lit par un parcours d'index arrêté à la limite, là où un OR de branches donne un BitmapOr
+ * suivi d'un tri complet. Les NULL, hors de cette borne, sont une branche à part, lue seulement si la page n'est
+ * pas pleine.
+ */
+public final class KeysetSpecification {
+
+    private KeysetSpecification() {
+    }
+
+    public static Sort sort(String sortBy, Sort.Direction direction) {
+        return "id".equals(sortBy)
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+    }
+
+    /**
+     * Jusqu'à {@code limit} lignes après le curseur : branches lues dans l'ordre du tri, la suivante seulement
+     * pour compléter la page.
+     *
+     * @param query exécute une branche (filtre et position) avec le tri de {@code order} et une limite
+     * @throws IllegalArgumentException si les clés du curseur ne correspondent pas au tri
+     */
+    public static <T> List<T> fetch(SortableFields.Order order, Map<String, Object> keys, Specification<T> filter,
+                                    int limit, BiFunction<Specification<T>, Integer, List<T>> query) {
+        List<T> rows = new ArrayList<>();
+        for (Specification<T> branch : KeysetSpecification.<T>after(order.field(), order.direction(), keys)) {
+            if (rows.size() >= limit) {
+                break;
+            }
+            rows.addAll(query.apply(filter.and(branch), limit - rows.size()));
+        }
+        return rows;
+    }
+
+    /**
+     * Positions après le curseur, en branches disjointes dans l'ordre du tri.
+     *
+     * @throws IllegalArgumentException si les clés du curseur ne correspondent pas au tri
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> List<Specification<T>> after(String sortBy, Sort.Direction direction, Map<String, Object> keys) {
+        if (!keys.isEmpty() && (!keys.containsKey(sortBy) || !keys.containsKey("id"))) {
+            throw new IllegalArgumentException("Le curseur ne correspond pas au tri demandé");
+        }
+        if (keys.isEmpty()) {
+            return List.of((root, query, cb) -> cb.conjunction());
+        }
+
+        boolean asc = direction.isAscending();
+        Comparable lastId = (Comparable) keys.get("id");
+        Specification<T> idAfter = (root, query, cb) -> {
+            Path<Comparable> id = root.get("id");
+            return asc ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId);
+        };
+        if ("id".equals(sortBy)) {
+            return List.of(idAfter);
+        }
+
+        Comparable last = (Comparable) keys.get(sortBy);
+        Specification<T> isNull = (root, query, cb) -> cb.isNull(root.get(sortBy));
+        if (last == null) {
+            // ASC : les NULL sont en fin, il ne reste que des NULL ; DESC : ils sont en tête, tout le reste suit.
+            Specification<T> nullsAfter = isNull.and(idAfter);
+            return asc
+                    ? List.of(nullsAfter)
+                    : List.of(nullsAfter, (root, query, cb) -> cb.isNotNull(root.get(sortBy)));
+        }
+
+        Specification<T> seek = (root, query, cb) -> {
+            Path<Comparable> key = root.get(sortBy);
+            Path<Comparable> id = root.get("id");
+            return asc
+                    ? cb.and(cb.greaterThanOrEqualTo(key, last),
+                             cb.or(cb.greaterThan(key, last), cb.greaterThan(id, lastId)))
+                    : cb.and(cb.lessThanOrEqualTo(key, last),
+                             cb.or(cb.lessThan(key, last), cb.lessThan(id, lastId)));
+        };
+        // ASC : la queue des NULL vient après toutes les clés renseignées.
+        return asc ? List.of(seek, isNull) : List.of(seek);
+    }
+}
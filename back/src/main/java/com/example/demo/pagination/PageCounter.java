@@ -0,0 +1,71 @@
+package com.example.demo.pagination;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Total des listes paginées selon la {@link CountStrategy} demandée.
+ * <p>
+ * Le cache des totaux est indexé par la version de la ressource (la même sonde que l'ETag de
+ * {@link com.example.demo.service.JsonPageCache}) : toute écriture change la clé, le TTL ne fait que borner
+ * la mémoire. Un total partagé par toutes les pages et tous les tris d'un même filtre.
+ */
+@Component
+public class PageCounter {
+
+    private final Cache<String, Long> totaux;
+
+    public PageCounter(
+            MeterRegistry meterRegistry,
+            @Value("${http.count-cache.max-entries:10000}") long maxEntries,
+            @Value("${http.count-cache.ttl-ms:30000}") long ttlMs
+    ) {
+        this.totaux = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, totaux, "http.counts", Tags.of("cache.manager", "pageCounter", "name", "http.counts"));
+    }
+
+    /**
+     * @param cle      ressource, version et signature du filtre (sans la pagination ni le tri)
+     * @param exact    COUNT(*) du filtre
+     * @param estimate estimation du planificateur, null ou négative si indisponible (repli sur exact)
+     */
+    public <T> CountedPage<T> page(
+            List<T> content,
+            Pageable pageable,
+            CountStrategy strategy,
+            String cle,
+            LongSupplier exact,
+            LongSupplier estimate
+    ) {
+        // Dernière page atteinte : le total se déduit du contenu, sans requête (comme PageableExecutionUtils).
+        if (pageable.isUnpaged() || content.size() < pageable.getPageSize() && (!content.isEmpty() || pageable.getOffset() == 0)) {
+            long total = pageable.isUnpaged() ? content.size() : pageable.getOffset() + content.size();
+            return new CountedPage<>(content, pageable, total, CountStrategy.EXACT);
+        }
+
+        long estime = strategy == CountStrategy.ESTIMATED && estimate != null ? estimate.getAsLong() : -1;
+        if (estime >= 0) {
+            // Une estimation sous ce qui est déjà lu ferait disparaître la page courante.
+            long total = Math.max(estime, pageable.getOffset() + content.size());
+            return new CountedPage<>(content, pageable, total, CountStrategy.ESTIMATED);
+        }
+        if (strategy == CountStrategy.CACHED) {
+            return new CountedPage<>(content, pageable, totaux.get(cle, c -> exact.getAsLong()), CountStrategy.CACHED);
+        }
+        return new CountedPage<>(content, pageable, exact.getAsLong(), CountStrategy.EXACT);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.pagination;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Champs triables d'une ressource. Chacun a un index (champ, id) : une page triée se lit par un parcours d'index
+ * arrêté à la limite, dans un sens ou dans l'autre, au lieu d'un tri de toute la table. L'id départage toujours
+ * les égalités, si bien que l'ordre est stable d'une page à l'autre.
+ */
+public final class SortableFields {
+
+    // Index idx_chantiers_reference_id, idx_chantiers_date_intervention_id, idx_chantiers_created_at_id.
+    public static final SortableFields CHANTIERS = new SortableFields("id", "reference", "dateIntervention", "createdAt");
+    // Index idx_clients_nom_id.
+    public static final SortableFields CLIENTS = new SortableFields("id", "nom");
+    // Index idx_techniciens_nom_id.
+    public static final SortableFields TECHNICIENS = new SortableFields("id", "nom");
+
+    private final Set<String> fields;
+
+    private SortableFields(String... fields) {
+        this.fields = Set.of(fields);
+    }
+
+    /**
+     * @param sort paramètre {@code sort=champ[,asc|desc]}, découpé sur la virgule par Spring ; sans sens, DESC
+     * @throws IllegalArgumentException champ non déclaré ou sens inconnu
+     */
+    public Order parse(String[] sort) {
+        List<String> parts = sort == null ? List.of() : List.of(sort);
+        if (parts.isEmpty() || parts.size() > 2) {
+            throw new IllegalArgumentException("Tri attendu : champ[,asc|desc]");
+        }
+        String field = parts.get(0).trim();
+        if (!fields.contains(field)) {
+            throw new IllegalArgumentException("Tri non supporté : " + field);
+        }
+        Sort.Direction direction = parts.size() > 1
+                ? Sort.Direction.fromString(parts.get(1).trim().toLowerCase(Locale.ROOT))
+                : Sort.Direction.DESC;
+        return new Order(field, direction);
+    }
+
+    public record Order(String field, Sort.Direction direction) {
+
+        /**
+         * Tri (champ, id) dans le même sens, celui de l'index parcouru.
+         */
+        public Sort toSort() {
+            return KeysetSpecification.sort(field, direction);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ChantierEvenement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ChantierEvenementRepository extends JpaRepository<ChantierEvenement, Long> {
+
+    Page<ChantierEvenement> findByChantierId(Long chantierId, Pageable pageable);
+
+    List<ChantierEvenement> findByChantierIdAndVersionGreaterThanOrderByVersion(Long chantierId, Long version);
+}
@@ -1,42 +1,292 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.ChantierFilter;
+import com.example.demo.dto.ChantierSummary;
 import com.example.demo.entity.Chantier;
 import com.example.demo.entity.ChantierStatut;
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ChantierRepository extends JpaRepository<Chantier, Long> {
+public interface ChantierRepository extends JpaRepository<Chantier, Long>, JpaSpecificationExecutor<Chantier>,
+        ChantierSearchRepository {
+
+    // Caractère d'échappement des motifs LIKE de containsPattern.
+    char LIKE_ESCAPE = '\\';
+
+    @Query("""
+            SELECT new com.example.demo.dto.ChantierSummary(
+                c.id, c.reference, c.adresse, c.typeInstallation, c.dateIntervention, c.statut,
+                c.dateSignature, c.createdAt, c.updatedAt,
+                cl.id, cl.nom, t.id, t.nom, t.prenom,
+                c.verificationsTotal, c.verificationsFaites, c.version)
+            FROM Chantier c
+            JOIN c.client cl
+            JOIN c.technicien t
+            WHERE c.id IN :ids
+            """)
+    List<ChantierSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Synchronisation hors ligne : chantiers créés ou modifiés depuis {@code depuis} (index idx_chantiers_modifie_le).
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            SELECT new com.example.demo.dto.ChantierSummary(
+                c.id, c.reference, c.adresse, c.typeInstallation, c.dateIntervention, c.statut,
+                c.dateSignature, c.createdAt, c.updatedAt,
+                cl.id, cl.nom, t.id, t.nom, t.prenom,
+                c.verificationsTotal, c.verificationsFaites, c.version)
+            FROM Chantier c
+            JOIN c.client cl
+            JOIN c.technicien t
+            WHERE COALESCE(c.updatedAt, c.createdAt) >= :depuis
+            ORDER BY c.id
+            """)
+    Stream<ChantierSummary> streamSummariesModifiedSince(@Param("depuis") LocalDateTime depuis);
+
+    /**
+     * Fichier de signature encore référencé, par un chantier ou par une archive.
+     */
     @Query(value = """
-            SELECT c.*
+            SELECT EXISTS (SELECT 1 FROM chantiers WHERE signature_ref = :ref)
+                OR EXISTS (SELECT 1 FROM chantiers_archives WHERE signature_ref = :ref)
+            """, nativeQuery = true)
+    boolean existsBySignatureRef(@Param("ref") String signatureRef);
+
+    /**
+     * Plan de chargement de la vue détail : client et technicien joints dans la même requête.
+     */
+    @EntityGraph(attributePaths = {"client", "technicien"})
+    Optional<Chantier> findDetailById(Long id);
+
+    @Query(value = """
+            SELECT c.id
             FROM chantiers c
-            WHERE (CAST(:q AS text) IS NULL OR
-                   LOWER(c.reference) LIKE LOWER(CONCAT('%', CAST(:q AS text), '%')) OR
-                   LOWER(c.adresse) LIKE LOWER(CONCAT('%', CAST(:q AS text), '%')))
-              AND (CAST(:statut AS text) IS NULL OR c.statut = CAST(:statut AS text))
-              AND (CAST(:dateIntervention AS date) IS NULL OR c.date_intervention = CAST(:dateIntervention AS date))
-            ORDER BY c.id DESC
+            WHERE LOWER(c.reference) LIKE CONCAT('%', LOWER(:q), '%')
+               OR LOWER(c.adresse) LIKE CONCAT('%', LOWER(:q), '%')
+            ORDER BY GREATEST(similarity(LOWER(c.reference), LOWER(:q)), similarity(LOWER(c.adresse), LOWER(:q))) DESC,
+                     c.id DESC
             """,
             countQuery = """
             SELECT COUNT(*)
             FROM chantiers c
-            WHERE (CAST(:q AS text) IS NULL OR
-                   LOWER(c.reference) LIKE LOWER(CONCAT('%', CAST(:q AS text), '%')) OR
-                   LOWER(c.adresse) LIKE LOWER(CONCAT('%', CAST(:q AS text), '%')))
-              AND (CAST(:statut AS text) IS NULL OR c.statut = CAST(:statut AS text))
-              AND (CAST(:dateIntervention AS date) IS NULL OR c.date_intervention = CAST(:dateIntervention AS date))
+            WHERE LOWER(c.reference) LIKE CONCAT('%', LOWER(:q), '%')
+               OR LOWER(c.adresse) LIKE CONCAT('%', LOWER(:q), '%')
             """,
             nativeQuery = true)
-    Page<Chantier> search(
-            @Param("q") String q,
-            @Param("statut") ChantierStatut statut,
-            @Param("dateIntervention") LocalDate dateIntervention,
-            Pageable pageable
+    Page<Long> searchRankedIds(@Param("q") String q, Pageable pageable);
+
+    @Query("""
+            SELECT c.statut AS statut, c.dateIntervention AS dateIntervention, COUNT(c) AS total
+            FROM Chantier c
+            GROUP BY c.statut, c.dateIntervention
+            """)
+    List<StatutDateCount> countByStatutAndDateIntervention();
+
+    /**
+     * Affectations datées (hors chantiers refusés), lues en flux pour construire l'index du planning.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            SELECT c.id AS id, c.technicien.id AS technicienId, c.dateIntervention AS dateIntervention
+            FROM Chantier c
+            WHERE c.dateIntervention IS NOT NULL AND c.statut <> :exclu
+            """)
+    Stream<Affectation> streamAffectations(@Param("exclu") ChantierStatut exclu);
+
+    /**
+     * Chantiers qui occupent le technicien ce jour-là, pour le contrôle de conflit sous verrou
+     * (index idx_chantiers_technicien_date).
+     */
+    @Query("""
+            SELECT c.id FROM Chantier c
+            WHERE c.technicien.id = :technicienId AND c.dateIntervention = :date AND c.statut <> :exclu
+            """)
+    List<Long> findIdsByTechnicienAndDate(
+            @Param("technicienId") Long technicienId,
+            @Param("date") LocalDate date,
+            @Param("exclu") ChantierStatut exclu
     );
+
+    /**
+     * Verrou transactionnel PostgreSQL (clé à deux entiers : espace distinct des verrous à clé bigint), libéré au
+     * commit ou au rollback.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:espace, :cle)", nativeQuery = true)
+    Integer advisoryXactLock(@Param("espace") int espace, @Param("cle") int cle);
+
+    /**
+     * Version de la liste des chantiers, pour l'ETag faible : compteurs de versions_listes des chantiers et des
+     * clients/techniciens affichés dans les lignes, incrémentés par trigger et visibles au commit des écritures.
+     */
+    @Query(value = """
+            SELECT COALESCE(string_agg(ressource || '.' || total, '-' ORDER BY ressource), '0')
+            FROM (SELECT ressource, SUM(version) AS total FROM versions_listes
+                  WHERE ressource IN ('chantiers', 'clients', 'techniciens') GROUP BY ressource) v
+            """, nativeQuery = true)
+    String listVersion();
+
+    /**
+     * Chantiers géocodés à moins de {@code rayon} mètres, du plus proche au plus lointain. earth_box borne la
+     * recherche sur l'index idx_chantiers_position (cube englobant), earth_distance élimine les coins du cube.
+     */
+    @Query(value = """
+            SELECT c.id AS id, c.latitude AS latitude, c.longitude AS longitude,
+                   earth_distance(ll_to_earth(:lat, :lon), ll_to_earth(c.latitude, c.longitude)) AS distance
+            FROM chantiers c
+            WHERE c.latitude IS NOT NULL
+              AND earth_box(ll_to_earth(:lat, :lon), :rayon) @> ll_to_earth(c.latitude, c.longitude)
+              AND earth_distance(ll_to_earth(:lat, :lon), ll_to_earth(c.latitude, c.longitude)) <= :rayon
+            ORDER BY distance, c.id
+            LIMIT :limite
+            """, nativeQuery = true)
+    List<Proximite> findWithinRadius(
+            @Param("lat") double latitude,
+            @Param("lon") double longitude,
+            @Param("rayon") double rayon,
+            @Param("limite") int limite
+    );
+
+    /**
+     * Les {@code k} chantiers géocodés les plus proches (hors {@code exclu}) : parcours kNN de l'index GiST, qui
+     * s'arrête après k lignes quelle que soit la taille de la table. La distance cube (corde) est croissante avec
+     * la distance au sol, l'ordre est donc le même. Seules ces k lignes sont ensuite triées par (distance, id) :
+     * des chantiers à la même adresse sortent toujours dans le même ordre. Une seconde clé de tri dans le parcours
+     * lui-même ferait trier toute la table ; à égalité avec le k-ième, le choix des ex aequo retenus reste donc
+     * celui de l'index.
+     */
+    @Query(value = """
+            SELECT p.id AS id, p.latitude AS latitude, p.longitude AS longitude, p.distance AS distance
+            FROM (SELECT c.id, c.latitude, c.longitude,
+                         earth_distance(ll_to_earth(:lat, :lon), ll_to_earth(c.latitude, c.longitude)) AS distance
+                  FROM chantiers c
+                  WHERE c.latitude IS NOT NULL AND c.id <> :exclu
+                  ORDER BY ll_to_earth(c.latitude, c.longitude) <-> ll_to_earth(:lat, :lon)
+                  LIMIT :k) p
+            ORDER BY p.distance, p.id
+            """, nativeQuery = true)
+    List<Proximite> findNearest(
+            @Param("lat") double latitude,
+            @Param("lon") double longitude,
+            @Param("exclu") long exclu,
+            @Param("k") int k
+    );
+
+    /**
+     * Version de la liste des archives, pour l'ETag faible : compteurs des archives et des clients/techniciens
+     * affichés, comme {@link #listVersion()}.
+     */
+    @Query(value = """
+            SELECT COALESCE(string_agg(ressource || '.' || total, '-' ORDER BY ressource), '0')
+            FROM (SELECT ressource, SUM(version) AS total FROM versions_listes
+                  WHERE ressource IN ('chantiers_archives', 'clients', 'techniciens') GROUP BY ressource) v
+            """, nativeQuery = true)
+    String archiveVersion();
+
+    /**
+     * Filtres de {@link ChantierSearchRepository#search}, aussi utilisés pour les requêtes keyset (curseur).
+     * Seuls les critères renseignés produisent un prédicat ; technicien et client sont filtrés sur la clé
+     * étrangère, sans jointure.
+     */
+    static Specification<Chantier> searchSpecification(ChantierFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.q() != null) {
+                String pattern = containsPattern(filter.q());
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("reference")), pattern, LIKE_ESCAPE),
+                        cb.like(cb.lower(root.get("adresse")), pattern, LIKE_ESCAPE)
+                ));
+            }
+            if (filter.statuts() != null) {
+                predicates.add(in(cb, root.get("statut"), filter.statuts()));
+            }
+            if (filter.dateDebut() != null && filter.dateDebut().equals(filter.dateFin())) {
+                predicates.add(cb.equal(root.get("dateIntervention"), filter.dateDebut()));
+            } else {
+                if (filter.dateDebut() != null) {
+                    predicates.add(cb.greaterThanOrEqualTo(root.get("dateIntervention"), filter.dateDebut()));
+                }
+                if (filter.dateFin() != null) {
+                    predicates.add(cb.lessThanOrEqualTo(root.get("dateIntervention"), filter.dateFin()));
+                }
+            }
+            if (filter.technicienIds() != null) {
+                predicates.add(in(cb, root.get("technicien").get("id"), filter.technicienIds()));
+            }
+            if (filter.clientIds() != null) {
+                predicates.add(in(cb, root.get("client").get("id"), filter.clientIds()));
+            }
+            if (filter.typeInstallation() != null) {
+                predicates.add(cb.equal(root.get("typeInstallation"), filter.typeInstallation()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Motif LIKE « contient q », en minuscules : {@code %} et {@code _} saisis sont cherchés tels quels.
+     */
+    static String containsPattern(String q) {
+        String echappe = q.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + echappe + "%";
+    }
+
+    // Une seule valeur : égalité plutôt qu'un IN à un élément, plus lisible dans les plans et les logs.
+    private static <T> Predicate in(CriteriaBuilder cb, Expression<T> path, List<T> valeurs) {
+        return valeurs.size() == 1 ? cb.equal(path, valeurs.get(0)) : path.in(valeurs);
+    }
+
+    interface Affectation {
+        Long getId();
+
+        Long getTechnicienId();
+
+        LocalDate getDateIntervention();
+    }
+
+    interface Proximite {
+        Long getId();
+
+        Double getLatitude();
+
+        Double getLongitude();
+
+        // Mètres.
+        Double getDistance();
+    }
+
+    interface StatutDateCount {
+        ChantierStatut getStatut();
+
+        LocalDate getDateIntervention();
+
+        Long getTotal();
+    }
 }
\ No newline at end of file
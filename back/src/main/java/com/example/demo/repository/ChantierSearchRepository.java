@@ -0,0 +1,45 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ChantierFilter;
+import com.example.demo.dto.ChantierSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Recherche multicritère des chantiers, requêtes construites à partir de {@link ChantierRepository#searchSpecification}.
+ */
+public interface ChantierSearchRepository {
+
+    Page<ChantierSummary> search(ChantierFilter filter, Pageable pageable);
+
+    /**
+     * Contenu de la page seul : le total est calculé à part, selon la stratégie de comptage.
+     */
+    List<ChantierSummary> findSummaries(ChantierFilter filter, Pageable pageable);
+
+    long count(ChantierFilter filter);
+
+    /**
+     * Nombre de lignes estimé par le planificateur (EXPLAIN), sans parcourir la table.
+     */
+    long estimateCount(ChantierFilter filter);
+
+    /**
+     * Export : curseur JDBC en avant seulement, à consommer dans une transaction puis fermer.
+     */
+    Stream<ChantierSummary> streamSummaries(ChantierFilter filter);
+
+    /**
+     * Mêmes critères et tris que {@link #findSummaries}, sur la table chantiers_archives.
+     *
+     * @throws IllegalArgumentException tri hors de SortableFields.CHANTIERS
+     */
+    List<ChantierSummary> findArchivedSummaries(ChantierFilter filter, Pageable pageable);
+
+    long countArchived(ChantierFilter filter);
+
+    long estimateArchivedCount(ChantierFilter filter);
+}
@@ -0,0 +1,226 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ChantierFilter;
+import com.example.demo.dto.ChantierSummary;
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Le comptage reprend les mêmes prédicats sans les jointures client/technicien : les filtres portent sur les
+ * clés étrangères de chantiers, l'index composite suffit. Les archives, hors modèle JPA, sont lues en SQL.
+ */
+class ChantierSearchRepositoryImpl implements ChantierSearchRepository {
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    // Tris de SortableFields.CHANTIERS, en colonnes de la table des archives.
+    private static final Map<String, String> COLONNES_TRI = Map.of(
+            "id", "c.id",
+            "reference", "c.reference",
+            "dateIntervention", "c.date_intervention",
+            "createdAt", "c.created_at"
+    );
+
+    private final EntityManager entityManager;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    ChantierSearchRepositoryImpl(EntityManager entityManager, NamedParameterJdbcTemplate jdbcTemplate) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Page<ChantierSummary> search(ChantierFilter filter, Pageable pageable) {
+        return PageableExecutionUtils.getPage(findSummaries(filter, pageable), pageable, () -> count(filter));
+    }
+
+    @Override
+    public List<ChantierSummary> findSummaries(ChantierFilter filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ChantierSummary> query = cb.createQuery(ChantierSummary.class);
+        Root<Chantier> c = summary(cb, query, filter);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), c, cb));
+
+        TypedQuery<ChantierSummary> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        return typed.getResultList();
+    }
+
+    @Override
+    public Stream<ChantierSummary> streamSummaries(ChantierFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ChantierSummary> query = cb.createQuery(ChantierSummary.class);
+        Root<Chantier> c = summary(cb, query, filter);
+        query.orderBy(cb.asc(c.get("id")));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .getResultStream();
+    }
+
+    @Override
+    public long count(ChantierFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Chantier> c = query.from(Chantier.class);
+        query.select(cb.count(c))
+                .where(ChantierRepository.searchSpecification(filter).toPredicate(c, query, cb));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Mêmes critères que {@link ChantierRepository#searchSpecification}, en SQL : EXPLAIN ne s'applique qu'à du SQL
+     * et Hibernate n'expose pas celui qu'il génère. La première ligne du plan porte l'estimation.
+     */
+    @Override
+    public long estimateCount(ChantierFilter filter) {
+        Map<String, Object> parametres = new HashMap<>();
+        Query explain = entityManager.createNativeQuery("EXPLAIN SELECT 1 FROM chantiers c" + where(filter, parametres));
+        parametres.forEach(explain::setParameter);
+        return estimation(String.valueOf(explain.getResultList().get(0)));
+    }
+
+    @Override
+    public List<ChantierSummary> findArchivedSummaries(ChantierFilter filter, Pageable pageable) {
+        Map<String, Object> parametres = new HashMap<>();
+        StringBuilder sql = new StringBuilder("""
+                SELECT c.id, c.reference, c.adresse, c.type_installation, c.date_intervention, c.statut,
+                       c.date_signature, c.created_at, c.updated_at,
+                       c.client_id, cl.nom AS client_nom, c.technicien_id, t.nom AS technicien_nom,
+                       t.prenom AS technicien_prenom, c.verifications_total, c.verifications_faites, c.version
+                FROM chantiers_archives c
+                JOIN clients cl ON cl.id = c.client_id
+                JOIN techniciens t ON t.id = c.technicien_id""")
+                .append(where(filter, parametres));
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : pageable.getSort()) {
+            String colonne = COLONNES_TRI.get(order.getProperty());
+            if (colonne == null) {
+                throw new IllegalArgumentException("Tri non supporté : " + order.getProperty());
+            }
+            orders.add(colonne + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        if (!orders.isEmpty()) {
+            sql.append(" ORDER BY ").append(String.join(", ", orders));
+        }
+        if (pageable.isPaged()) {
+            sql.append(" LIMIT :limite OFFSET :decalage");
+            parametres.put("limite", pageable.getPageSize());
+            parametres.put("decalage", pageable.getOffset());
+        }
+        return jdbcTemplate.query(sql.toString(), parametres, (rs, i) -> new ChantierSummary(
+                rs.getLong("id"), rs.getString("reference"), rs.getString("adresse"),
+                rs.getString("type_installation"), rs.getObject("date_intervention", LocalDate.class),
+                ChantierStatut.valueOf(rs.getString("statut")),
+                rs.getObject("date_signature", LocalDateTime.class), rs.getObject("created_at", LocalDateTime.class),
+                rs.getObject("updated_at", LocalDateTime.class),
+                rs.getLong("client_id"), rs.getString("client_nom"), rs.getLong("technicien_id"),
+                rs.getString("technicien_nom"), rs.getString("technicien_prenom"),
+                rs.getInt("verifications_total"), rs.getInt("verifications_faites"),
+                rs.getObject("version", Long.class)));
+    }
+
+    @Override
+    public long countArchived(ChantierFilter filter) {
+        Map<String, Object> parametres = new HashMap<>();
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM chantiers_archives c" + where(filter, parametres), parametres, Long.class);
+        return total == null ? 0 : total;
+    }
+
+    @Override
+    public long estimateArchivedCount(ChantierFilter filter) {
+        Map<String, Object> parametres = new HashMap<>();
+        List<String> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT 1 FROM chantiers_archives c" + where(filter, parametres), parametres, String.class);
+        return estimation(plan.get(0));
+    }
+
+    /**
+     * Mêmes critères que {@link ChantierRepository#searchSpecification}, en SQL sur l'alias {@code c} : EXPLAIN ne
+     * s'applique qu'à du SQL et Hibernate n'expose pas celui qu'il génère ; la table des archives a les mêmes colonnes.
+     */
+    private static String where(ChantierFilter filter, Map<String, Object> parametres) {
+        List<String> where = new ArrayList<>();
+        if (filter.q() != null) {
+            where.add("(LOWER(c.reference) LIKE :q ESCAPE '\\' OR LOWER(c.adresse) LIKE :q ESCAPE '\\')");
+            parametres.put("q", ChantierRepository.containsPattern(filter.q()));
+        }
+        if (filter.statuts() != null) {
+            where.add("c.statut IN (:statuts)");
+            parametres.put("statuts", filter.statuts().stream().map(Enum::name).toList());
+        }
+        if (filter.dateDebut() != null) {
+            where.add("c.date_intervention >= :dateDebut");
+            parametres.put("dateDebut", filter.dateDebut());
+        }
+        if (filter.dateFin() != null) {
+            where.add("c.date_intervention <= :dateFin");
+            parametres.put("dateFin", filter.dateFin());
+        }
+        if (filter.technicienIds() != null) {
+            where.add("c.technicien_id IN (:technicienIds)");
+            parametres.put("technicienIds", filter.technicienIds());
+        }
+        if (filter.clientIds() != null) {
+            where.add("c.client_id IN (:clientIds)");
+            parametres.put("clientIds", filter.clientIds());
+        }
+        if (filter.typeInstallation() != null) {
+            where.add("c.type_installation = :typeInstallation");
+            parametres.put("typeInstallation", filter.typeInstallation());
+        }
+        return where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where);
+    }
+
+    // La première ligne du plan porte l'estimation.
+    private static long estimation(String plan) {
+        Matcher rows = PLAN_ROWS.matcher(plan);
+        if (!rows.find()) {
+            throw new IllegalStateException("Plan sans estimation : " + plan);
+        }
+        return Long.parseLong(rows.group(1));
+    }
+
+    private static Root<Chantier> summary(CriteriaBuilder cb, CriteriaQuery<ChantierSummary> query, ChantierFilter filter) {
+        Root<Chantier> c = query.from(Chantier.class);
+        Join<Chantier, Client> cl = c.join("client");
+        Join<Chantier, Technicien> t = c.join("technicien");
+        query.select(cb.construct(ChantierSummary.class,
+                        c.get("id"), c.get("reference"), c.get("adresse"), c.get("typeInstallation"),
+                        c.get("dateIntervention"), c.get("statut"),
+                        c.get("dateSignature"), c.get("createdAt"), c.get("updatedAt"),
+                        cl.get("id"), cl.get("nom"), t.get("id"), t.get("nom"), t.get("prenom"),
+                        c.get("verificationsTotal"), c.get("verificationsFaites"), c.get("version")))
+                .where(ChantierRepository.searchSpecification(filter).toPredicate(c, query, cb));
+        return c;
+    }
+}
@@ -1,12 +1,52 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Client;
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface ClientRepository extends JpaRepository<Client, Long> {
-    Page<Client> findByNomContainingIgnoreCase(String nom, Pageable pageable);
+public interface ClientRepository extends JpaRepository<Client, Long>, JpaSpecificationExecutor<Client> {
+    /**
+     * Compteur de versions_listes, incrémenté par trigger à chaque écriture et visible à son commit.
+     */
+    @Query(value = "SELECT CAST(COALESCE(SUM(version), 0) AS text) FROM versions_listes WHERE ressource = 'clients'",
+            nativeQuery = true)
+    String listVersion();
+
+    List<Client> findAllBy(Pageable pageable);
+
+    List<Client> findByNomContainingIgnoreCase(String nom, Pageable pageable);
+
+    long countByNomContainingIgnoreCase(String nom);
+
+    /**
+     * Nombre de lignes d'après les statistiques de PostgreSQL (ANALYZE / autovacuum), -1 si jamais analysée.
+     */
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('clients' AS regclass)", nativeQuery = true)
+    long estimateCount();
+
+    static Specification<Client> nomContains(String q) {
+        return (root, query, cb) -> q == null || q.isBlank()
+                ? cb.conjunction()
+                : cb.like(cb.lower(root.get("nom")), "%" + q.toLowerCase() + "%");
+    }
+
+    /**
+     * Synchronisation hors ligne : curseur JDBC à consommer dans une transaction puis fermer.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c FROM Client c WHERE c.updatedAt >= :depuis ORDER BY c.id")
+    Stream<Client> streamModifiedSince(@Param("depuis") LocalDateTime depuis);
 }
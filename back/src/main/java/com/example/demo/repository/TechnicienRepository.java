@@ -1,17 +1,69 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Technicien;
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface TechnicienRepository extends JpaRepository<Technicien, Long> {
-    Page<Technicien> findByNomContainingIgnoreCaseOrPrenomContainingIgnoreCaseOrEmailContainingIgnoreCase(
+public interface TechnicienRepository extends JpaRepository<Technicien, Long>, JpaSpecificationExecutor<Technicien> {
+    /**
+     * Compteur de versions_listes, incrémenté par trigger à chaque écriture et visible à son commit.
+     */
+    @Query(value = "SELECT CAST(COALESCE(SUM(version), 0) AS text) FROM versions_listes WHERE ressource = 'techniciens'",
+            nativeQuery = true)
+    String listVersion();
+
+    List<Technicien> findAllBy(Pageable pageable);
+
+    List<Technicien> findByNomContainingIgnoreCaseOrPrenomContainingIgnoreCaseOrEmailContainingIgnoreCase(
             String nom,
             String prenom,
             String email,
             Pageable pageable
     );
+
+    long countByNomContainingIgnoreCaseOrPrenomContainingIgnoreCaseOrEmailContainingIgnoreCase(
+            String nom,
+            String prenom,
+            String email
+    );
+
+    /**
+     * Nombre de lignes d'après les statistiques de PostgreSQL (ANALYZE / autovacuum), -1 si jamais analysée.
+     */
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('techniciens' AS regclass)", nativeQuery = true)
+    long estimateCount();
+
+    static Specification<Technicien> nomPrenomOrEmailContains(String q) {
+        return (root, query, cb) -> {
+            if (q == null || q.isBlank()) {
+                return cb.conjunction();
+            }
+            String pattern = "%" + q.toLowerCase() + "%";
+            return cb.or(
+                    cb.like(cb.lower(root.get("nom")), pattern),
+                    cb.like(cb.lower(root.get("prenom")), pattern),
+                    cb.like(cb.lower(root.get("email")), pattern)
+            );
+        };
+    }
+
+    /**
+     * Synchronisation hors ligne : curseur JDBC à consommer dans une transaction puis fermer.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t FROM Technicien t WHERE t.updatedAt >= :depuis ORDER BY t.id")
+    Stream<Technicien> streamModifiedSince(@Param("depuis") LocalDateTime depuis);
 }
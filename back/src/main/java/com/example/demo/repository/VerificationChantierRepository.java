@@ -1,12 +1,27 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.VerificationChantier;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
 
 @Repository
 public interface VerificationChantierRepository extends JpaRepository<VerificationChantier, Long> {
-    List<VerificationChantier> findByChantierId(Long chantierId);
+    Page<VerificationChantier> findByChantierId(Long chantierId, Pageable pageable);
+
+    /**
+     * Synchronisation hors ligne : curseur JDBC à consommer dans une transaction puis fermer.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT v FROM VerificationChantier v WHERE v.updatedAt >= :depuis ORDER BY v.id")
+    Stream<VerificationChantier> streamModifiedSince(@Param("depuis") LocalDateTime depuis);
 }
@@ -0,0 +1,150 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ChantierEvenementType;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.service.ChantierEventBus.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Sortie des chantiers clos (terminés, validés, refusés) non modifiés depuis chantiers.archive.after-months vers la
+ * table chantiers_archives, pour que la liste, la recherche et les comptages ne portent que sur les chantiers vivants.
+ * Chaque lot est une transaction courte : les lignes déjà verrouillées par une écriture sont sautées
+ * (SKIP LOCKED) et reprises au passage suivant, sans jamais bloquer l'application.
+ * Les suppressions en base alimentent la synchronisation hors ligne : un chantier archivé sort aussi des appareils.
+ */
+@Service
+public class ChantierArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChantierArchiveService.class);
+
+    private static final String[] CLOS = {
+            ChantierStatut.TERMINE.name(), ChantierStatut.VALIDE.name(), ChantierStatut.REFUSE.name()
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DashboardStatsService dashboardStatsService;
+    private final PlanningService planningService;
+    private final JsonPageCache jsonPageCache;
+    private final ChantierEventBus chantierEventBus;
+    private final int apresMois;
+    private final int batchSize;
+
+    public ChantierArchiveService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            DashboardStatsService dashboardStatsService,
+            PlanningService planningService,
+            JsonPageCache jsonPageCache,
+            ChantierEventBus chantierEventBus,
+            @Value("${chantiers.archive.after-months:12}") int apresMois,
+            @Value("${chantiers.archive.batch-size:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dashboardStatsService = dashboardStatsService;
+        this.planningService = planningService;
+        this.jsonPageCache = jsonPageCache;
+        this.chantierEventBus = chantierEventBus;
+        this.apresMois = apresMois;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${chantiers.archive.cron:0 0 4 * * *}")
+    public void archiverPeriodiquement() {
+        archiver(LocalDateTime.now().minusMonths(apresMois));
+    }
+
+    /**
+     * Archive par lots les chantiers clos dont la dernière modification est antérieure à {@code avant}.
+     *
+     * @return nombre de chantiers archivés
+     */
+    public int archiver(LocalDateTime avant) {
+        int total = 0;
+        while (true) {
+            List<Archive> lot = transactionTemplate.execute(status -> archiverLot(avant));
+            // Lot validé : les vues en mémoire peuvent l'oublier.
+            for (Archive archive : lot) {
+                planningService.chantierDeleted(archive.id());
+                chantierEventBus.publish(new Notification(ChantierEvenementType.SUPPRESSION, archive.id(),
+                        archive.technicienId(), archive.statut(), null, null, null));
+            }
+            total += lot.size();
+            if (lot.size() < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            dashboardStatsService.reconcile();
+            jsonPageCache.invalidate(JsonPageCache.CHANTIERS, JsonPageCache.ARCHIVES);
+            log.info("{} chantier(s) clos avant {} archivé(s)", total, avant);
+        }
+        return total;
+    }
+
+    // Lecture sur idx_chantiers_modifie_le. La copie embarque la check-list dans donnees avant la suppression des
+    // vérifications puis des chantiers.
+    private List<Archive> archiverLot(LocalDateTime avant) {
+        List<Archive> lot = jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("""
+                    SELECT id, technicien_id, statut FROM chantiers
+                    WHERE COALESCE(updated_at, created_at) < ? AND statut = ANY(?)
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                    """);
+            ps.setTimestamp(1, Timestamp.valueOf(avant));
+            ps.setArray(2, con.createArrayOf("varchar", CLOS));
+            ps.setInt(3, batchSize);
+            return ps;
+        }, (rs, i) -> new Archive(rs.getLong("id"), rs.getLong("technicien_id"),
+                ChantierStatut.valueOf(rs.getString("statut"))));
+        if (lot.isEmpty()) {
+            return lot;
+        }
+
+        Long[] ids = lot.stream().map(Archive::id).toArray(Long[]::new);
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    INSERT INTO chantiers_archives (id, reference, adresse, type_installation, date_intervention, statut,
+                        date_signature, created_at, updated_at, client_id, technicien_id,
+                        verifications_total, verifications_faites, version, signature_ref, archive_le, donnees)
+                    SELECT c.id, c.reference, c.adresse, c.type_installation, c.date_intervention, c.statut,
+                           c.date_signature, c.created_at, c.updated_at, c.client_id, c.technicien_id,
+                           c.verifications_total, c.verifications_faites, c.version, c.signature_ref, LOCALTIMESTAMP,
+                           to_jsonb(c) || jsonb_build_object('verifications', COALESCE(
+                               (SELECT jsonb_agg(to_jsonb(v) ORDER BY v.id)
+                                FROM verification_chantier v WHERE v.chantier_id = c.id), '[]'::jsonb))
+                    FROM chantiers c
+                    WHERE c.id = ANY(?)
+                    """);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        });
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("DELETE FROM verification_chantier WHERE chantier_id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        });
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("DELETE FROM chantiers WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        });
+        return lot;
+    }
+
+    private record Archive(long id, long technicienId, ChantierStatut statut) {
+    }
+}
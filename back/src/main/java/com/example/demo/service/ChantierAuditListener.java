@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierEvenementType;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.service.ChantierAuditLog.ChantierEvent;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Capte les modifications de chantiers depuis le cycle de vie JPA.
+ * L'état au chargement est conservé sur l'entité pour calculer le diff au moment du @PreUpdate ;
+ * les événements ne partent dans le journal qu'après le commit.
+ */
+@Component
+public class ChantierAuditListener {
+
+    public static final String AUTEUR_HEADER = "X-Utilisateur";
+
+    // Résolu à l'usage : le journal dépend (via les métriques) de l'EntityManagerFactory qui crée ce listener.
+    private final ObjectProvider<ChantierAuditLog> auditLog;
+
+    public ChantierAuditListener(ObjectProvider<ChantierAuditLog> auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    @PostLoad
+    void onLoad(Chantier chantier) {
+        chantier.setEtatAudit(etat(chantier));
+    }
+
+    @PostPersist
+    void onPersist(Chantier chantier) {
+        Map<String, Object> etat = etat(chantier);
+        chantier.setEtatAudit(etat);
+        publish(chantier, ChantierEvenementType.CREATION, null, diff(Map.of(), etat), chantier.getVersion());
+    }
+
+    @PreUpdate
+    void onUpdate(Chantier chantier) {
+        Map<String, Object> avant = chantier.getEtatAudit() == null ? Map.of() : chantier.getEtatAudit();
+        Map<String, Object> apres = etat(chantier);
+        Map<String, List<Object>> changements = diff(avant, apres);
+        if (changements.isEmpty()) {
+            return;
+        }
+        chantier.setEtatAudit(apres);
+        ChantierStatut ancienStatut = (ChantierStatut) avant.get("statut");
+        ChantierEvenementType type = changements.containsKey("statut")
+                ? ChantierEvenementType.CHANGEMENT_STATUT
+                : ChantierEvenementType.MODIFICATION;
+        // Hibernate n'incrémente la version qu'après ce callback.
+        publish(chantier, type, ancienStatut, changements, chantier.getVersion() == null ? null : chantier.getVersion() + 1);
+    }
+
+    @PostRemove
+    void onRemove(Chantier chantier) {
+        publish(chantier, ChantierEvenementType.SUPPRESSION, chantier.getStatut(), null, chantier.getVersion());
+    }
+
+    private void publish(
+            Chantier chantier,
+            ChantierEvenementType type,
+            ChantierStatut statutAvant,
+            Map<String, List<Object>> changements,
+            Long version
+    ) {
+        ChantierStatut statutApres = type == ChantierEvenementType.SUPPRESSION ? null : chantier.getStatut();
+        ChantierEvent event = new ChantierEvent(
+                chantier.getId(), type, statutAvant, statutApres, changements, auteur(), version, LocalDateTime.now());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    auditLog.getObject().record(event);
+                }
+            });
+        } else {
+            auditLog.getObject().record(event);
+        }
+    }
+
+    private static Map<String, Object> etat(Chantier chantier) {
+        Map<String, Object> etat = new LinkedHashMap<>();
+        etat.put("reference", chantier.getReference());
+        etat.put("adresse", chantier.getAdresse());
+        etat.put("typeInstallation", chantier.getTypeInstallation());
+        etat.put("dateIntervention", chantier.getDateIntervention());
+        etat.put("statut", chantier.getStatut());
+        etat.put("dateSignature", chantier.getDateSignature());
+        etat.put("signatureSha256", chantier.getSignatureSha256());
+        // getId() sur un proxy Hibernate ne déclenche pas de chargement.
+        etat.put("clientId", chantier.getClient() == null ? null : chantier.getClient().getId());
+        etat.put("technicienId", chantier.getTechnicien() == null ? null : chantier.getTechnicien().getId());
+        return etat;
+    }
+
+    private static Map<String, List<Object>> diff(Map<String, Object> avant, Map<String, Object> apres) {
+        Map<String, List<Object>> changements = new LinkedHashMap<>();
+        apres.forEach((champ, valeur) -> {
+            Object ancienne = avant.get(champ);
+            if (!Objects.equals(ancienne, valeur)) {
+                changements.put(champ, Arrays.asList(ancienne, valeur));
+            }
+        });
+        return changements;
+    }
+
+    private static String auteur() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            var request = attributes.getRequest();
+            return request.getRemoteUser() != null ? request.getRemoteUser() : request.getHeader(AUTEUR_HEADER);
+        }
+        return null;
+    }
+}
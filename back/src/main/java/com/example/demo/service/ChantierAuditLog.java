@@ -0,0 +1,198 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ChantierEvenementType;
+import com.example.demo.entity.ChantierStatut;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Journal des modifications de chantiers écrit en différé : les événements attendent dans une file sans verrou
+ * et un thread dédié les insère par lots (INSERT multi-lignes grâce à reWriteBatchedInserts).
+ * File pleine : le producteur écrit lui-même un lot, ce qui ralentit les écritures au lieu de perdre des événements.
+ * Si la base reste indisponible, la file ne dépasse pas chantiers.audit.queue-capacity : les événements en trop
+ * sont perdus, comptés (chantiers.audit.dropped) et signalés dans les logs.
+ */
+@Service
+public class ChantierAuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(ChantierAuditLog.class);
+
+    private static final String INSERT = """
+            INSERT INTO chantier_evenements
+                (chantier_id, type, statut_avant, statut_apres, changements, auteur, version, created_at)
+            VALUES (?, ?, ?, ?, CAST(? AS jsonb), ?, ?, ?)
+            """;
+
+    private final ConcurrentLinkedQueue<ChantierEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object writeLock = new Object();
+    // Lot en cours d'écriture, conservé après un échec pour être réécrit avant tout le reste de la file.
+    private final List<ChantierEvent> batch;
+    private final AtomicLong droppedSinceLog = new AtomicLong();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Counter written;
+    private final Counter backpressure;
+    private final Counter dropped;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public ChantierAuditLog(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${chantiers.audit.queue-capacity:10000}") int capacity,
+            @Value("${chantiers.audit.batch-size:500}") int batchSize,
+            @Value("${chantiers.audit.flush-interval-ms:200}") long flushIntervalMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.batch = new ArrayList<>(batchSize);
+        this.written = meterRegistry.counter("chantiers.audit.written");
+        this.backpressure = meterRegistry.counter("chantiers.audit.backpressure");
+        this.dropped = meterRegistry.counter("chantiers.audit.dropped");
+        Gauge.builder("chantiers.audit.queue", size, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = Thread.ofPlatform().daemon().name("chantier-audit-writer").start(() -> {
+            while (running) {
+                LockSupport.parkNanos(flushIntervalNanos);
+                flush();
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        flush();
+    }
+
+    public void record(ChantierEvent event) {
+        if (!reserve()) {
+            backpressure.increment();
+            flush();
+            if (!reserve()) {
+                // Base indisponible et file pleine : l'événement est perdu plutôt que de faire grossir la file.
+                dropped.increment();
+                if (droppedSinceLog.getAndIncrement() == 0) {
+                    log.error("File du journal des chantiers pleine ({} événements) : événements perdus", capacity);
+                }
+                return;
+            }
+        }
+        queue.offer(event);
+        if (size.get() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // Place comptée jusqu'à l'écriture effective de l'événement, lot en échec compris.
+    private boolean reserve() {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Écrit tout ce qui est en file. Appelé par le thread d'écriture, par un producteur bloqué
+     * sur une file pleine, et avant la lecture de l'historique.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            ChantierEvent event;
+            while (true) {
+                while (batch.size() < batchSize && (event = queue.poll()) != null) {
+                    batch.add(event);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                try {
+                    write(batch);
+                } catch (Throwable e) {
+                    // Le lot reste en tête et sera réécrit tel quel au prochain cycle, avant les événements suivants.
+                    log.error("Écriture du journal des chantiers impossible, {} événement(s) en attente", size.get(), e);
+                    return;
+                }
+                size.addAndGet(-batch.size());
+                written.increment(batch.size());
+                batch.clear();
+            }
+            long perdus = droppedSinceLog.getAndSet(0);
+            if (perdus > 0) {
+                log.error("{} événement(s) du journal des chantiers perdu(s) pendant l'indisponibilité de la base", perdus);
+            }
+        }
+    }
+
+    private void write(List<ChantierEvent> batch) {
+        jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (ps, e) -> {
+            ps.setLong(1, e.chantierId());
+            ps.setString(2, e.type().name());
+            ps.setString(3, e.statutAvant() == null ? null : e.statutAvant().name());
+            ps.setString(4, e.statutApres() == null ? null : e.statutApres().name());
+            ps.setString(5, toJson(e.changements()));
+            ps.setString(6, e.auteur());
+            ps.setObject(7, e.version(), Types.BIGINT);
+            ps.setTimestamp(8, Timestamp.valueOf(e.createdAt()));
+        });
+    }
+
+    private String toJson(Map<String, List<Object>> changements) {
+        try {
+            return changements == null ? null : objectMapper.writeValueAsString(changements);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record ChantierEvent(
+            Long chantierId,
+            ChantierEvenementType type,
+            ChantierStatut statutAvant,
+            ChantierStatut statutApres,
+            Map<String, List<Object>> changements,
+            String auteur,
+            Long version,
+            LocalDateTime createdAt
+    ) {
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ChantierSummary;
+import com.example.demo.entity.ChantierEvenementType;
+import com.example.demo.entity.ChantierStatut;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Diffusion en mémoire des modifications de chantiers aux abonnés SSE (tableaux de bord).
+ * <p>
+ * Un abonné au repos ne coûte aucun thread : la réponse est asynchrone et seul son tampon reste en mémoire.
+ * La publication sérialise la notification une fois et la dépose dans le tampon de chaque abonné concerné ;
+ * un thread virtuel l'envoie ensuite, si bien qu'un client lent ne bloque ni l'écriture ni les autres abonnés.
+ * Le tampon garde une notification par chantier (la plus récente) ; plein, il est vidé et remplacé par un
+ * événement {@code resync} qui demande au client de relire la liste.
+ */
+@Service
+public class ChantierEventBus {
+
+    public static final String EVENT_CHANTIER = "chantier";
+    public static final String EVENT_RESYNC = "resync";
+
+    private static final Logger log = LoggerFactory.getLogger(ChantierEventBus.class);
+
+    private final Set<Abonne> abonnes = ConcurrentHashMap.newKeySet();
+    private final ExecutorService envois = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("chantier-stream-", 0).factory());
+
+    private final ObjectMapper objectMapper;
+    private final int maxAbonnes;
+    private final int capaciteTampon;
+    private final long timeoutMs;
+    private final Counter publiees;
+    private final Counter debordements;
+
+    public ChantierEventBus(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${chantiers.stream.max-subscribers:10000}") int maxAbonnes,
+            @Value("${chantiers.stream.buffer-size:256}") int capaciteTampon,
+            @Value("${chantiers.stream.timeout-ms:1800000}") long timeoutMs
+    ) {
+        this.objectMapper = objectMapper;
+        this.maxAbonnes = maxAbonnes;
+        this.capaciteTampon = capaciteTampon;
+        this.timeoutMs = timeoutMs;
+        this.publiees = meterRegistry.counter("chantiers.stream.published");
+        this.debordements = meterRegistry.counter("chantiers.stream.overflows");
+        Gauge.builder("chantiers.stream.subscribers", abonnes, Set::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        envois.shutdownNow();
+        abonnes.forEach(abonne -> abonne.emitter.complete());
+    }
+
+    /**
+     * @param technicienId seulement les chantiers de ce technicien (avant ou après la modification), null pour tous
+     * @param statut       seulement les chantiers dans ce statut (avant ou après la modification), null pour tous
+     * @return null si le nombre maximal d'abonnés est atteint
+     */
+    public SseEmitter subscribe(Long technicienId, ChantierStatut statut) {
+        if (abonnes.size() >= maxAbonnes) {
+            return null;
+        }
+
+        // Au-delà du timeout, EventSource se reconnecte de lui-même.
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Abonne abonne = new Abonne(emitter, technicienId, statut);
+        emitter.onCompletion(() -> abonnes.remove(abonne));
+        emitter.onTimeout(() -> abonnes.remove(abonne));
+        emitter.onError(e -> abonnes.remove(abonne));
+        abonnes.add(abonne);
+        return emitter;
+    }
+
+    /**
+     * Appelée après le commit de l'écriture ; ne bloque pas.
+     */
+    public void publish(Notification notification) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(notification);
+        } catch (JsonProcessingException e) {
+            log.warn("Notification du chantier {} non diffusée", notification.id(), e);
+            return;
+        }
+        publiees.increment();
+        for (Abonne abonne : abonnes) {
+            if (abonne.interesse(notification)) {
+                abonne.offer(notification.id(), json);
+            }
+        }
+    }
+
+    /**
+     * Commentaire SSE périodique : garde la connexion ouverte à travers les proxys et détecte les clients partis.
+     */
+    @Scheduled(
+            fixedDelayString = "${chantiers.stream.heartbeat-ms:25000}",
+            initialDelayString = "${chantiers.stream.heartbeat-ms:25000}"
+    )
+    public void heartbeat() {
+        abonnes.forEach(Abonne::ping);
+    }
+
+    private final class Abonne {
+
+        private final SseEmitter emitter;
+        private final Long technicienId;
+        private final ChantierStatut statut;
+
+        // Gardés par this.
+        private final LinkedHashMap<Long, String> enAttente = new LinkedHashMap<>();
+        private boolean resync;
+        private boolean ping;
+        private boolean envoiPlanifie;
+
+        Abonne(SseEmitter emitter, Long technicienId, ChantierStatut statut) {
+            this.emitter = emitter;
+            this.technicienId = technicienId;
+            this.statut = statut;
+        }
+
+        boolean interesse(Notification notification) {
+            return (technicienId == null
+                    || technicienId.equals(notification.technicienId())
+                    || technicienId.equals(notification.technicienAvant()))
+                    && (statut == null
+                    || statut == notification.statut()
+                    || statut == notification.statutAvant());
+        }
+
+        void offer(long chantierId, String json) {
+            synchronized (this) {
+                if (resync) {
+                    return;
+                }
+                // Coalescence : seule la dernière notification d'un chantier compte.
+                if (enAttente.remove(chantierId) == null && enAttente.size() >= capaciteTampon) {
+                    enAttente.clear();
+                    resync = true;
+                    debordements.increment();
+                } else {
+                    enAttente.put(chantierId, json);
+                }
+            }
+            planifier();
+        }
+
+        void ping() {
+            synchronized (this) {
+                ping = true;
+            }
+            planifier();
+        }
+
+        private void planifier() {
+            synchronized (this) {
+                if (envoiPlanifie) {
+                    return;
+                }
+                envoiPlanifie = true;
+            }
+            try {
+                envois.execute(this::envoyer);
+            } catch (RejectedExecutionException e) {
+                // Arrêt en cours.
+            }
+        }
+
+        private void envoyer() {
+            while (true) {
+                List<String> lot;
+                boolean envoyerResync;
+                boolean envoyerPing;
+                synchronized (this) {
+                    if (enAttente.isEmpty() && !resync && !ping) {
+                        envoiPlanifie = false;
+                        return;
+                    }
+                    lot = new ArrayList<>(enAttente.values());
+                    enAttente.clear();
+                    envoyerResync = resync;
+                    envoyerPing = ping;
+                    resync = false;
+                    ping = false;
+                }
+
+                try {
+                    if (envoyerResync) {
+                        emitter.send(SseEmitter.event().name(EVENT_RESYNC).data("{}", MediaType.APPLICATION_JSON));
+                    }
+                    for (String json : lot) {
+                        emitter.send(SseEmitter.event().name(EVENT_CHANTIER).data(json, MediaType.APPLICATION_JSON));
+                    }
+                    if (envoyerPing && lot.isEmpty() && !envoyerResync) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client parti : onError / onCompletion retirent l'abonné.
+                    abonnes.remove(this);
+                    emitter.completeWithError(e);
+                    synchronized (this) {
+                        enAttente.clear();
+                        envoiPlanifie = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param type            CREATION, MODIFICATION, CHANGEMENT_STATUT ou SUPPRESSION
+     * @param chantier        état après l'écriture, absent pour une suppression
+     * @param statutAvant     statut avant l'écriture, pour qu'un abonné filtré voie un chantier sortir de son filtre
+     * @param technicienAvant technicien avant l'écriture
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Notification(
+            ChantierEvenementType type,
+            long id,
+            Long technicienId,
+            ChantierStatut statut,
+            ChantierStatut statutAvant,
+            Long technicienAvant,
+            ChantierSummary chantier
+    ) {
+
+        public static Notification of(ChantierEvenementType type, ChantierSummary chantier,
+                                      ChantierStatut statutAvant, Long technicienAvant) {
+            return new Notification(type, chantier.id(), chantier.technicienId(), chantier.statut(),
+                    Objects.equals(statutAvant, chantier.statut()) ? null : statutAvant,
+                    Objects.equals(technicienAvant, chantier.technicienId()) ? null : technicienAvant,
+                    chantier);
+        }
+    }
+}
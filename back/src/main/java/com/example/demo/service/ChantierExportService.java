@@ -0,0 +1,123 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ChantierFilter;
+import com.example.demo.dto.ChantierSummary;
+import com.example.demo.repository.ChantierRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Export des chantiers écrit ligne à ligne depuis un curseur JDBC : la mémoire ne dépend pas du volume.
+ */
+@Service
+public class ChantierExportService {
+
+    private static final String CSV_HEADER = "id,reference,adresse,typeInstallation,dateIntervention,statut,"
+            + "dateSignature,createdAt,updatedAt,clientId,clientNom,technicienId,technicienNom,technicienPrenom";
+
+    private final ChantierRepository chantierRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter jsonWriter;
+
+    public ChantierExportService(
+            ChantierRepository chantierRepository,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper
+    ) {
+        this.chantierRepository = chantierRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jsonWriter = objectMapper.writerFor(ChantierSummary.class);
+    }
+
+    public void export(
+            ExportFormat format,
+            ChantierFilter filter,
+            OutputStream out
+    ) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try {
+            // Le curseur PostgreSQL n'est utilisé qu'avec l'autocommit désactivé, d'où la transaction.
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (var rows = chantierRepository.streamSummaries(filter)) {
+                    rows.forEach(row -> write(format, row, writer));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void write(ExportFormat format, ChantierSummary row, Writer writer) {
+        try {
+            if (format == ExportFormat.CSV) {
+                writeCsv(row, writer);
+            } else {
+                writer.write(jsonWriter.writeValueAsString(row));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsv(ChantierSummary row, Writer writer) throws IOException {
+        Object[] values = {
+                row.id(), row.reference(), row.adresse(), row.typeInstallation(), row.dateIntervention(), row.statut(),
+                row.dateSignature(), row.createdAt(), row.updatedAt(),
+                row.clientId(), row.clientNom(), row.technicienId(), row.technicienNom(), row.technicienPrenom()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(csvEscape(values[i].toString()));
+            }
+        }
+    }
+
+    static String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public enum ExportFormat {
+        CSV("text/csv"),
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        ExportFormat(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ChantierRequest;
+import com.example.demo.dto.ChantierSummary;
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierEvenementType;
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.repository.ChantierRepository;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.TechnicienRepository;
+import com.example.demo.service.ChantierEventBus.Notification;
+import com.example.demo.service.PlanningService.Conflit;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Import en masse de chantiers (tableau JSON ou CSV) lu en flux et validé par lots.
+ * Chaque lot résout ses clients/techniciens en une requête IN et est inséré dans sa propre transaction,
+ * ce qui permet à Hibernate de regrouper les INSERT (ids issus d'une séquence poolée).
+ * Comme une création par l'API, chaque ligne passe le contrôle de conflit du planning (y compris contre les
+ * lignes précédentes du lot) et chaque chantier inséré est diffusé aux abonnés SSE.
+ */
+@Service
+public class ChantierImportService {
+
+    private final ChantierRepository chantierRepository;
+    private final ClientRepository clientRepository;
+    private final TechnicienRepository technicienRepository;
+    private final DashboardStatsService dashboardStatsService;
+    private final PlanningService planningService;
+    private final JsonPageCache jsonPageCache;
+    private final GeocodingService geocodingService;
+    private final ChantierEventBus chantierEventBus;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public ChantierImportService(
+            ChantierRepository chantierRepository,
+            ClientRepository clientRepository,
+            TechnicienRepository technicienRepository,
+            DashboardStatsService dashboardStatsService,
+            PlanningService planningService,
+            JsonPageCache jsonPageCache,
+            GeocodingService geocodingService,
+            ChantierEventBus chantierEventBus,
+            TransactionTemplate transactionTemplate,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            @Value("${chantiers.import.chunk-size:500}") int chunkSize
+    ) {
+        this.chantierRepository = chantierRepository;
+        this.clientRepository = clientRepository;
+        this.technicienRepository = technicienRepository;
+        this.dashboardStatsService = dashboardStatsService;
+        this.planningService = planningService;
+        this.jsonPageCache = jsonPageCache;
+        this.geocodingService = geocodingService;
+        this.chantierEventBus = chantierEventBus;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Un élément du tableau qui n'est pas un objet est signalé comme ligne illisible, sans arrêter l'import.
+     * Une erreur de syntaxe arrête la lecture : elle est signalée dans le rapport.
+     *
+     * @throws IllegalArgumentException si le corps n'est pas un tableau JSON
+     */
+    public ImportReport importJson(InputStream body) throws IOException {
+        Import run = new Import();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Un tableau JSON est attendu");
+            }
+            int lues = 0;
+            try {
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new JsonParseException(parser, "Tableau JSON non terminé");
+                    }
+                    int ligne = lues + 1;
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        lues = ligne;
+                        run.reject(ligne, null, "Ligne illisible : objet JSON attendu");
+                        continue;
+                    }
+                    JsonNode node = parser.readValueAsTree();
+                    lues = ligne;
+                    try {
+                        run.add(ligne, objectMapper.treeToValue(node, ChantierRequest.class));
+                    } catch (IOException | IllegalArgumentException e) {
+                        run.reject(ligne, node.path("reference").asText(null), "Ligne illisible : " + firstLine(e));
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                // Corps tronqué ou syntaxe invalide : la suite est illisible. Les lignes déjà lues sont importées
+                // et le rapport signale où la lecture s'est arrêtée.
+                run.fail(lues + 1, "JSON invalide : " + firstLine(e));
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Première ligne : en-tête avec les noms des champs de {@link ChantierRequest}.
+     *
+     * @throws IllegalArgumentException si l'en-tête est absent
+     */
+    public ImportReport importCsv(InputStream body) throws IOException {
+        Import run = new Import();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null || header.isBlank()) {
+                throw new IllegalArgumentException("En-tête CSV manquant");
+            }
+            List<String> colonnes = parseCsvLine(header.replace("\uFEFF", ""));
+
+            int ligne = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                ligne++;
+                List<String> valeurs = parseCsvLine(line);
+                Map<String, String> champs = new LinkedHashMap<>();
+                for (int i = 0; i < colonnes.size() && i < valeurs.size(); i++) {
+                    String valeur = valeurs.get(i).trim();
+                    champs.put(colonnes.get(i).trim(), valeur.isEmpty() ? null : valeur);
+                }
+                try {
+                    run.add(ligne, objectMapper.convertValue(champs, ChantierRequest.class));
+                } catch (IllegalArgumentException e) {
+                    run.reject(ligne, champs.get("reference"), "Ligne illisible : " + firstLine(e));
+                }
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Découpe une ligne CSV (séparateur virgule, champs entre guillemets avec "" pour un guillemet).
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> valeurs = new ArrayList<>();
+        StringBuilder courant = new StringBuilder();
+        boolean entreGuillemets = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (entreGuillemets) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    courant.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreGuillemets = false;
+                } else {
+                    courant.append(c);
+                }
+            } else if (c == '"') {
+                entreGuillemets = true;
+            } else if (c == ',') {
+                valeurs.add(courant.toString());
+                courant.setLength(0);
+            } else {
+                courant.append(c);
+            }
+        }
+        valeurs.add(courant.toString());
+        return valeurs;
+    }
+
+    private static String firstLine(Exception e) {
+        return e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage().lines().findFirst().orElse("");
+    }
+
+    /**
+     * État d'un import : lot en attente, références déjà résolues et rapport.
+     */
+    private final class Import {
+
+        private final List<Ligne> lot = new ArrayList<>();
+        private final Map<Long, Client> clients = new HashMap<>();
+        private final Map<Long, Technicien> techniciens = new HashMap<>();
+        private final List<ImportError> erreurs = new ArrayList<>();
+        private int lignes;
+        private int importes;
+
+        void add(int ligne, ChantierRequest request) {
+            lignes++;
+            lot.add(new Ligne(ligne, request));
+            if (lot.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(int ligne, String reference, String message) {
+            lignes++;
+            erreurs.add(new ImportError(ligne, reference, message));
+        }
+
+        void fail(int ligne, String message) {
+            erreurs.add(new ImportError(ligne, null, message));
+        }
+
+        ImportReport finish() {
+            flush();
+            return new ImportReport(lignes, importes, erreurs);
+        }
+
+        private void flush() {
+            if (lot.isEmpty()) {
+                return;
+            }
+            resolve(lot.stream().map(l -> l.request().clientId()), clients, clientRepository::findAllById, Client::getId);
+            resolve(lot.stream().map(l -> l.request().technicienId()), techniciens, technicienRepository::findAllById, Technicien::getId);
+
+            List<Chantier> chantiers = new ArrayList<>();
+            List<Ligne> retenues = new ArrayList<>();
+            for (Ligne ligne : lot) {
+                String erreur = validate(ligne.request());
+                if (erreur != null) {
+                    erreurs.add(new ImportError(ligne.numero(), ligne.request().reference(), erreur));
+                    continue;
+                }
+                chantiers.add(chantier(ligne));
+                retenues.add(ligne);
+            }
+            lot.clear();
+
+            if (!chantiers.isEmpty()) {
+                try {
+                    List<ImportError> conflits = new ArrayList<>();
+                    List<Chantier> inseres = transactionTemplate.execute(status -> {
+                        List<Chantier> sansConflit = new ArrayList<>();
+                        for (int i = 0; i < chantiers.size(); i++) {
+                            if (save(retenues.get(i), chantiers.get(i), conflits)) {
+                                sansConflit.add(chantiers.get(i));
+                            }
+                        }
+                        chantierRepository.flush();
+                        return sansConflit;
+                    });
+                    erreurs.addAll(conflits);
+                    inserted(inseres);
+                } catch (DataAccessException e) {
+                    entityManager.clear();
+                    retryOneByOne(retenues);
+                }
+            }
+            // Les entités insérées ne servent plus : on vide le contexte pour garder une mémoire constante.
+            entityManager.clear();
+        }
+
+        // Lot refusé par la base : chaque ligne est reprise seule pour n'écarter que les fautives, nommées dans
+        // le rapport. Entités neuves, celles du lot ont reçu un id dans la transaction annulée. Chaque ligne
+        // validée entre dans l'index du planning avant le contrôle de la suivante.
+        private void retryOneByOne(List<Ligne> retenues) {
+            for (Ligne ligne : retenues) {
+                Chantier chantier = chantier(ligne);
+                List<ImportError> conflits = new ArrayList<>();
+                try {
+                    Boolean insere = transactionTemplate.execute(status -> {
+                        boolean sansConflit = save(ligne, chantier, conflits);
+                        chantierRepository.flush();
+                        return sansConflit;
+                    });
+                    erreurs.addAll(conflits);
+                    if (Boolean.TRUE.equals(insere)) {
+                        inserted(List.of(chantier));
+                    }
+                } catch (DataAccessException e) {
+                    entityManager.clear();
+                    erreurs.add(new ImportError(ligne.numero(), ligne.request().reference(),
+                            "Ligne rejetée : " + firstLine(e)));
+                }
+            }
+        }
+
+        // Dans la transaction du lot : les chantiers déjà enregistrés comptent pour le contrôle des suivants.
+        private boolean save(Ligne ligne, Chantier chantier, List<ImportError> conflits) {
+            Conflit conflit = planningService.conflit(chantier.getTechnicien().getId(),
+                    chantier.getDateIntervention(), chantier.getStatut(), null);
+            if (conflit != null) {
+                conflits.add(new ImportError(ligne.numero(), ligne.request().reference(),
+                        "Conflit de planning : technicien " + conflit.technicienId() + " déjà affecté le "
+                                + conflit.date() + " (chantiers " + conflit.chantierIds() + ")"));
+                return false;
+            }
+            chantierRepository.save(chantier);
+            planningService.chantierSavedInTransaction(chantier);
+            return true;
+        }
+
+        // Après le commit du lot : mêmes effets qu'une création par l'API, chantier par chantier.
+        private void inserted(List<Chantier> chantiers) {
+            if (chantiers.isEmpty()) {
+                return;
+            }
+            importes += chantiers.size();
+            chantiers.forEach(dashboardStatsService::chantierCreated);
+            chantiers.forEach(planningService::chantierSaved);
+            jsonPageCache.invalidate(JsonPageCache.CHANTIERS);
+            chantiers.forEach(chantier -> chantierEventBus.publish(Notification.of(
+                    ChantierEvenementType.CREATION, ChantierSummary.from(chantier), null, null)));
+        }
+
+        private Chantier chantier(Ligne ligne) {
+            Chantier chantier = new Chantier();
+            ligne.request().applyTo(chantier);
+            chantier.setClient(clients.get(ligne.request().clientId()));
+            chantier.setTechnicien(techniciens.get(ligne.request().technicienId()));
+            geocodingService.locate(chantier);
+            return chantier;
+        }
+
+        private String validate(ChantierRequest request) {
+            if (request.reference() == null || request.reference().isBlank()) {
+                return "Référence manquante";
+            }
+            if (request.adresse() == null || request.adresse().isBlank()) {
+                return "Adresse manquante";
+            }
+            if (!clients.containsKey(request.clientId())) {
+                return "Client introuvable : " + request.clientId();
+            }
+            if (!techniciens.containsKey(request.technicienId())) {
+                return "Technicien introuvable : " + request.technicienId();
+            }
+            return null;
+        }
+    }
+
+    private static <T> void resolve(
+            Stream<Long> ids,
+            Map<Long, T> connus,
+            Function<Set<Long>, List<T>> loader,
+            Function<T, Long> idOf
+    ) {
+        Set<Long> manquants = ids.filter(Objects::nonNull)
+                .filter(id -> !connus.containsKey(id))
+                .collect(Collectors.toSet());
+        if (!manquants.isEmpty()) {
+            loader.apply(manquants).forEach(entity -> connus.put(idOf.apply(entity), entity));
+        }
+    }
+
+    private record Ligne(int numero, ChantierRequest request) {
+    }
+
+    public record ImportError(int ligne, String reference, String message) {
+    }
+
+    public record ImportReport(int lignes, int importes, List<ImportError> erreurs) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ChantierRequest;
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.repository.ChantierEvenementRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fusion à trois voies d'une modification faite sur une version périmée d'un chantier.
+ * La base est reconstituée depuis le journal des modifications : pour chaque champ modifié depuis la version
+ * lue par le client, la valeur d'origine est l'ancienne valeur du premier événement qui l'a touché.
+ * Un champ que le client n'a pas changé garde la valeur courante, un champ que personne d'autre n'a changé
+ * prend celle du client ; deux changements différents d'un même champ sont un conflit.
+ */
+@Service
+public class ChantierMergeService {
+
+    public static final List<String> CHAMPS = List.of(
+            "reference", "adresse", "typeInstallation", "dateIntervention",
+            "statut", "dateSignature", "clientId", "technicienId"
+    );
+
+    private final ChantierEvenementRepository evenementRepository;
+    private final ChantierAuditLog auditLog;
+    private final ObjectMapper objectMapper;
+
+    public ChantierMergeService(
+            ChantierEvenementRepository evenementRepository,
+            ChantierAuditLog auditLog,
+            ObjectMapper objectMapper
+    ) {
+        this.evenementRepository = evenementRepository;
+        this.auditLog = auditLog;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return la requête fusionnée, à la version courante, ou les champs en conflit
+     */
+    public Fusion merge(Chantier courant, ChantierRequest request) {
+        long versionActuelle = courant.getVersion();
+        // Les événements des transactions déjà validées peuvent encore attendre dans la file du journal.
+        auditLog.flush();
+        var evenements = evenementRepository.findByChantierIdAndVersionGreaterThanOrderByVersion(
+                courant.getId(), request.version());
+
+        // Historique incomplet (version inconnue, événement pas encore journalisé) : pas de base fiable.
+        long attendue = request.version() + 1;
+        Map<String, JsonNode> base = new HashMap<>();
+        for (var evenement : evenements) {
+            if (evenement.getVersion() != attendue || evenement.getChangements() == null) {
+                return Fusion.conflit(versionActuelle, CHAMPS);
+            }
+            attendue++;
+            readTree(evenement.getChangements()).fields()
+                    .forEachRemaining(champ -> base.putIfAbsent(champ.getKey(), champ.getValue().get(0)));
+        }
+        if (request.version() >= versionActuelle || attendue != versionActuelle + 1) {
+            return Fusion.conflit(versionActuelle, CHAMPS);
+        }
+
+        ObjectNode demande = objectMapper.valueToTree(request);
+        if (request.statut() == null) {
+            demande.put("statut", ChantierStatut.BROUILLON.name());
+        }
+        ObjectNode actuel = objectMapper.valueToTree(etat(courant));
+
+        List<String> conflits = new ArrayList<>();
+        for (String champ : CHAMPS) {
+            JsonNode origine = base.get(champ);
+            if (origine == null) {
+                continue;
+            }
+            JsonNode voulu = demande.get(champ);
+            JsonNode present = actuel.get(champ);
+            if (voulu.equals(origine) || voulu.equals(present)) {
+                demande.set(champ, present);
+            } else {
+                conflits.add(champ);
+            }
+        }
+        if (!conflits.isEmpty()) {
+            return Fusion.conflit(versionActuelle, conflits);
+        }
+
+        demande.put("version", versionActuelle);
+        try {
+            return new Fusion(objectMapper.treeToValue(demande, ChantierRequest.class), versionActuelle, List.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Object> etat(Chantier chantier) {
+        Map<String, Object> etat = new HashMap<>();
+        etat.put("reference", chantier.getReference());
+        etat.put("adresse", chantier.getAdresse());
+        etat.put("typeInstallation", chantier.getTypeInstallation());
+        etat.put("dateIntervention", chantier.getDateIntervention());
+        etat.put("statut", chantier.getStatut());
+        etat.put("dateSignature", chantier.getDateSignature());
+        etat.put("clientId", chantier.getClient() == null ? null : chantier.getClient().getId());
+        etat.put("technicienId", chantier.getTechnicien() == null ? null : chantier.getTechnicien().getId());
+        return etat;
+    }
+
+    /**
+     * Corps du 409 : le client relit le chantier renvoyé et rejoue ses champs en conflit.
+     */
+    public record ConflitVersion(long versionActuelle, List<String> champs, Chantier chantier) {
+    }
+
+    /**
+     * @param request  requête à appliquer, nulle en cas de conflit
+     * @param conflits champs modifiés des deux côtés avec des valeurs différentes
+     */
+    public record Fusion(ChantierRequest request, long versionActuelle, List<String> conflits) {
+
+        static Fusion conflit(long versionActuelle, List<String> champs) {
+            return new Fusion(null, versionActuelle, champs);
+        }
+
+        public boolean enConflit() {
+            return request == null;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ChantierRequest;
+import com.example.demo.dto.ChantierSummary;
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierEvenementType;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.repository.ChantierRepository;
+import com.example.demo.service.ChantierEventBus.Notification;
+import com.example.demo.service.ChantierMergeService.ConflitVersion;
+import com.example.demo.service.ChantierMergeService.Fusion;
+import com.example.demo.service.PlanningService.Conflit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Écritures de chantiers partagées par l'API REST et la synchronisation hors ligne.
+ * Les effets en mémoire (tableau de bord, index du planning, cache des pages, abonnés SSE) suivent le commit :
+ * appelées dans un lot transactionnel, ces écritures ne laissent aucune trace si le lot est annulé. Le planning
+ * retient toutefois les écritures du lot en cours pour que ses contrôles de conflit voient ses propres créations.
+ * Création et modification s'exécutent dans une transaction (celle du lot s'il y en a une) : le contrôle de conflit
+ * y verrouille le technicien jusqu'au commit.
+ */
+@Service
+public class ChantierWriteService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChantierWriteService.class);
+
+    private final ChantierRepository chantierRepository;
+    private final ReferenceCache referenceCache;
+    private final PlanningService planningService;
+    private final DashboardStatsService dashboardStatsService;
+    private final JsonPageCache jsonPageCache;
+    private final SignatureService signatureService;
+    private final ChantierMergeService chantierMergeService;
+    private final ChantierEventBus chantierEventBus;
+    private final GeocodingService geocodingService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ChantierWriteService(
+            ChantierRepository chantierRepository,
+            ReferenceCache referenceCache,
+            PlanningService planningService,
+            DashboardStatsService dashboardStatsService,
+            JsonPageCache jsonPageCache,
+            SignatureService signatureService,
+            ChantierMergeService chantierMergeService,
+            ChantierEventBus chantierEventBus,
+            GeocodingService geocodingService,
+            TransactionTemplate transactionTemplate
+    ) {
+        this.chantierRepository = chantierRepository;
+        this.referenceCache = referenceCache;
+        this.planningService = planningService;
+        this.dashboardStatsService = dashboardStatsService;
+        this.jsonPageCache = jsonPageCache;
+        this.signatureService = signatureService;
+        this.chantierMergeService = chantierMergeService;
+        this.chantierEventBus = chantierEventBus;
+        this.geocodingService = geocodingService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * CONFLIT avec le {@link Conflit} de planning si le technicien a déjà un chantier ce jour-là.
+     */
+    public Ecriture create(ChantierRequest request) {
+        return transactionTemplate.execute(status -> creer(request));
+    }
+
+    private Ecriture creer(ChantierRequest request) {
+        var client = referenceCache.findClient(request.clientId());
+        var technicien = referenceCache.findTechnicien(request.technicienId());
+        if (client == null || technicien == null) {
+            return Ecriture.of(Issue.INVALIDE);
+        }
+
+        Chantier chantier = new Chantier();
+        request.applyTo(chantier);
+        Conflit conflit = planningService.conflit(
+                technicien.getId(), chantier.getDateIntervention(), chantier.getStatut(), null);
+        if (conflit != null) {
+            return new Ecriture(Issue.CONFLIT, null, conflit);
+        }
+
+        chantier.setClient(client);
+        chantier.setTechnicien(technicien);
+        geocodingService.locate(chantier);
+        Chantier saved = chantierRepository.save(chantier);
+        planningService.chantierSavedInTransaction(saved);
+        AfterCommit.run(() -> {
+            dashboardStatsService.chantierCreated(saved);
+            planningService.chantierSaved(saved);
+            jsonPageCache.invalidate(JsonPageCache.CHANTIERS);
+            // Construite après le commit : version et date de modification sont celles écrites.
+            chantierEventBus.publish(Notification.of(
+                    ChantierEvenementType.CREATION, ChantierSummary.from(saved), null, null));
+        });
+        return new Ecriture(Issue.OK, saved, null);
+    }
+
+    /**
+     * Avec {@code version} : fusion des champs modifiés d'un seul côté, CONFLIT avec un {@link ConflitVersion}
+     * si un même champ a été modifié différemment.
+     *
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException si le chantier a été modifié
+     *                                                                         entre la lecture et l'écriture
+     */
+    public Ecriture update(Long id, ChantierRequest request) {
+        return transactionTemplate.execute(status -> modifier(id, request));
+    }
+
+    private Ecriture modifier(Long id, ChantierRequest request) {
+        var existing = chantierRepository.findDetailById(id).orElse(null);
+        if (existing == null) {
+            return Ecriture.of(Issue.INTROUVABLE);
+        }
+
+        if (request.version() != null && !request.version().equals(existing.getVersion())) {
+            Fusion fusion = chantierMergeService.merge(existing, request);
+            if (fusion.enConflit()) {
+                return new Ecriture(Issue.CONFLIT, null,
+                        new ConflitVersion(fusion.versionActuelle(), fusion.conflits(), existing));
+            }
+            request = fusion.request();
+        }
+
+        var client = referenceCache.findClient(request.clientId());
+        var technicien = referenceCache.findTechnicien(request.technicienId());
+        if (client == null || technicien == null) {
+            return Ecriture.of(Issue.INVALIDE);
+        }
+
+        // Le chantier occupe déjà sa place : contrôle seulement s'il en change ou s'il quitte le statut refusé.
+        ChantierStatut statut = request.statut() == null ? ChantierStatut.BROUILLON : request.statut();
+        if (!technicien.getId().equals(existing.getTechnicien().getId())
+                || !Objects.equals(request.dateIntervention(), existing.getDateIntervention())
+                || existing.getStatut() == ChantierStatut.REFUSE) {
+            Conflit conflit = planningService.conflit(technicien.getId(), request.dateIntervention(), statut, id);
+            if (conflit != null) {
+                return new Ecriture(Issue.CONFLIT, null, conflit);
+            }
+        }
+
+        var ancienStatut = existing.getStatut();
+        var ancienneDate = existing.getDateIntervention();
+        var ancienTechnicien = existing.getTechnicien().getId();
+        var ancienneAdresse = existing.getAdresse();
+        request.applyTo(existing);
+        existing.setClient(client);
+        existing.setTechnicien(technicien);
+        if (!Objects.equals(ancienneAdresse, existing.getAdresse()) || existing.getGeocodeLe() == null) {
+            geocodingService.locate(existing);
+        }
+        Chantier saved = chantierRepository.save(existing);
+        planningService.chantierSavedInTransaction(saved);
+        AfterCommit.run(() -> {
+            dashboardStatsService.chantierUpdated(ancienStatut, ancienneDate, saved);
+            planningService.chantierSaved(saved);
+            jsonPageCache.invalidate(JsonPageCache.CHANTIERS);
+            chantierEventBus.publish(Notification.of(
+                    ancienStatut == saved.getStatut() ? ChantierEvenementType.MODIFICATION : ChantierEvenementType.CHANGEMENT_STATUT,
+                    ChantierSummary.from(saved), ancienStatut, ancienTechnicien));
+        });
+        return new Ecriture(Issue.OK, saved, null);
+    }
+
+    public Ecriture cloturer(Long id) {
+        var chantier = chantierRepository.findDetailById(id).orElse(null);
+        if (chantier == null) {
+            return Ecriture.of(Issue.INTROUVABLE);
+        }
+
+        var ancienStatut = chantier.getStatut();
+        chantier.cloturer();
+        Chantier saved = chantierRepository.save(chantier);
+        planningService.chantierSavedInTransaction(saved);
+        AfterCommit.run(() -> {
+            dashboardStatsService.chantierUpdated(ancienStatut, saved.getDateIntervention(), saved);
+            planningService.chantierSaved(saved);
+            jsonPageCache.invalidate(JsonPageCache.CHANTIERS);
+            chantierEventBus.publish(Notification.of(
+                    ChantierEvenementType.CHANGEMENT_STATUT, ChantierSummary.from(saved), ancienStatut, null));
+        });
+        return new Ecriture(Issue.OK, saved, null);
+    }
+
+    public Ecriture delete(Long id) {
+        var chantier = chantierRepository.findById(id).orElse(null);
+        if (chantier == null) {
+            return Ecriture.of(Issue.INTROUVABLE);
+        }
+
+        // Les vérifications partent en cascade avec le chantier.
+        int verifications = chantier.getVerifications().size();
+        Notification notification = new Notification(ChantierEvenementType.SUPPRESSION, id,
+                chantier.getTechnicien().getId(), chantier.getStatut(), null, null, null);
+        chantierRepository.delete(chantier);
+        planningService.chantierDeletedInTransaction(id);
+        AfterCommit.run(() -> {
+            dashboardStatsService.chantierDeleted(chantier, verifications);
+            planningService.chantierDeleted(id);
+            jsonPageCache.invalidate(JsonPageCache.CHANTIERS);
+            chantierEventBus.publish(notification);
+            try {
+                signatureService.release(chantier.getSignatureRef());
+            } catch (IOException e) {
+                log.warn("Signature {} du chantier {} non supprimée", chantier.getSignatureRef(), id, e);
+            }
+        });
+        return new Ecriture(Issue.OK, chantier, null);
+    }
+
+    public enum Issue {
+        OK,
+        INTROUVABLE,
+        INVALIDE,
+        CONFLIT
+    }
+
+    /**
+     * @param detail en cas de conflit, le {@link Conflit} de planning ou le {@link ConflitVersion}
+     */
+    public record Ecriture(Issue issue, Chantier chantier, Object detail) {
+
+        static Ecriture of(Issue issue) {
+            return new Ecriture(issue, null, null);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.repository.ChantierRepository;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.TechnicienRepository;
+import com.example.demo.repository.VerificationChantierRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Agrégat en mémoire des compteurs du tableau de bord.
+ * Les contrôleurs le tiennent à jour à chaque écriture ; une requête GROUP BY
+ * périodique le recale sur la base pour absorber les écritures concurrentes ou externes.
+ */
+@Service
+public class DashboardStatsService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStatsService.class);
+    // Lectures refaites quand des deltas arrivent pendant la lecture, avant de renoncer jusqu'au prochain recalage.
+    private static final int MAX_TENTATIVES = 3;
+
+    private final ChantierRepository chantierRepository;
+    private final ClientRepository clientRepository;
+    private final TechnicienRepository technicienRepository;
+    private final VerificationChantierRepository verificationRepository;
+    private final TransactionTemplate snapshotTransaction;
+
+    private final Object lock = new Object();
+    private final Map<ChantierStatut, Long> parStatut = new EnumMap<>(ChantierStatut.class);
+    // Chantiers non clôturés par date d'intervention, pour compter les retards sans rescanner la table.
+    private final Map<ChantierStatut, NavigableMap<LocalDate, Long>> echeances = new EnumMap<>(ChantierStatut.class);
+    private long totalClients;
+    private long totalTechniciens;
+    private long totalVerifications;
+    private LocalDateTime reconcileAt;
+    // Incrémentée par chaque delta : un recalage lu pendant qu'elle change est périmé.
+    private long generation;
+
+    public DashboardStatsService(
+            ChantierRepository chantierRepository,
+            ClientRepository clientRepository,
+            TechnicienRepository technicienRepository,
+            VerificationChantierRepository verificationRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.chantierRepository = chantierRepository;
+        this.clientRepository = clientRepository;
+        this.technicienRepository = technicienRepository;
+        this.verificationRepository = verificationRepository;
+        // Repeatable read : les quatre comptages viennent du même instantané.
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    // Premier chargement une fois les beans créés, avant le démarrage du serveur web : aucune requête ne voit de
+    // compteurs vides. Le planificateur prend ensuite le relais.
+    @Override
+    public void afterSingletonsInstantiated() {
+        reconcile();
+    }
+
+    public DashboardStats snapshot() {
+        return snapshot(LocalDate.now());
+    }
+
+    // Retards : chantiers ouverts dont la date d'intervention précède {@code today}, paramètre pour les tests.
+    DashboardStats snapshot(LocalDate today) {
+        synchronized (lock) {
+            Map<ChantierStatut, Long> counts = new EnumMap<>(ChantierStatut.class);
+            Map<ChantierStatut, Long> enRetard = new EnumMap<>(ChantierStatut.class);
+            long totalChantiers = 0;
+            long totalEnRetard = 0;
+            for (ChantierStatut statut : ChantierStatut.values()) {
+                long count = parStatut.getOrDefault(statut, 0L);
+                counts.put(statut, count);
+                totalChantiers += count;
+                if (isOuvert(statut)) {
+                    long retard = echeances.getOrDefault(statut, new TreeMap<>())
+                            .headMap(today, false)
+                            .values().stream().mapToLong(Long::longValue).sum();
+                    enRetard.put(statut, retard);
+                    totalEnRetard += retard;
+                }
+            }
+            return new DashboardStats(
+                    counts,
+                    enRetard,
+                    totalChantiers,
+                    totalEnRetard,
+                    totalClients,
+                    totalTechniciens,
+                    totalVerifications,
+                    reconcileAt
+            );
+        }
+    }
+
+    public long totalChantiers() {
+        synchronized (lock) {
+            return parStatut.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    public void chantierCreated(Chantier chantier) {
+        synchronized (lock) {
+            add(chantier.getStatut(), chantier.getDateIntervention(), 1);
+        }
+    }
+
+    public void chantierUpdated(ChantierStatut ancienStatut, LocalDate ancienneDate, Chantier chantier) {
+        synchronized (lock) {
+            add(ancienStatut, ancienneDate, -1);
+            add(chantier.getStatut(), chantier.getDateIntervention(), 1);
+        }
+    }
+
+    public void chantierDeleted(Chantier chantier, int verifications) {
+        synchronized (lock) {
+            add(chantier.getStatut(), chantier.getDateIntervention(), -1);
+            totalVerifications -= verifications;
+            generation++;
+        }
+    }
+
+    public void clientsChanged(int delta) {
+        synchronized (lock) {
+            totalClients += delta;
+            generation++;
+        }
+    }
+
+    public void techniciensChanged(int delta) {
+        synchronized (lock) {
+            totalTechniciens += delta;
+            generation++;
+        }
+    }
+
+    public void verificationsChanged(int delta) {
+        synchronized (lock) {
+            totalVerifications += delta;
+            generation++;
+        }
+    }
+
+    /**
+     * Remplace les compteurs par un instantané de la base. Un delta appliqué pendant la lecture peut venir d'une
+     * écriture que l'instantané voit déjà ou pas encore : la lecture est alors écartée et refaite, plutôt que de
+     * perdre ce delta ou de le compter deux fois.
+     */
+    @Scheduled(
+            fixedDelayString = "${dashboard.stats.reconcile-interval-ms:300000}",
+            initialDelayString = "${dashboard.stats.reconcile-interval-ms:300000}"
+    )
+    public void reconcile() {
+        for (int tentative = 1; tentative <= MAX_TENTATIVES; tentative++) {
+            long avant;
+            synchronized (lock) {
+                avant = generation;
+            }
+            Instantane lu = snapshotTransaction.execute(status -> new Instantane(
+                    chantierRepository.countByStatutAndDateIntervention(),
+                    clientRepository.count(),
+                    technicienRepository.count(),
+                    verificationRepository.count()
+            ));
+
+            synchronized (lock) {
+                boolean aJour = generation == avant;
+                // Premier chargement : même périmé, un instantané vaut mieux que des compteurs vides.
+                if (aJour || reconcileAt == null) {
+                    apply(lu);
+                }
+                if (aJour) {
+                    return;
+                }
+            }
+        }
+        log.warn("Compteurs du tableau de bord non recalés : écritures continues pendant {} lectures", MAX_TENTATIVES);
+    }
+
+    private void apply(Instantane lu) {
+        parStatut.clear();
+        echeances.clear();
+        for (var row : lu.chantiers()) {
+            add(row.getStatut(), row.getDateIntervention(), row.getTotal());
+        }
+        totalClients = lu.clients();
+        totalTechniciens = lu.techniciens();
+        totalVerifications = lu.verifications();
+        reconcileAt = LocalDateTime.now();
+    }
+
+    private void add(ChantierStatut statut, LocalDate dateIntervention, long delta) {
+        generation++;
+        parStatut.merge(statut, delta, Long::sum);
+        if (dateIntervention != null && isOuvert(statut)) {
+            var parDate = echeances.computeIfAbsent(statut, s -> new TreeMap<>());
+            if (parDate.merge(dateIntervention, delta, Long::sum) == 0L) {
+                parDate.remove(dateIntervention);
+            }
+        }
+    }
+
+    private static boolean isOuvert(ChantierStatut statut) {
+        return statut != ChantierStatut.TERMINE && statut != ChantierStatut.VALIDE;
+    }
+
+    private record Instantane(
+            List<ChantierRepository.StatutDateCount> chantiers,
+            long clients,
+            long techniciens,
+            long verifications
+    ) {
+    }
+
+    public record DashboardStats(
+            Map<ChantierStatut, Long> chantiersParStatut,
+            Map<ChantierStatut, Long> chantiersEnRetardParStatut,
+            long totalChantiers,
+            long chantiersEnRetard,
+            long totalClients,
+            long totalTechniciens,
+            long totalVerifications,
+            LocalDateTime reconcileAt
+    ) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.service;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Géocodeur local : le code postal de l'adresse donne le département, localisé à son chef-lieu
+ * (geo/departements.csv). Précision de quelques dizaines de kilomètres, sans appel réseau.
+ */
+@Service
+public class GazetteerGeocoder implements Geocoder {
+
+    private final Map<String, Position> departements = new HashMap<>();
+
+    public GazetteerGeocoder() {
+        var resource = new ClassPathResource("geo/departements.csv");
+        try (var reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            reader.lines()
+                    .filter(ligne -> !ligne.isBlank() && !ligne.startsWith("#"))
+                    .map(ligne -> ligne.split(";"))
+                    .forEach(champs -> departements.put(champs[0],
+                            new Position(Double.parseDouble(champs[1]), Double.parseDouble(champs[2]))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Position geocode(String adresse) {
+        String departement = PlanningService.zone(adresse);
+        return departement == null ? null : departements.get(departement);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.service;
+
+/**
+ * Géocodage d'une adresse libre. L'implémentation livrée ({@link GazetteerGeocoder}) fonctionne hors ligne ;
+ * un service d'adresses plus précis se branche en déclarant un autre bean {@code Geocoder} marqué {@code @Primary}.
+ */
+public interface Geocoder {
+
+    /**
+     * @return null si l'adresse n'est pas localisable
+     */
+    Position geocode(String adresse);
+
+    record Position(double latitude, double longitude) {
+    }
+}
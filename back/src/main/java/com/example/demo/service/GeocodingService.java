@@ -0,0 +1,97 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.service.Geocoder.Position;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Position des chantiers pour les recherches de proximité.
+ * Les écritures de l'API, de l'import et de la synchronisation géocodent l'adresse au passage ; un rattrapage
+ * périodique traite les lignes jamais géocodées (données antérieures, écritures SQL externes).
+ */
+@Service
+public class GeocodingService {
+
+    private static final Logger log = LoggerFactory.getLogger(GeocodingService.class);
+
+    private final Geocoder geocoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public GeocodingService(
+            Geocoder geocoder,
+            JdbcTemplate jdbcTemplate,
+            @Value("${geocoding.backfill-batch-size:1000}") int batchSize
+    ) {
+        this.geocoder = geocoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * À appeler à la création et quand l'adresse change.
+     */
+    public void locate(Chantier chantier) {
+        Position position = geocoder.geocode(chantier.getAdresse());
+        chantier.localiser(
+                position == null ? null : position.latitude(),
+                position == null ? null : position.longitude(),
+                LocalDateTime.now());
+    }
+
+    /**
+     * Par lots, dans l'ordre des ids (index partiel idx_chantiers_a_geocoder). La ligne n'est écrite que si son
+     * adresse n'a pas changé entre-temps ; ni la version ni la date de modification ne bougent.
+     */
+    @Scheduled(
+            fixedDelayString = "${geocoding.backfill-interval-ms:3600000}",
+            initialDelayString = "${geocoding.backfill-initial-delay-ms:60000}"
+    )
+    public void backfill() {
+        long dernierId = 0;
+        long localises = 0;
+        while (true) {
+            List<Object[]> lignes = jdbcTemplate.query("""
+                            SELECT id, adresse FROM chantiers
+                            WHERE geocode_le IS NULL AND id > ?
+                            ORDER BY id
+                            LIMIT ?
+                            """,
+                    (rs, rowNum) -> new Object[]{rs.getLong("id"), rs.getString("adresse")},
+                    dernierId, batchSize);
+            if (lignes.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> positions = new ArrayList<>(lignes.size());
+            for (Object[] ligne : lignes) {
+                Position position = geocoder.geocode((String) ligne[1]);
+                positions.add(new Object[]{
+                        position == null ? null : position.latitude(),
+                        position == null ? null : position.longitude(),
+                        ligne[0], ligne[1]});
+                localises += position == null ? 0 : 1;
+            }
+            jdbcTemplate.batchUpdate("""
+                    UPDATE chantiers SET latitude = ?, longitude = ?, geocode_le = LOCALTIMESTAMP
+                    WHERE id = ? AND adresse IS NOT DISTINCT FROM ? AND geocode_le IS NULL
+                    """, positions);
+            dernierId = (Long) lignes.get(lignes.size() - 1)[0];
+            if (lignes.size() < batchSize) {
+                break;
+            }
+        }
+        if (dernierId > 0) {
+            log.info("Géocodage rattrapé jusqu'au chantier {} : {} position(s) trouvée(s)", dernierId, localises);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Réponses déjà rendues aux POST porteurs d'un en-tête Idempotency-Key, conservées en base le temps du TTL
+ * pour être rejouées aux nouvelles tentatives du client. La première requête réserve la clé par un INSERT
+ * ON CONFLICT : deux requêtes simultanées ne peuvent pas l'obtenir toutes les deux, quelle que soit l'instance.
+ * Chaque réservation porte un jeton propre : seule la requête qui le détient peut enregistrer sa réponse ou
+ * libérer la clé, et l'instance qui la traite renouvelle reserve_le tant qu'elle tourne.
+ */
+@Service
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    // Une clé expirée, ou réservée par une requête dont la réservation n'est plus renouvelée (instance arrêtée),
+    // est reprise sous un nouveau jeton.
+    private static final String CLAIM = """
+            INSERT INTO idempotency_keys (cle, methode, chemin, jeton, reserve_le, expire_le)
+            VALUES (?, ?, ?, ?, now(), now() + ? * interval '1 millisecond')
+            ON CONFLICT (cle) DO UPDATE SET
+                methode = EXCLUDED.methode,
+                chemin = EXCLUDED.chemin,
+                empreinte = NULL,
+                statut = NULL,
+                content_type = NULL,
+                corps = NULL,
+                jeton = EXCLUDED.jeton,
+                reserve_le = EXCLUDED.reserve_le,
+                expire_le = EXCLUDED.expire_le
+            WHERE idempotency_keys.expire_le < now()
+               OR (idempotency_keys.statut IS NULL
+                   AND idempotency_keys.reserve_le < now() - ? * interval '1 millisecond')
+            RETURNING cle
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlMs;
+    private final long lockTimeoutMs;
+    // Réservations détenues par cette instance, renouvelées par heartbeat() jusqu'à complete() ou release().
+    private final Map<String, UUID> enCours = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(
+            JdbcTemplate jdbcTemplate,
+            @Value("${idempotency.ttl-ms:86400000}") long ttlMs,
+            @Value("${idempotency.lock-timeout-ms:60000}") long lockTimeoutMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMs = ttlMs;
+        this.lockTimeoutMs = lockTimeoutMs;
+    }
+
+    /**
+     * @return le jeton de la réservation si la requête courante a obtenu la clé et doit être traitée, null sinon
+     */
+    public UUID claim(String cle, String methode, String chemin) {
+        UUID jeton = UUID.randomUUID();
+        if (jdbcTemplate.queryForList(CLAIM, String.class, cle, methode, chemin, jeton, ttlMs, lockTimeoutMs).isEmpty()) {
+            return null;
+        }
+        enCours.put(cle, jeton);
+        return jeton;
+    }
+
+    /**
+     * Enregistre la réponse, si la clé est toujours réservée sous ce jeton.
+     *
+     * @return false si la réservation a été perdue entre-temps : la réponse n'est pas conservée
+     */
+    public boolean complete(String cle, UUID jeton, byte[] empreinte, int statut, String contentType, byte[] corps) {
+        enCours.remove(cle, jeton);
+        int lignes = jdbcTemplate.update("""
+                UPDATE idempotency_keys SET empreinte = ?, statut = ?, content_type = ?, corps = ?
+                WHERE cle = ? AND jeton = ? AND statut IS NULL
+                """, empreinte, statut, contentType, corps, cle, jeton);
+        if (lignes == 0) {
+            log.warn("Réservation de la clé d'idempotence {} perdue avant la fin de la requête : réponse non conservée", cle);
+        }
+        return lignes > 0;
+    }
+
+    /**
+     * Libère la clé : la requête a échoué côté serveur et pourra être retentée. Sans effet si la clé a été reprise.
+     */
+    public void release(String cle, UUID jeton) {
+        enCours.remove(cle, jeton);
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE cle = ? AND jeton = ? AND statut IS NULL", cle, jeton);
+    }
+
+    /**
+     * Renouvelle reserve_le des requêtes en cours sur cette instance : une requête longue n'est jamais reprise,
+     * seule une réservation abandonnée (instance arrêtée) dépasse idempotency.lock-timeout-ms.
+     */
+    @Scheduled(
+            fixedDelayString = "${idempotency.heartbeat-interval-ms:20000}",
+            initialDelayString = "${idempotency.heartbeat-interval-ms:20000}"
+    )
+    public void heartbeat() {
+        if (enCours.isEmpty()) {
+            return;
+        }
+        List<Object[]> reservations = new ArrayList<>();
+        enCours.forEach((cle, jeton) -> reservations.add(new Object[]{cle, jeton}));
+        jdbcTemplate.batchUpdate(
+                "UPDATE idempotency_keys SET reserve_le = now() WHERE cle = ? AND jeton = ? AND statut IS NULL",
+                reservations);
+    }
+
+    /**
+     * @return la réponse enregistrée, sans statut tant que la requête d'origine est en cours ; null si la clé a disparu
+     */
+    public Reponse find(String cle) {
+        return jdbcTemplate.query(
+                "SELECT methode, chemin, empreinte, statut, content_type, corps FROM idempotency_keys WHERE cle = ?",
+                rs -> rs.next()
+                        ? new Reponse(
+                                rs.getString("methode"),
+                                rs.getString("chemin"),
+                                rs.getBytes("empreinte"),
+                                (Integer) rs.getObject("statut"),
+                                rs.getString("content_type"),
+                                rs.getBytes("corps"))
+                        : null,
+                cle);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${idempotency.purge-interval-ms:600000}",
+            initialDelayString = "${idempotency.purge-interval-ms:600000}"
+    )
+    public void purge() {
+        int purgees = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expire_le < now()");
+        if (purgees > 0) {
+            log.debug("{} clé(s) d'idempotence expirée(s) supprimée(s)", purgees);
+        }
+    }
+
+    public record Reponse(
+            String methode,
+            String chemin,
+            byte[] empreinte,
+            Integer statut,
+            String contentType,
+            byte[] corps
+    ) {
+
+        public boolean enCours() {
+            return statut == null;
+        }
+
+        public boolean correspond(String methode, String chemin, byte[] empreinte) {
+            return this.methode.equals(methode) && this.chemin.equals(chemin) && Arrays.equals(this.empreinte, empreinte);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Réponses conditionnelles des listes paginées, avec cache optionnel du JSON déjà sérialisé.
+ * L'appelant fournit une version de la ressource obtenue par une sonde peu coûteuse : elle sert d'ETag faible
+ * (304 sans exécuter la requête de page) et entre dans la clé du cache, qui ne peut donc pas servir une page
+ * périmée ; l'invalidation à l'écriture ne fait que libérer la mémoire plus tôt.
+ */
+@Service
+public class JsonPageCache {
+
+    public static final String CHANTIERS = "chantiers";
+    public static final String ARCHIVES = "chantiers_archives";
+    public static final String CLIENTS = "clients";
+    public static final String TECHNICIENS = "techniciens";
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, byte[]> pages;
+
+    public JsonPageCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${http.page-cache.enabled:true}") boolean enabled,
+            @Value("${http.page-cache.max-bytes:33554432}") long maxBytes,
+            @Value("${http.page-cache.expire-after-access-ms:600000}") long expireAfterAccessMs
+    ) {
+        this.objectMapper = objectMapper;
+        if (enabled) {
+            this.pages = Caffeine.newBuilder()
+                    .maximumWeight(maxBytes)
+                    .weigher((String cle, byte[] json) -> cle.length() + json.length)
+                    .expireAfterAccess(Duration.ofMillis(expireAfterAccessMs))
+                    .recordStats()
+                    .build();
+            // Mêmes clés d'étiquettes que les caches Spring : Prometheus refuse deux schémas pour cache_gets.
+            CaffeineCacheMetrics.monitor(meterRegistry, pages, "http.pages", Tags.of("cache.manager", "jsonPageCache", "name", "http.pages"));
+        } else {
+            this.pages = null;
+        }
+    }
+
+    /**
+     * @param lastModified millisecondes depuis l'epoch, ou -1 si la ressource n'a pas de date
+     * @param loader       requête de la page, appelée seulement si ni le client ni le cache ne l'ont déjà
+     */
+    public ResponseEntity<byte[]> respond(
+            String ressource,
+            String version,
+            long lastModified,
+            WebRequest request,
+            Supplier<?> loader
+    ) {
+        String etag = "W/\"" + version + "\"";
+        // Pose aussi ETag et Last-Modified sur la réponse.
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        byte[] json = pages == null
+                ? serialize(loader.get())
+                : pages.get(cle(ressource, version, request), c -> serialize(loader.get()));
+        return ResponseEntity.ok()
+                // Le navigateur garde la réponse mais revalide à chaque appel (If-None-Match automatique).
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+
+    public void invalidate(String... ressources) {
+        if (pages == null) {
+            return;
+        }
+        for (String ressource : ressources) {
+            pages.asMap().keySet().removeIf(cle -> cle.startsWith(ressource + "|"));
+        }
+    }
+
+    private static String cle(String ressource, String version, WebRequest request) {
+        StringBuilder cle = new StringBuilder(ressource).append('|').append(version);
+        // Paramètres triés : ?page=1&size=20 et ?size=20&page=1 partagent la même entrée.
+        Map<String, String[]> parametres = new TreeMap<>(request.getParameterMap());
+        parametres.forEach((nom, valeurs) -> {
+            cle.append('|').append(URLEncoder.encode(nom, StandardCharsets.UTF_8));
+            for (String valeur : valeurs) {
+                cle.append('=').append(URLEncoder.encode(valeur, StandardCharsets.UTF_8));
+            }
+        });
+        return cle.toString();
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+/**
+ * Affectation de chantiers datés à un pool de techniciens : au plus un chantier par technicien et par jour,
+ * charge totale équilibrée (somme des carrés des charges) et, en option, peu de zones différentes par technicien.
+ * <p>
+ * Plusieurs recherches indépendantes (glouton aléatoire puis descente locale par déplacements et échanges dans
+ * une même journée) tournent en parallèle sur l'exécuteur fourni jusqu'à l'échéance ; la meilleure l'emporte.
+ * Travaille sur des indices : la traduction depuis/vers les entités est faite par {@link PlanningService}.
+ */
+public final class PlanningOptimizer {
+
+    // Poids d'une zone supplémentaire pour un technicien, en unités de la fonction de charge.
+    static final int POIDS_ZONE = 2;
+    private static final long POIDS_NON_AFFECTE = 1_000_000;
+
+    private PlanningOptimizer() {
+    }
+
+    /**
+     * @param jours     jour (indice) de chaque chantier
+     * @param zones     zone (indice) de chaque chantier, -1 si inconnue
+     * @param occupe    [technicien][jour] déjà pris par le planning existant
+     * @param charge    charge existante de chaque technicien sur la période
+     * @param proximite pénaliser les zones multiples
+     */
+    public record Probleme(int[] jours, int[] zones, int nbJours, int nbZones, boolean[][] occupe, int[] charge,
+                           boolean proximite) {
+
+        int nbChantiers() {
+            return jours.length;
+        }
+
+        int nbTechniciens() {
+            return occupe.length;
+        }
+    }
+
+    /**
+     * @param techniciens technicien (indice) de chaque chantier, -1 si aucun n'est libre ce jour-là
+     */
+    public record Solution(int[] techniciens, long score, long iterations) {
+
+        public int nonAffectes() {
+            return (int) Arrays.stream(techniciens).filter(t -> t < 0).count();
+        }
+    }
+
+    /**
+     * @param executor threads des recherches : une recherche qui démarre tard s'arrête à la même échéance
+     */
+    public static Solution solve(Probleme probleme, long budgetMs, int parallelisme, Executor executor) {
+        long echeance = System.nanoTime() + budgetMs * 1_000_000;
+        List<CompletableFuture<Solution>> recherches = IntStream.range(0, Math.max(1, parallelisme))
+                .mapToObj(graine -> CompletableFuture.supplyAsync(
+                        () -> new Recherche(probleme, graine).run(echeance), executor))
+                .toList();
+        return recherches.stream()
+                .map(CompletableFuture::join)
+                .min(Comparator.comparingLong(Solution::score))
+                .orElseThrow();
+    }
+
+    /**
+     * Une recherche = un état mutable (affectations, charges, zones par technicien) et son générateur.
+     */
+    private static final class Recherche {
+
+        private final Probleme p;
+        private final SplittableRandom random;
+        private final int[] technicien;
+        private final int[][] occupant;
+        private final int[] charge;
+        private final int[][] parZone;
+        private final int[] affectes;
+        private int nbAffectes;
+
+        Recherche(Probleme probleme, long graine) {
+            this.p = probleme;
+            this.random = new SplittableRandom(graine);
+            this.technicien = new int[p.nbChantiers()];
+            this.occupant = new int[p.nbTechniciens()][p.nbJours()];
+            this.charge = p.charge().clone();
+            this.parZone = new int[p.nbTechniciens()][Math.max(1, p.nbZones())];
+            this.affectes = new int[p.nbChantiers()];
+            Arrays.fill(technicien, -1);
+            for (int[] jours : occupant) {
+                Arrays.fill(jours, -1);
+            }
+        }
+
+        Solution run(long echeance) {
+            glouton();
+            long iterations = 0;
+            if (nbAffectes > 0 && p.nbTechniciens() > 1) {
+                while ((iterations & 1023) != 0 || System.nanoTime() < echeance) {
+                    ameliorer();
+                    iterations++;
+                }
+            }
+            return new Solution(technicien.clone(), score(), iterations);
+        }
+
+        /**
+         * Chantiers pris jour par jour dans un ordre aléatoire, chacun donné au technicien libre le moins coûteux.
+         */
+        private void glouton() {
+            int n = p.nbChantiers();
+            Integer[] ordre = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                ordre[i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Integer tmp = ordre[i];
+                ordre[i] = ordre[j];
+                ordre[j] = tmp;
+            }
+            Arrays.sort(ordre, Comparator.comparingInt(c -> p.jours()[c]));
+
+            int nbTech = p.nbTechniciens();
+            for (int c : ordre) {
+                int jour = p.jours()[c];
+                int depart = nbTech == 0 ? 0 : random.nextInt(nbTech);
+                int meilleur = -1;
+                long meilleurCout = Long.MAX_VALUE;
+                for (int k = 0; k < nbTech; k++) {
+                    int t = (depart + k) % nbTech;
+                    if (p.occupe()[t][jour] || occupant[t][jour] >= 0) {
+                        continue;
+                    }
+                    long cout = 2L * charge[t] + 1 + (nouvelleZone(t, p.zones()[c]) ? POIDS_ZONE : 0);
+                    if (cout < meilleurCout) {
+                        meilleurCout = cout;
+                        meilleur = t;
+                    }
+                }
+                if (meilleur >= 0) {
+                    affecter(c, meilleur);
+                    affectes[nbAffectes++] = c;
+                }
+            }
+        }
+
+        /**
+         * Déplace un chantier vers un technicien libre le même jour, ou l'échange avec celui qu'il a ce jour-là,
+         * si le score ne se dégrade pas (les égalités permettent de traverser les plateaux).
+         */
+        private void ameliorer() {
+            int c = affectes[random.nextInt(nbAffectes)];
+            int jour = p.jours()[c];
+            int a = technicien[c];
+            int b = random.nextInt(p.nbTechniciens());
+            if (b == a || p.occupe()[b][jour]) {
+                return;
+            }
+            int autre = occupant[b][jour];
+            int zone = p.zones()[c];
+
+            if (autre < 0) {
+                long delta = 2L * (charge[b] - charge[a]) + 2;
+                if (p.proximite() && zone >= 0) {
+                    delta += (parZone[b][zone] == 0 ? POIDS_ZONE : 0) - (parZone[a][zone] == 1 ? POIDS_ZONE : 0);
+                }
+                if (delta <= 0) {
+                    retirer(c);
+                    affecter(c, b);
+                }
+                return;
+            }
+
+            int zoneAutre = p.zones()[autre];
+            if (!p.proximite() || zone == zoneAutre) {
+                return;
+            }
+            retirer(c);
+            retirer(autre);
+            long avant = zonesDistinctes(a) + zonesDistinctes(b);
+            affecter(c, b);
+            affecter(autre, a);
+            long apres = zonesDistinctes(a) + zonesDistinctes(b);
+            if (apres > avant) {
+                retirer(c);
+                retirer(autre);
+                affecter(c, a);
+                affecter(autre, b);
+            }
+        }
+
+        private boolean nouvelleZone(int t, int zone) {
+            return p.proximite() && zone >= 0 && parZone[t][zone] == 0;
+        }
+
+        private int zonesDistinctes(int t) {
+            if (!p.proximite()) {
+                return 0;
+            }
+            int total = 0;
+            for (int count : parZone[t]) {
+                if (count > 0) {
+                    total++;
+                }
+            }
+            return total;
+        }
+
+        private void affecter(int c, int t) {
+            technicien[c] = t;
+            occupant[t][p.jours()[c]] = c;
+            charge[t]++;
+            if (p.zones()[c] >= 0) {
+                parZone[t][p.zones()[c]]++;
+            }
+        }
+
+        private void retirer(int c) {
+            int t = technicien[c];
+            technicien[c] = -1;
+            occupant[t][p.jours()[c]] = -1;
+            charge[t]--;
+            if (p.zones()[c] >= 0) {
+                parZone[t][p.zones()[c]]--;
+            }
+        }
+
+        private long score() {
+            long score = (long) (p.nbChantiers() - nbAffectes) * POIDS_NON_AFFECTE;
+            for (int t = 0; t < p.nbTechniciens(); t++) {
+                score += (long) charge[t] * charge[t] + (long) POIDS_ZONE * zonesDistinctes(t);
+            }
+            return score;
+        }
+    }
+}
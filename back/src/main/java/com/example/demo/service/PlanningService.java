@@ -0,0 +1,485 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PlanningOptimisationRequest.ChantierAPlanifier;
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.entity.Technicien;
+import com.example.demo.repository.ChantierRepository;
+import com.example.demo.repository.TechnicienRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index en mémoire du planning : technicien → date d'intervention → chantiers.
+ * Construit au démarrage par une requête en flux, tenu à jour par les contrôleurs à chaque écriture
+ * et recalé périodiquement comme les compteurs du tableau de bord. Les lectures ne font aucune requête SQL.
+ * Les chantiers refusés n'occupent pas le technicien. Les écritures d'une transaction encore ouverte (lot de
+ * synchronisation) ne sont visibles que des contrôles de conflit de cette même transaction.
+ * Dans une transaction d'écriture, le contrôle de conflit prend un verrou par technicien et relit la base : deux
+ * écritures concurrentes sur le même créneau ne passent pas toutes les deux.
+ */
+@Service
+public class PlanningService {
+
+    // Espace des verrous pg_advisory_xact_lock(espace, technicien) des contrôles de conflit.
+    private static final int VERROU_PLANNING = 0x506c616e;
+    // Code postal français : la zone retenue est le département (3 chiffres outre-mer).
+    private static final Pattern CODE_POSTAL = Pattern.compile("\\b\\d{5}\\b");
+
+    private final ChantierRepository chantierRepository;
+    private final TechnicienRepository technicienRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int parallelisme;
+    // Threads dédiés aux recherches, hors du pool fork-join commun ; nombre d'optimisations simultanées borné.
+    private final ExecutorService optimiseur;
+    private final Semaphore optimisations;
+
+    private final Object lock = new Object();
+    private Map<Long, NavigableMap<LocalDate, Set<Long>>> parTechnicien = new HashMap<>();
+    private Map<Long, Affectation> parChantier = new HashMap<>();
+    private NavigableMap<Long, TechnicienInfo> techniciens = new TreeMap<>();
+    // Écritures reçues pendant une reconstruction (dernier état connu, null : supprimé), rejouées sur le nouvel
+    // index avant qu'il ne remplace l'ancien : la lecture en flux a pu les manquer.
+    private Map<Long, Affectation> chantiersPendantReconstruction;
+    private Map<Long, TechnicienInfo> techniciensPendantReconstruction;
+    private final Object reconstruction = new Object();
+
+    public PlanningService(
+            ChantierRepository chantierRepository,
+            TechnicienRepository technicienRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${planning.optimize.parallelism:0}") int parallelisme,
+            @Value("${planning.optimize.max-concurrent:2}") int maxOptimisations
+    ) {
+        this.chantierRepository = chantierRepository;
+        this.technicienRepository = technicienRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallelisme = parallelisme > 0 ? parallelisme : Runtime.getRuntime().availableProcessors();
+        this.optimiseur = Executors.newFixedThreadPool(this.parallelisme,
+                Thread.ofPlatform().daemon().name("planning-optimizer-", 0).factory());
+        this.optimisations = new Semaphore(maxOptimisations);
+    }
+
+    @PreDestroy
+    void stop() {
+        optimiseur.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            fixedDelayString = "${planning.reconcile-interval-ms:300000}",
+            initialDelayString = "${planning.reconcile-interval-ms:300000}"
+    )
+    public void rebuild() {
+        synchronized (reconstruction) {
+            synchronized (lock) {
+                chantiersPendantReconstruction = new HashMap<>();
+                techniciensPendantReconstruction = new HashMap<>();
+            }
+            try {
+                Map<Long, NavigableMap<LocalDate, Set<Long>>> index = new HashMap<>();
+                Map<Long, Affectation> affectations = new HashMap<>();
+                NavigableMap<Long, TechnicienInfo> infos = new TreeMap<>();
+                technicienRepository.findAll().forEach(t -> infos.put(t.getId(), TechnicienInfo.from(t)));
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (var rows = chantierRepository.streamAffectations(ChantierStatut.REFUSE)) {
+                        rows.forEach(row -> {
+                            Affectation affectation = new Affectation(row.getTechnicienId(), row.getDateIntervention());
+                            affectations.put(row.getId(), affectation);
+                            add(index, row.getId(), affectation);
+                        });
+                    }
+                });
+
+                synchronized (lock) {
+                    chantiersPendantReconstruction.forEach((id, affectation) ->
+                            affecter(index, affectations, id, affectation));
+                    techniciensPendantReconstruction.forEach((id, info) -> {
+                        if (info == null) {
+                            infos.remove(id);
+                        } else {
+                            infos.put(id, info);
+                        }
+                    });
+                    parTechnicien = index;
+                    parChantier = affectations;
+                    techniciens = infos;
+                }
+            } finally {
+                synchronized (lock) {
+                    chantiersPendantReconstruction = null;
+                    techniciensPendantReconstruction = null;
+                }
+            }
+        }
+    }
+
+    public void chantierSaved(Chantier chantier) {
+        Affectation affectation = affectationOf(chantier);
+        synchronized (lock) {
+            affecter(parTechnicien, parChantier, chantier.getId(), affectation);
+            if (chantiersPendantReconstruction != null) {
+                chantiersPendantReconstruction.put(chantier.getId(), affectation);
+            }
+        }
+    }
+
+    public void chantierDeleted(Long chantierId) {
+        synchronized (lock) {
+            affecter(parTechnicien, parChantier, chantierId, null);
+            if (chantiersPendantReconstruction != null) {
+                chantiersPendantReconstruction.put(chantierId, null);
+            }
+        }
+    }
+
+    /**
+     * Écriture faite dans la transaction courante, pas encore validée : les contrôles {@link #conflit} suivants de
+     * la même transaction en tiennent compte jusqu'au commit, où {@link #chantierSaved} met l'index à jour.
+     * Sans transaction, l'écriture est déjà validée et rien n'est retenu.
+     */
+    public void chantierSavedInTransaction(Chantier chantier) {
+        Map<Long, Affectation> enAttente = enAttente(true);
+        if (enAttente != null) {
+            enAttente.put(chantier.getId(), affectationOf(chantier));
+        }
+    }
+
+    public void chantierDeletedInTransaction(Long chantierId) {
+        Map<Long, Affectation> enAttente = enAttente(true);
+        if (enAttente != null) {
+            enAttente.put(chantierId, null);
+        }
+    }
+
+    public void technicienSaved(Technicien technicien) {
+        TechnicienInfo info = TechnicienInfo.from(technicien);
+        synchronized (lock) {
+            techniciens.put(technicien.getId(), info);
+            if (techniciensPendantReconstruction != null) {
+                techniciensPendantReconstruction.put(technicien.getId(), info);
+            }
+        }
+    }
+
+    public void technicienDeleted(Long technicienId) {
+        synchronized (lock) {
+            techniciens.remove(technicienId);
+            if (techniciensPendantReconstruction != null) {
+                techniciensPendantReconstruction.put(technicienId, null);
+            }
+        }
+    }
+
+    /**
+     * Chantiers qui occupent déjà ce technicien à cette date, hors le chantier en cours de modification.
+     * Un chantier refusé ou sans date/technicien n'entre jamais en conflit.
+     */
+    public Conflit conflit(Long technicienId, LocalDate date, ChantierStatut statut, Long chantierId) {
+        if (technicienId == null || date == null || statut == ChantierStatut.REFUSE) {
+            return null;
+        }
+        // Gardé jusqu'au commit de l'écriture : le contrôle concurrent du même technicien attend qu'elle soit visible.
+        boolean sousVerrou = TransactionSynchronizationManager.isActualTransactionActive();
+        if (sousVerrou) {
+            chantierRepository.advisoryXactLock(VERROU_PLANNING, Long.hashCode(technicienId));
+        }
+        // Un chantier écrit plus tôt dans la transaction compte à sa nouvelle place, plus à celle de l'index.
+        Map<Long, Affectation> enAttente = enAttente(false);
+        List<Long> autres = new ArrayList<>();
+        synchronized (lock) {
+            var jours = parTechnicien.get(technicienId);
+            Set<Long> occupes = jours == null ? null : jours.get(date);
+            if (occupes != null) {
+                for (Long id : occupes) {
+                    if (!id.equals(chantierId) && (enAttente == null || !enAttente.containsKey(id))) {
+                        autres.add(id);
+                    }
+                }
+            }
+        }
+        if (enAttente != null) {
+            Affectation cible = new Affectation(technicienId, date);
+            enAttente.forEach((id, affectation) -> {
+                if (!id.equals(chantierId) && cible.equals(affectation)) {
+                    autres.add(id);
+                }
+            });
+        }
+        if (sousVerrou) {
+            // L'index n'est mis à jour qu'après le commit, donc après la libération du verrou : une écriture que
+            // l'on vient d'attendre n'y est peut-être pas encore. La base fait foi.
+            for (Long id : chantierRepository.findIdsByTechnicienAndDate(technicienId, date, ChantierStatut.REFUSE)) {
+                if (!id.equals(chantierId) && (enAttente == null || !enAttente.containsKey(id)) && !autres.contains(id)) {
+                    autres.add(id);
+                }
+            }
+        }
+        return autres.isEmpty() ? null : new Conflit(technicienId, date, autres);
+    }
+
+    public Planning planning(LocalDate from, LocalDate to) {
+        synchronized (lock) {
+            List<PlanningTechnicien> lignes = new ArrayList<>(techniciens.size());
+            for (TechnicienInfo technicien : techniciens.values()) {
+                var jours = parTechnicien.get(technicien.id());
+                SortedMap<LocalDate, List<Long>> periode = new TreeMap<>();
+                int total = 0;
+                if (jours != null) {
+                    for (var jour : jours.subMap(from, true, to, true).entrySet()) {
+                        periode.put(jour.getKey(), List.copyOf(jour.getValue()));
+                        total += jour.getValue().size();
+                    }
+                }
+                lignes.add(new PlanningTechnicien(technicien.id(), technicien.nom(), technicien.prenom(), total, periode));
+            }
+            return new Planning(from, to, lignes);
+        }
+    }
+
+    public List<TechnicienInfo> disponibles(LocalDate date) {
+        synchronized (lock) {
+            return techniciens.values().stream()
+                    .filter(t -> !parTechnicien.getOrDefault(t.id(), Collections.emptyNavigableMap()).containsKey(date))
+                    .toList();
+        }
+    }
+
+    /**
+     * Propose un technicien pour chaque chantier, sans rien enregistrer : les jours déjà occupés dans l'index
+     * sont exclus et la charge existante sur la période compte dans l'équilibrage.
+     * Les identifiants inconnus du pool sont ignorés.
+     *
+     * @return null si planning.optimize.max-concurrent optimisations sont déjà en cours
+     */
+    public Optimisation optimiser(List<ChantierAPlanifier> chantiers, List<Long> technicienIds, boolean proximite, long budgetMs) {
+        if (!optimisations.tryAcquire()) {
+            return null;
+        }
+        try {
+            return calculer(chantiers, technicienIds, proximite, budgetMs);
+        } finally {
+            optimisations.release();
+        }
+    }
+
+    private Optimisation calculer(List<ChantierAPlanifier> chantiers, List<Long> technicienIds, boolean proximite, long budgetMs) {
+        long debut = System.nanoTime();
+        List<Integer> planifiables = new ArrayList<>();
+        List<NonAffecte> nonAffectes = new ArrayList<>();
+        TreeMap<LocalDate, Integer> jours = new TreeMap<>();
+        for (int i = 0; i < chantiers.size(); i++) {
+            ChantierAPlanifier chantier = chantiers.get(i);
+            if (chantier.dateIntervention() == null) {
+                nonAffectes.add(new NonAffecte(i, chantier.reference(), "Date d'intervention manquante"));
+            } else {
+                planifiables.add(i);
+                jours.put(chantier.dateIntervention(), 0);
+            }
+        }
+        int j = 0;
+        for (var jour : jours.entrySet()) {
+            jour.setValue(j++);
+        }
+
+        Map<String, Integer> zonesConnues = new HashMap<>();
+        int[] joursParChantier = new int[planifiables.size()];
+        int[] zonesParChantier = new int[planifiables.size()];
+        for (int k = 0; k < planifiables.size(); k++) {
+            ChantierAPlanifier chantier = chantiers.get(planifiables.get(k));
+            joursParChantier[k] = jours.get(chantier.dateIntervention());
+            String zone = zone(chantier.adresse());
+            zonesParChantier[k] = zone == null ? -1 : zonesConnues.computeIfAbsent(zone, z -> zonesConnues.size());
+        }
+
+        List<Long> pool;
+        boolean[][] occupe;
+        int[] charge;
+        synchronized (lock) {
+            pool = technicienIds == null || technicienIds.isEmpty()
+                    ? List.copyOf(techniciens.keySet())
+                    : technicienIds.stream().distinct().filter(techniciens::containsKey).toList();
+            occupe = new boolean[pool.size()][jours.size()];
+            charge = new int[pool.size()];
+            for (int t = 0; t < pool.size() && !jours.isEmpty(); t++) {
+                var planning = parTechnicien.get(pool.get(t));
+                if (planning == null) {
+                    continue;
+                }
+                for (var jour : planning.subMap(jours.firstKey(), true, jours.lastKey(), true).entrySet()) {
+                    charge[t] += jour.getValue().size();
+                    Integer indice = jours.get(jour.getKey());
+                    if (indice != null) {
+                        occupe[t][indice] = true;
+                    }
+                }
+            }
+        }
+
+        var probleme = new PlanningOptimizer.Probleme(joursParChantier, zonesParChantier, jours.size(),
+                zonesConnues.size(), occupe, charge, proximite);
+        var solution = PlanningOptimizer.solve(probleme, budgetMs, parallelisme, optimiseur);
+
+        List<AffectationProposee> affectations = new ArrayList<>();
+        Map<Long, Integer> chargeParTechnicien = new TreeMap<>();
+        for (int k = 0; k < planifiables.size(); k++) {
+            int index = planifiables.get(k);
+            ChantierAPlanifier chantier = chantiers.get(index);
+            int t = solution.techniciens()[k];
+            if (t < 0) {
+                nonAffectes.add(new NonAffecte(index, chantier.reference(), "Aucun technicien libre ce jour-là"));
+            } else {
+                affectations.add(new AffectationProposee(index, chantier.reference(), chantier.dateIntervention(), pool.get(t)));
+                chargeParTechnicien.merge(pool.get(t), 1, Integer::sum);
+            }
+        }
+        nonAffectes.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        return new Optimisation(affectations, nonAffectes, chargeParTechnicien, solution.score(),
+                solution.iterations(), (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    static String zone(String adresse) {
+        if (adresse == null) {
+            return null;
+        }
+        Matcher matcher = CODE_POSTAL.matcher(adresse);
+        if (!matcher.find()) {
+            return null;
+        }
+        String codePostal = matcher.group();
+        return codePostal.substring(0, codePostal.startsWith("97") ? 3 : 2);
+    }
+
+    // Affectations écrites dans la transaction courante (null : chantier supprimé ou libéré), oubliées à sa fin.
+    @SuppressWarnings("unchecked")
+    private Map<Long, Affectation> enAttente(boolean creer) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        var enAttente = (Map<Long, Affectation>) TransactionSynchronizationManager.getResource(this);
+        if (enAttente == null && creer) {
+            enAttente = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, enAttente);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PlanningService.this);
+                }
+            });
+        }
+        return enAttente;
+    }
+
+    private static Affectation affectationOf(Chantier chantier) {
+        if (chantier.getDateIntervention() == null || chantier.getTechnicien() == null
+                || chantier.getStatut() == ChantierStatut.REFUSE) {
+            return null;
+        }
+        return new Affectation(chantier.getTechnicien().getId(), chantier.getDateIntervention());
+    }
+
+    // Place le chantier à sa nouvelle affectation, ou le retire de l'index si elle est nulle.
+    private static void affecter(Map<Long, NavigableMap<LocalDate, Set<Long>>> index, Map<Long, Affectation> affectations,
+                                 Long chantierId, Affectation affectation) {
+        Affectation ancienne = affectation == null
+                ? affectations.remove(chantierId)
+                : affectations.put(chantierId, affectation);
+        if (ancienne != null) {
+            remove(index, chantierId, ancienne);
+        }
+        if (affectation != null) {
+            add(index, chantierId, affectation);
+        }
+    }
+
+    private static void add(Map<Long, NavigableMap<LocalDate, Set<Long>>> index, Long chantierId, Affectation affectation) {
+        index.computeIfAbsent(affectation.technicienId(), id -> new TreeMap<>())
+                .computeIfAbsent(affectation.date(), d -> new TreeSet<>())
+                .add(chantierId);
+    }
+
+    private static void remove(Map<Long, NavigableMap<LocalDate, Set<Long>>> index, Long chantierId, Affectation affectation) {
+        var jours = index.get(affectation.technicienId());
+        if (jours == null) {
+            return;
+        }
+        Set<Long> chantiers = jours.get(affectation.date());
+        if (chantiers != null && chantiers.remove(chantierId) && chantiers.isEmpty()) {
+            jours.remove(affectation.date());
+        }
+    }
+
+    private record Affectation(Long technicienId, LocalDate date) {
+    }
+
+    public record TechnicienInfo(Long id, String nom, String prenom) {
+
+        static TechnicienInfo from(Technicien technicien) {
+            return new TechnicienInfo(technicien.getId(), technicien.getNom(), technicien.getPrenom());
+        }
+    }
+
+    public record Conflit(Long technicienId, LocalDate date, List<Long> chantierIds) {
+    }
+
+    public record PlanningTechnicien(
+            Long technicienId,
+            String nom,
+            String prenom,
+            int total,
+            SortedMap<LocalDate, List<Long>> jours
+    ) {
+    }
+
+    public record Planning(LocalDate from, LocalDate to, List<PlanningTechnicien> techniciens) {
+    }
+
+    /**
+     * @param index position du chantier dans la requête
+     */
+    public record AffectationProposee(int index, String reference, LocalDate dateIntervention, Long technicienId) {
+    }
+
+    public record NonAffecte(int index, String reference, String motif) {
+    }
+
+    /**
+     * @param chargeParTechnicien nouveaux chantiers proposés par technicien
+     * @param score               somme des carrés des charges (+ zones par technicien), plus bas = meilleur
+     */
+    public record Optimisation(
+            List<AffectationProposee> affectations,
+            List<NonAffecte> nonAffectes,
+            Map<Long, Integer> chargeParTechnicien,
+            long score,
+            long iterations,
+            long dureeMs
+    ) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.TechnicienRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Lecture en cache des clients et techniciens référencés par les chantiers.
+ * Les instances renvoyées sont détachées et partagées : à utiliser comme références, jamais à modifier.
+ * Les contrôleurs Client/Technicien évincent l'entrée à chaque modification ou suppression.
+ */
+@Service
+public class ReferenceCache {
+
+    public static final String CLIENTS = "clients";
+    public static final String TECHNICIENS = "techniciens";
+
+    private final ClientRepository clientRepository;
+    private final TechnicienRepository technicienRepository;
+
+    public ReferenceCache(ClientRepository clientRepository, TechnicienRepository technicienRepository) {
+        this.clientRepository = clientRepository;
+        this.technicienRepository = technicienRepository;
+    }
+
+    @Cacheable(cacheNames = CLIENTS, unless = "#result == null")
+    public Client findClient(Long id) {
+        return id == null ? null : clientRepository.findById(id).orElse(null);
+    }
+
+    @Cacheable(cacheNames = TECHNICIENS, unless = "#result == null")
+    public Technicien findTechnicien(Long id) {
+        return id == null ? null : technicienRepository.findById(id).orElse(null);
+    }
+
+    @CacheEvict(cacheNames = CLIENTS)
+    public void evictClient(Long id) {
+    }
+
+    @CacheEvict(cacheNames = TECHNICIENS)
+    public void evictTechnicien(Long id) {
+    }
+}
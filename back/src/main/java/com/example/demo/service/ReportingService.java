@@ -0,0 +1,350 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ChantierStatut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rapports mensuels (statut, technicien, type d'installation) servis depuis des tables d'agrégats.
+ * Le rafraîchissement ne relit que les chantiers modifiés depuis le dernier filigrane (avec un recouvrement
+ * pour les transactions validées en retard) et les suppressions du journal des chantiers ; il applique des
+ * deltas par rapport à l'état déjà compté, ce qui le rend rejouable. Reconstruction complète la nuit.
+ */
+@Service
+public class ReportingService {
+
+    private static final String FILIGRANE = "chantiers";
+    // Verrou consultatif : un seul rafraîchissement à la fois, y compris entre instances.
+    private static final long VERROU = 0x5261707073L;
+    private static final int LOT_IDS = 10_000;
+    private static final LocalDateTime ORIGINE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String MOIS = "date_trunc('month', COALESCE(c.date_intervention, c.created_at))::date";
+    private static final String MODIFIE_LE = "COALESCE(c.updated_at, c.created_at)";
+
+    private static final String SELECT_MODIFIES = "SELECT c.id, " + MOIS + " AS mois, c.technicien_id, c.statut, "
+            + "COALESCE(c.type_installation, '') AS type_installation, " + MODIFIE_LE + " AS modifie_le "
+            + "FROM chantiers c WHERE " + MODIFIE_LE + " > ?";
+    private static final String UPSERT_ETAT = """
+            INSERT INTO rapport_chantiers_etat (chantier_id, mois, technicien_id, statut, type_installation)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (chantier_id) DO UPDATE SET mois = EXCLUDED.mois, technicien_id = EXCLUDED.technicien_id,
+                statut = EXCLUDED.statut, type_installation = EXCLUDED.type_installation
+            """;
+    private static final String UPSERT_MENSUEL = """
+            INSERT INTO rapport_chantiers_mensuel (mois, technicien_id, statut, type_installation, total)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (mois, technicien_id, statut, type_installation)
+            DO UPDATE SET total = rapport_chantiers_mensuel.total + EXCLUDED.total
+            """;
+    private static final String UPSERT_FILIGRANE = """
+            INSERT INTO rapport_watermarks (nom, modifie_le, evenement_id, rafraichi_le) VALUES (?, ?, ?, ?)
+            ON CONFLICT (nom) DO UPDATE SET modifie_le = EXCLUDED.modifie_le, evenement_id = EXCLUDED.evenement_id,
+                rafraichi_le = EXCLUDED.rafraichi_le
+            """;
+
+    private static final RowMapper<Dimensions> DIMENSIONS = (rs, i) -> new Dimensions(
+            rs.getObject("mois", LocalDate.class),
+            rs.getLong("technicien_id"),
+            rs.getString("statut"),
+            rs.getString("type_installation")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChantierAuditLog auditLog;
+    private final Duration recouvrement;
+
+    public ReportingService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ChantierAuditLog auditLog,
+            @Value("${reports.watermark-overlap-ms:60000}") long recouvrementMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.auditLog = auditLog;
+        this.recouvrement = Duration.ofMillis(recouvrementMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            fixedDelayString = "${reports.refresh-interval-ms:60000}",
+            initialDelayString = "${reports.refresh-interval-ms:60000}"
+    )
+    public void rafraichirPeriodiquement() {
+        refresh(false);
+    }
+
+    // Rattrape ce que l'incrémental ne voit pas (suppressions hors application, horloges décalées).
+    @Scheduled(cron = "${reports.full-rebuild-cron:0 30 3 * * *}")
+    public void reconstruireLaNuit() {
+        refresh(true);
+    }
+
+    public Rafraichissement refresh(boolean complet) {
+        long debut = System.nanoTime();
+        // Les suppressions sont lues dans le journal : on y pousse d'abord ce qui attend en file.
+        auditLog.flush();
+        Rafraichissement resultat = transactionTemplate.execute(status -> {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> null, VERROU);
+            List<Filigrane> filigranes = jdbcTemplate.query(
+                    "SELECT modifie_le, evenement_id FROM rapport_watermarks WHERE nom = ?",
+                    (rs, i) -> new Filigrane(toLocalDateTime(rs.getTimestamp("modifie_le")), rs.getLong("evenement_id")),
+                    FILIGRANE
+            );
+            return complet || filigranes.isEmpty() ? reconstruire() : appliquerDeltas(filigranes.get(0));
+        });
+        return resultat.avecDuree((System.nanoTime() - debut) / 1_000_000);
+    }
+
+    private Rafraichissement reconstruire() {
+        // Filigranes lus avant la copie : ce qui arrive entre-temps sera simplement recompté au prochain passage.
+        LocalDateTime modifieLe = toLocalDateTime(jdbcTemplate.queryForObject(
+                "SELECT MAX(" + MODIFIE_LE + ") FROM chantiers c", Timestamp.class));
+        Long evenementId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM chantier_evenements", Long.class);
+
+        // DELETE plutôt que TRUNCATE : les lectures de rapport continuent sur l'ancienne version pendant la copie.
+        jdbcTemplate.update("DELETE FROM rapport_chantiers_mensuel");
+        jdbcTemplate.update("DELETE FROM rapport_chantiers_etat");
+        // Les chantiers archivés restent comptés : l'archivage ne passe pas par le journal, l'incrémental non plus.
+        int chantiers = jdbcTemplate.update("INSERT INTO rapport_chantiers_etat "
+                + "(chantier_id, mois, technicien_id, statut, type_installation) "
+                + "SELECT c.id, " + MOIS + ", c.technicien_id, c.statut, COALESCE(c.type_installation, '') FROM ("
+                + "SELECT id, date_intervention, created_at, technicien_id, statut, type_installation FROM chantiers "
+                + "UNION ALL "
+                + "SELECT id, date_intervention, created_at, technicien_id, statut, type_installation FROM chantiers_archives"
+                + ") c");
+        jdbcTemplate.update("""
+                INSERT INTO rapport_chantiers_mensuel (mois, technicien_id, statut, type_installation, total)
+                SELECT mois, technicien_id, statut, type_installation, COUNT(*)
+                FROM rapport_chantiers_etat
+                GROUP BY mois, technicien_id, statut, type_installation
+                """);
+        enregistrerFiligrane(modifieLe, evenementId);
+        return new Rafraichissement(true, chantiers, 0, modifieLe, 0);
+    }
+
+    private Rafraichissement appliquerDeltas(Filigrane filigrane) {
+        LocalDateTime depuis = filigrane.modifieLe() == null ? ORIGINE : filigrane.modifieLe().minus(recouvrement);
+        Map<Long, Dimensions> modifies = new LinkedHashMap<>();
+        LocalDateTime[] modifieLe = {filigrane.modifieLe()};
+        jdbcTemplate.query(SELECT_MODIFIES, rs -> {
+            modifies.put(rs.getLong("id"), DIMENSIONS.mapRow(rs, 0));
+            LocalDateTime date = rs.getTimestamp("modifie_le").toLocalDateTime();
+            if (modifieLe[0] == null || date.isAfter(modifieLe[0])) {
+                modifieLe[0] = date;
+            }
+        }, Timestamp.valueOf(depuis));
+
+        long[] evenementId = {filigrane.evenementId()};
+        List<Long> supprimes = new ArrayList<>();
+        jdbcTemplate.query(
+                "SELECT id, chantier_id FROM chantier_evenements WHERE id > ? AND type = 'SUPPRESSION' ORDER BY id",
+                rs -> {
+                    supprimes.add(rs.getLong("chantier_id"));
+                    evenementId[0] = rs.getLong("id");
+                },
+                filigrane.evenementId()
+        );
+        // Les ids ne sont jamais réutilisés : un chantier lu comme modifié puis supprimé est retiré.
+        supprimes.forEach(modifies::remove);
+
+        List<Long> ids = new ArrayList<>(modifies.keySet());
+        ids.addAll(supprimes);
+        Map<Long, Dimensions> comptes = etatCompte(ids);
+
+        Map<Dimensions, Long> deltas = new HashMap<>();
+        List<Map.Entry<Long, Dimensions>> aEcrire = new ArrayList<>();
+        for (var modifie : modifies.entrySet()) {
+            Dimensions ancien = comptes.get(modifie.getKey());
+            if (modifie.getValue().equals(ancien)) {
+                continue;
+            }
+            if (ancien != null) {
+                deltas.merge(ancien, -1L, Long::sum);
+            }
+            deltas.merge(modifie.getValue(), 1L, Long::sum);
+            aEcrire.add(modifie);
+        }
+        List<Long> aRetirer = new ArrayList<>();
+        for (Long id : supprimes) {
+            Dimensions ancien = comptes.get(id);
+            if (ancien != null) {
+                deltas.merge(ancien, -1L, Long::sum);
+                aRetirer.add(id);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_ETAT, aEcrire, 500, (ps, e) -> {
+            ps.setLong(1, e.getKey());
+            setDimensions(ps, 2, e.getValue());
+        });
+        jdbcTemplate.batchUpdate("DELETE FROM rapport_chantiers_etat WHERE chantier_id = ?", aRetirer, 500,
+                (ps, id) -> ps.setLong(1, id));
+
+        List<Map.Entry<Dimensions, Long>> variations = deltas.entrySet().stream().filter(e -> e.getValue() != 0).toList();
+        jdbcTemplate.batchUpdate(UPSERT_MENSUEL, variations, 500, (ps, e) -> {
+            setDimensions(ps, 1, e.getKey());
+            ps.setLong(5, e.getValue());
+        });
+        List<Dimensions> enBaisse = variations.stream().filter(e -> e.getValue() < 0).map(Map.Entry::getKey).toList();
+        jdbcTemplate.batchUpdate("""
+                DELETE FROM rapport_chantiers_mensuel
+                WHERE mois = ? AND technicien_id = ? AND statut = ? AND type_installation = ? AND total <= 0
+                """, enBaisse, 500, (ps, d) -> setDimensions(ps, 1, d));
+
+        enregistrerFiligrane(modifieLe[0], evenementId[0]);
+        return new Rafraichissement(false, aEcrire.size(), aRetirer.size(), modifieLe[0], 0);
+    }
+
+    private Map<Long, Dimensions> etatCompte(List<Long> ids) {
+        Map<Long, Dimensions> comptes = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += LOT_IDS) {
+            Long[] lot = ids.subList(i, Math.min(ids.size(), i + LOT_IDS)).toArray(Long[]::new);
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("SELECT chantier_id, mois, technicien_id, statut, type_installation "
+                        + "FROM rapport_chantiers_etat WHERE chantier_id = ANY(?)");
+                ps.setArray(1, con.createArrayOf("bigint", lot));
+                return ps;
+            }, (RowCallbackHandler) rs -> comptes.put(rs.getLong("chantier_id"), DIMENSIONS.mapRow(rs, 0)));
+        }
+        return comptes;
+    }
+
+    private void enregistrerFiligrane(LocalDateTime modifieLe, long evenementId) {
+        jdbcTemplate.update(UPSERT_FILIGRANE, FILIGRANE, modifieLe == null ? null : Timestamp.valueOf(modifieLe),
+                evenementId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private static void setDimensions(PreparedStatement ps, int index, Dimensions d) throws SQLException {
+        ps.setObject(index, d.mois());
+        ps.setLong(index + 1, d.technicienId());
+        ps.setString(index + 2, d.statut());
+        ps.setString(index + 3, d.typeInstallation());
+    }
+
+    public Rapport<RapportMensuel> mensuel(YearMonth from, YearMonth to) {
+        Map<YearMonth, Map<ChantierStatut, Long>> parMois = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT mois, statut, SUM(total) AS total FROM rapport_chantiers_mensuel
+                WHERE mois BETWEEN ? AND ?
+                GROUP BY mois, statut
+                ORDER BY mois
+                """, rs -> {
+            YearMonth mois = YearMonth.from(rs.getObject("mois", LocalDate.class));
+            parMois.computeIfAbsent(mois, m -> new EnumMap<>(ChantierStatut.class))
+                    .put(ChantierStatut.valueOf(rs.getString("statut")), rs.getLong("total"));
+        }, from.atDay(1), to.atDay(1));
+        List<RapportMensuel> lignes = parMois.entrySet().stream()
+                .map(e -> new RapportMensuel(e.getKey(), e.getValue(), somme(e.getValue())))
+                .toList();
+        return new Rapport<>(from, to, rafraichiLe(), lignes);
+    }
+
+    public Rapport<RapportTechnicien> parTechnicien(YearMonth from, YearMonth to) {
+        Map<Long, RapportTechnicien> parTechnicien = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT m.technicien_id, t.nom, t.prenom, m.statut, SUM(m.total) AS total
+                FROM rapport_chantiers_mensuel m
+                LEFT JOIN techniciens t ON t.id = m.technicien_id
+                WHERE m.mois BETWEEN ? AND ?
+                GROUP BY m.technicien_id, t.nom, t.prenom, m.statut
+                ORDER BY m.technicien_id
+                """, rs -> {
+            Long id = rs.getLong("technicien_id");
+            String nom = rs.getString("nom");
+            String prenom = rs.getString("prenom");
+            RapportTechnicien ligne = parTechnicien.computeIfAbsent(id,
+                    t -> new RapportTechnicien(t, nom, prenom, new EnumMap<>(ChantierStatut.class), 0));
+            ligne.parStatut().put(ChantierStatut.valueOf(rs.getString("statut")), rs.getLong("total"));
+        }, from.atDay(1), to.atDay(1));
+        List<RapportTechnicien> lignes = parTechnicien.values().stream()
+                .map(l -> new RapportTechnicien(l.technicienId(), l.nom(), l.prenom(), l.parStatut(), somme(l.parStatut())))
+                .toList();
+        return new Rapport<>(from, to, rafraichiLe(), lignes);
+    }
+
+    public Rapport<RapportInstallation> parInstallation(YearMonth from, YearMonth to) {
+        List<RapportInstallation> lignes = jdbcTemplate.query("""
+                        SELECT type_installation, SUM(total) AS total FROM rapport_chantiers_mensuel
+                        WHERE mois BETWEEN ? AND ?
+                        GROUP BY type_installation
+                        ORDER BY total DESC, type_installation
+                        """,
+                (rs, i) -> new RapportInstallation(
+                        rs.getString("type_installation").isEmpty() ? null : rs.getString("type_installation"),
+                        rs.getLong("total")
+                ),
+                from.atDay(1), to.atDay(1)
+        );
+        return new Rapport<>(from, to, rafraichiLe(), lignes);
+    }
+
+    private LocalDateTime rafraichiLe() {
+        return jdbcTemplate.query("SELECT rafraichi_le FROM rapport_watermarks WHERE nom = ?",
+                rs -> rs.next() ? rs.getTimestamp(1).toLocalDateTime() : null, FILIGRANE);
+    }
+
+    private static long somme(Map<ChantierStatut, Long> parStatut) {
+        return parStatut.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private record Dimensions(LocalDate mois, long technicienId, String statut, String typeInstallation) {
+    }
+
+    private record Filigrane(LocalDateTime modifieLe, long evenementId) {
+    }
+
+    /**
+     * @param modifies  chantiers dont les dimensions ont changé (tous en reconstruction complète)
+     * @param filigrane plus récente date de création/modification prise en compte
+     */
+    public record Rafraichissement(boolean complet, int modifies, int supprimes, LocalDateTime filigrane, long dureeMs) {
+
+        Rafraichissement avecDuree(long dureeMs) {
+            return new Rafraichissement(complet, modifies, supprimes, filigrane, dureeMs);
+        }
+    }
+
+    /**
+     * @param rafraichiLe dernier rafraîchissement des agrégats
+     */
+    public record Rapport<T>(YearMonth from, YearMonth to, LocalDateTime rafraichiLe, List<T> lignes) {
+    }
+
+    public record RapportMensuel(YearMonth mois, Map<ChantierStatut, Long> parStatut, long total) {
+    }
+
+    public record RapportTechnicien(Long technicienId, String nom, String prenom, Map<ChantierStatut, Long> parStatut, long total) {
+    }
+
+    public record RapportInstallation(String typeInstallation, long total) {
+    }
+}
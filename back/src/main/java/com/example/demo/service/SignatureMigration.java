@@ -0,0 +1,128 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Reprise des anciennes signatures stockées en base64 dans chantiers.signature_client : chaque valeur part dans le
+ * stockage de signatures et n'est effacée de la ligne qu'une fois le fichier relu à l'identique.
+ * La colonne n'est supprimée qu'à un démarrage ultérieur, quand plus aucune ligne n'y garde de valeur.
+ */
+@Component
+public class SignatureMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SignatureMigration.class);
+    private static final int BATCH = 100;
+    private static final Pattern BLANCS = Pattern.compile("\\s+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SignatureService signatureService;
+
+    public SignatureMigration(JdbcTemplate jdbcTemplate, SignatureService signatureService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.signatureService = signatureService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Boolean legacy = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (
+                    SELECT 1 FROM information_schema.columns
+                    WHERE table_schema = 'public' AND table_name = 'chantiers' AND column_name = 'signature_client'
+                )
+                """, Boolean.class);
+        if (!Boolean.TRUE.equals(legacy)) {
+            return;
+        }
+        Boolean restantes = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM chantiers WHERE signature_client IS NOT NULL)", Boolean.class);
+        if (!Boolean.TRUE.equals(restantes)) {
+            // Tout a été repris et vérifié lors d'un démarrage précédent.
+            jdbcTemplate.execute("ALTER TABLE chantiers DROP COLUMN signature_client");
+            log.info("Colonne chantiers.signature_client supprimée");
+            return;
+        }
+
+        int migrees = 0;
+        int echecs = 0;
+        long dernierId = 0;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList("""
+                    SELECT id, signature_client FROM chantiers
+                    WHERE signature_client IS NOT NULL AND id > ?
+                    ORDER BY id
+                    LIMIT ?
+                    """, dernierId, BATCH);
+            for (Map<String, Object> row : rows) {
+                Long id = ((Number) row.get("id")).longValue();
+                dernierId = id;
+                Signature signature = decode((String) row.get("signature_client"));
+                if (signature.contenu().length == 0) {
+                    // Valeur vide : rien à reprendre.
+                    jdbcTemplate.update("UPDATE chantiers SET signature_client = NULL WHERE id = ?", id);
+                    continue;
+                }
+                var stored = signatureService.store(new ByteArrayInputStream(signature.contenu()), Long.MAX_VALUE);
+                boolean verifiee = signatureService.install(stored, () -> {
+                    if (!signatureService.contient(stored.ref(), signature.contenu())) {
+                        return false;
+                    }
+                    jdbcTemplate.update("""
+                            UPDATE chantiers
+                            SET signature_ref = ?, signature_sha256 = ?, signature_content_type = ?,
+                                signature_client = NULL
+                            WHERE id = ?
+                            """, stored.ref(), stored.sha256(), signature.contentType(), id);
+                    return true;
+                });
+                if (verifiee) {
+                    migrees++;
+                } else {
+                    // La valeur reste dans la ligne : la colonne ne sera pas supprimée.
+                    log.error("Signature du chantier {} : fichier {} différent du contenu repris", id, stored.ref());
+                    echecs++;
+                }
+            }
+        } while (rows.size() == BATCH);
+
+        log.info("{} signature(s) déplacée(s) hors de la table chantiers, {} en échec ; la colonne signature_client "
+                + "sera supprimée au prochain démarrage si plus aucune ligne ne l'utilise", migrees, echecs);
+    }
+
+    /**
+     * Accepte une data URL ({@code data:image/png;base64,…}), du base64 brut (retours à la ligne permis), ou à défaut
+     * le texte tel quel. Le décodage est strict : un caractère hors de l'alphabet base64 garde la valeur en texte.
+     */
+    static Signature decode(String valeur) {
+        String contentType = "image/png";
+        String donnees = valeur.strip();
+        if (donnees.startsWith("data:") && donnees.contains(";base64,")) {
+            contentType = donnees.substring(5, donnees.indexOf(';'));
+            donnees = donnees.substring(donnees.indexOf(";base64,") + 8);
+        }
+        try {
+            byte[] contenu = Base64.getDecoder().decode(BLANCS.matcher(donnees).replaceAll(""));
+            if (contenu.length > 0) {
+                return new Signature(contenu, contentType);
+            }
+        } catch (IllegalArgumentException e) {
+            // Pas du base64 : texte brut.
+        }
+        return new Signature(valeur.getBytes(StandardCharsets.UTF_8), "text/plain;charset=UTF-8");
+    }
+
+    record Signature(byte[] contenu, String contentType) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.repository.ChantierRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Signatures clients stockées sur disque, adressées par contenu : la clé dérive du SHA-256 (ab/abcd…).
+ * Un fichier n'est jamais réécrit, l'empreinte sert donc d'ETag fort ; des signatures identiques partagent le fichier,
+ * qui n'est supprimé que lorsque plus aucun chantier ne le référence.
+ */
+@Service
+public class SignatureService {
+
+    private static final Pattern REF = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{64}");
+    private static final int VERROUS = 64;
+
+    private final ChantierRepository chantierRepository;
+    private final Path root;
+    private final long maxSize;
+    // Verrous par référence (répartis par hachage) : mise en place + enregistrement d'un côté, vérification
+    // « plus référencé » + suppression de l'autre.
+    private final Lock[] verrous = new Lock[VERROUS];
+
+    public SignatureService(
+            ChantierRepository chantierRepository,
+            @Value("${signatures.storage-dir:data/signatures}") Path root,
+            @Value("${signatures.max-size:2097152}") long maxSize
+    ) throws IOException {
+        this.chantierRepository = chantierRepository;
+        this.root = Files.createDirectories(root.toAbsolutePath());
+        this.maxSize = maxSize;
+        for (int i = 0; i < verrous.length; i++) {
+            verrous[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Copie le flux dans un fichier temporaire en calculant l'empreinte ; le fichier ne prend sa place définitive
+     * qu'au rattachement ({@link #attach}).
+     *
+     * @throws SignatureTooLargeException au-delà de {@code signatures.max-size}
+     * @throws IllegalArgumentException si le flux est vide
+     */
+    public StoredSignature store(InputStream body) throws IOException {
+        return store(body, maxSize);
+    }
+
+    StoredSignature store(InputStream body, long limit) throws IOException {
+        Path tmp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long taille = 0;
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = body.read(buffer)) != -1) {
+                    taille += n;
+                    if (taille > limit) {
+                        throw new SignatureTooLargeException(limit);
+                    }
+                    digest.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            }
+            if (taille == 0) {
+                throw new IllegalArgumentException("Signature vide");
+            }
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            return new StoredSignature(sha256.substring(0, 2) + "/" + sha256, sha256, taille, tmp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    /**
+     * Rattache la signature au chantier et libère l'éventuelle signature précédente.
+     * À appeler hors transaction : l'enregistrement doit être validé avant que le verrou de la référence tombe.
+     */
+    public Chantier attach(Chantier chantier, StoredSignature stored, String contentType) throws IOException {
+        String previous = chantier.getSignatureRef();
+        Chantier saved = install(stored, () -> {
+            chantier.setSignatureRef(stored.ref());
+            chantier.setSignatureSha256(stored.sha256());
+            chantier.setSignatureContentType(contentType);
+            chantier.setDateSignature(LocalDateTime.now());
+            return chantierRepository.save(chantier);
+        });
+        if (previous != null && !previous.equals(stored.ref())) {
+            release(previous);
+        }
+        return saved;
+    }
+
+    /**
+     * Met le fichier en place puis enregistre la référence, sous le verrou de la référence : une libération
+     * concurrente du même contenu ne peut pas supprimer le fichier entre les deux. Le fichier temporaire est
+     * supprimé dans tous les cas.
+     */
+    <T> T install(StoredSignature stored, Enregistrement<T> enregistrement) throws IOException {
+        Lock verrou = verrou(stored.ref());
+        verrou.lock();
+        try {
+            Path target = resolve(stored.ref());
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(stored.fichier(), target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return enregistrement.executer();
+        } finally {
+            verrou.unlock();
+            Files.deleteIfExists(stored.fichier());
+        }
+    }
+
+    /**
+     * Le fichier stocké sous {@code ref} a exactement ce contenu.
+     */
+    boolean contient(String ref, byte[] contenu) throws IOException {
+        Path fichier = resolve(ref);
+        return Files.exists(fichier) && Arrays.equals(Files.readAllBytes(fichier), contenu);
+    }
+
+    public Chantier detach(Chantier chantier) throws IOException {
+        String previous = chantier.getSignatureRef();
+        chantier.setSignatureRef(null);
+        chantier.setSignatureSha256(null);
+        chantier.setSignatureContentType(null);
+        chantier.setDateSignature(null);
+        Chantier saved = chantierRepository.save(chantier);
+        release(previous);
+        return saved;
+    }
+
+    /**
+     * Supprime le fichier si plus aucun chantier ne le référence.
+     */
+    public void release(String ref) throws IOException {
+        if (ref == null) {
+            return;
+        }
+        Lock verrou = verrou(ref);
+        verrou.lock();
+        try {
+            if (!chantierRepository.existsBySignatureRef(ref)) {
+                Files.deleteIfExists(resolve(ref));
+            }
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Lecture NIO du fichier ; les requêtes Range sont servies par Spring MVC à partir de cette ressource.
+     */
+    public Resource load(Chantier chantier) {
+        return new FileSystemResource(resolve(chantier.getSignatureRef()));
+    }
+
+    private Lock verrou(String ref) {
+        return verrous[Math.floorMod(ref.hashCode(), verrous.length)];
+    }
+
+    private Path resolve(String ref) {
+        if (ref == null || !REF.matcher(ref).matches()) {
+            throw new IllegalArgumentException("Référence de signature invalide : " + ref);
+        }
+        return root.resolve(ref);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param fichier copie temporaire, jusqu'au rattachement
+     */
+    public record StoredSignature(String ref, String sha256, long taille, Path fichier) {
+    }
+
+    @FunctionalInterface
+    interface Enregistrement<T> {
+        T executer() throws IOException;
+    }
+
+    public static class SignatureTooLargeException extends IllegalArgumentException {
+
+        public SignatureTooLargeException(long maxSize) {
+            super("Signature trop volumineuse (maximum " + maxSize + " octets)");
+        }
+    }
+}
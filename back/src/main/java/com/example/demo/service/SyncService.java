@@ -0,0 +1,383 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ChantierRequest;
+import com.example.demo.dto.ChantierSummary;
+import com.example.demo.dto.SyncMutation;
+import com.example.demo.dto.SyncMutation.Operation;
+import com.example.demo.dto.SyncMutation.Ressource;
+import com.example.demo.dto.VerificationRequest;
+import com.example.demo.entity.Chantier;
+import com.example.demo.repository.ChantierRepository;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.TechnicienRepository;
+import com.example.demo.repository.VerificationChantierRepository;
+import com.example.demo.service.ChantierWriteService.Ecriture;
+import com.example.demo.service.ChantierWriteService.Issue;
+import com.example.demo.service.VerificationService.Soumission;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Synchronisation du frontend hors ligne.
+ * <p>
+ * Lecture : les chantiers, clients, techniciens et vérifications créés ou modifiés depuis le jeton (updated_at),
+ * puis les suppressions (sync_suppressions, écrite par trigger), en NDJSON lu dans un seul instantané.
+ * Comme pour les rapports, la lecture repart un peu avant le jeton : une écriture datée avant la lecture
+ * précédente mais validée après n'est pas perdue, au prix de quelques lignes renvoyées deux fois.
+ * Un jeton absent ou plus ancien que la rétention des suppressions donne une synchronisation complète.
+ * <p>
+ * Écriture : les modifications faites hors ligne sont appliquées dans une seule transaction, tout ou rien.
+ */
+@Service
+public class SyncService {
+
+    public static final int MAX_MUTATIONS = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(SyncService.class);
+
+    private static final LocalDateTime ORIGINE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final TypeReference<List<VerificationRequest>> CHECKLIST_TYPE = new TypeReference<>() {
+    };
+
+    private final ChantierRepository chantierRepository;
+    private final ClientRepository clientRepository;
+    private final TechnicienRepository technicienRepository;
+    private final VerificationChantierRepository verificationRepository;
+    private final ChantierWriteService chantierWriteService;
+    private final VerificationService verificationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter lineWriter;
+    private final TransactionTemplate snapshotTransaction;
+    private final TransactionTemplate batchTransaction;
+    private final long recouvrementMs;
+    private final long retentionMs;
+
+    public SyncService(
+            ChantierRepository chantierRepository,
+            ClientRepository clientRepository,
+            TechnicienRepository technicienRepository,
+            VerificationChantierRepository verificationRepository,
+            ChantierWriteService chantierWriteService,
+            VerificationService verificationService,
+            JdbcTemplate jdbcTemplate,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${sync.overlap-ms:60000}") long recouvrementMs,
+            @Value("${sync.tombstone-retention-ms:2592000000}") long retentionMs
+    ) {
+        this.chantierRepository = chantierRepository;
+        this.clientRepository = clientRepository;
+        this.technicienRepository = technicienRepository;
+        this.verificationRepository = verificationRepository;
+        this.chantierWriteService = chantierWriteService;
+        this.verificationService = verificationService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.lineWriter = objectMapper.writer();
+        // Repeatable read : les quatre ressources et les suppressions viennent du même instantané.
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.recouvrementMs = recouvrementMs;
+        this.retentionMs = retentionMs;
+    }
+
+    /**
+     * @return la date du jeton, null pour un jeton absent
+     * @throws IllegalArgumentException si le jeton est illisible
+     */
+    public LocalDateTime decode(String jeton) {
+        if (jeton == null || jeton.isBlank()) {
+            return null;
+        }
+        byte[] octets;
+        try {
+            octets = Base64.getUrlDecoder().decode(jeton);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Jeton de synchronisation invalide", e);
+        }
+        if (octets.length != Long.BYTES) {
+            throw new IllegalArgumentException("Jeton de synchronisation invalide");
+        }
+        return ORIGINE.plus(ByteBuffer.wrap(octets).getLong(), ChronoUnit.MICROS);
+    }
+
+    static String encode(LocalDateTime date) {
+        long micros = ChronoUnit.MICROS.between(ORIGINE, date);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(micros).array());
+    }
+
+    /**
+     * Une ligne d'en-tête ({@code complet} : le client remplace ses données au lieu de les compléter),
+     * les lignes {@code upsert} puis {@code delete}, et une ligne de fin portant le jeton suivant :
+     * un flux coupé avant la fin se rejoue avec l'ancien jeton.
+     */
+    public void write(LocalDateTime depuis, OutputStream out) throws IOException {
+        LocalDateTime debut = LocalDateTime.now();
+        boolean complet = depuis == null || depuis.isBefore(debut.minus(retentionMs, ChronoUnit.MILLIS));
+        LocalDateTime seuil = complet ? ORIGINE : depuis.minus(recouvrementMs, ChronoUnit.MILLIS);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            line(writer, new Debut("sync", complet));
+            snapshotTransaction.executeWithoutResult(status -> {
+                try (var rows = chantierRepository.streamSummariesModifiedSince(seuil)) {
+                    rows.forEach(row -> line(writer, Ligne.upsert("chantier", row)));
+                }
+                upserts(writer, "client", clientRepository.streamModifiedSince(seuil));
+                upserts(writer, "technicien", technicienRepository.streamModifiedSince(seuil));
+                upserts(writer, "verification", verificationRepository.streamModifiedSince(seuil));
+                if (!complet) {
+                    jdbcTemplate.query(
+                            "SELECT ressource, entite_id FROM sync_suppressions WHERE supprime_le >= ? ORDER BY id",
+                            rs -> {
+                                line(writer, Ligne.delete(rs.getString("ressource"), rs.getLong("entite_id")));
+                            },
+                            Timestamp.valueOf(seuil));
+                }
+            });
+            line(writer, new Fin("fin", encode(debut)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    // Entités lues en flux : détachées une fois écrites pour que le contexte de persistance ne grossisse pas.
+    private void upserts(Writer writer, String type, Stream<?> rows) {
+        try (rows) {
+            rows.forEach(row -> {
+                line(writer, Ligne.upsert(type, row));
+                entityManager.detach(row);
+            });
+        }
+    }
+
+    private void line(Writer writer, Object ligne) {
+        try {
+            writer.write(lineWriter.writeValueAsString(ligne));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Applique le lot dans l'ordre ; au premier échec, rien n'est conservé.
+     *
+     * @throws IllegalArgumentException si le lot est vide ou trop long
+     */
+    public Bilan apply(List<SyncMutation> mutations) {
+        if (mutations == null || mutations.isEmpty()) {
+            throw new IllegalArgumentException("Lot vide");
+        }
+        if (mutations.size() > MAX_MUTATIONS) {
+            throw new IllegalArgumentException("Plus de " + MAX_MUTATIONS + " modifications");
+        }
+
+        return batchTransaction.execute(status -> {
+            Map<String, Long> refs = new HashMap<>();
+            List<Resultat> resultats = new ArrayList<>(mutations.size());
+            for (int i = 0; i < mutations.size(); i++) {
+                SyncMutation mutation = mutations.get(i);
+                Object issue;
+                try {
+                    issue = apply(mutation, refs);
+                } catch (ObjectOptimisticLockingFailureException e) {
+                    issue = new Echec(i, mutation.ref(), Issue.CONFLIT, "Chantier modifié entre-temps");
+                } catch (DataIntegrityViolationException e) {
+                    issue = new Echec(i, mutation.ref(), Issue.INVALIDE, "Contrainte non respectée");
+                } catch (IllegalArgumentException e) {
+                    issue = new Echec(i, mutation.ref(), Issue.INVALIDE, e.getMessage());
+                }
+                if (issue instanceof Echec echec) {
+                    status.setRollbackOnly();
+                    return new Bilan(null, echec.withIndex(i));
+                }
+                resultats.add((Resultat) issue);
+            }
+            return new Bilan(resultats, null);
+        });
+    }
+
+    // Resultat, ou Echec dont l'index est complété par l'appelant.
+    private Object apply(SyncMutation mutation, Map<String, Long> refs) {
+        if (mutation == null || mutation.ressource() == null || mutation.operation() == null) {
+            throw new IllegalArgumentException("Ressource et opération obligatoires");
+        }
+        if (mutation.ref() != null && refs.containsKey(mutation.ref())) {
+            throw new IllegalArgumentException("Ref en double : " + mutation.ref());
+        }
+
+        if (mutation.ressource() == Ressource.VERIFICATION) {
+            if (mutation.operation() == Operation.CHECKLIST) {
+                Soumission soumission = verificationService.submit(cible(mutation, refs), read(mutation, CHECKLIST_TYPE));
+                return soumission == null
+                        ? Echec.of(mutation, Issue.INTROUVABLE, null)
+                        : new Resultat(mutation.ref(), soumission.avancement().chantierId(), null, soumission);
+            }
+            if (mutation.operation() == Operation.SUPPRESSION) {
+                long id = cible(mutation, refs);
+                return verificationService.delete(id)
+                        ? new Resultat(mutation.ref(), id, null, null)
+                        : Echec.of(mutation, Issue.INTROUVABLE, null);
+            }
+            throw new IllegalArgumentException("Opération non prise en charge pour une vérification");
+        }
+
+        Ecriture ecriture = switch (mutation.operation()) {
+            case CREATION -> chantierWriteService.create(read(mutation, ChantierRequest.class));
+            case MODIFICATION -> chantierWriteService.update(cible(mutation, refs), read(mutation, ChantierRequest.class));
+            case CLOTURE -> chantierWriteService.cloturer(cible(mutation, refs));
+            case SUPPRESSION -> chantierWriteService.delete(cible(mutation, refs));
+            case CHECKLIST -> throw new IllegalArgumentException("Opération non prise en charge pour un chantier");
+        };
+        if (ecriture.issue() != Issue.OK) {
+            return Echec.of(mutation, ecriture.issue(), ecriture.detail());
+        }
+
+        // Écrit maintenant : un conflit de version est rattaché à sa modification, la version renvoyée est
+        // celle de l'écriture, et les requêtes SQL des check-lists voient les chantiers créés dans le lot.
+        chantierRepository.flush();
+        Chantier chantier = ecriture.chantier();
+        if (mutation.operation() == Operation.CREATION && mutation.ref() != null) {
+            refs.put(mutation.ref(), chantier.getId());
+        }
+        return new Resultat(mutation.ref(), chantier.getId(),
+                mutation.operation() == Operation.SUPPRESSION ? null : ChantierSummary.from(chantier), null);
+    }
+
+    private static long cible(SyncMutation mutation, Map<String, Long> refs) {
+        if (mutation.id() != null) {
+            return mutation.id();
+        }
+        Long id = mutation.cibleRef() == null ? null : refs.get(mutation.cibleRef());
+        if (id == null) {
+            throw new IllegalArgumentException("Cible absente ou ref inconnue : " + mutation.cibleRef());
+        }
+        return id;
+    }
+
+    private <T> T read(SyncMutation mutation, Class<T> type) {
+        try {
+            return objectMapper.treeToValue(requireData(mutation), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Données illisibles : " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private <T> T read(SyncMutation mutation, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(objectMapper.treeAsTokens(requireData(mutation)), type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Données illisibles", e);
+        }
+    }
+
+    private static JsonNode requireData(SyncMutation mutation) {
+        if (mutation.data() == null || mutation.data().isNull()) {
+            throw new IllegalArgumentException("Données absentes");
+        }
+        return mutation.data();
+    }
+
+    @Scheduled(
+            fixedDelayString = "${sync.purge-interval-ms:3600000}",
+            initialDelayString = "${sync.purge-interval-ms:3600000}"
+    )
+    public void purge() {
+        int purgees = jdbcTemplate.update("DELETE FROM sync_suppressions WHERE supprime_le < ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(retentionMs, ChronoUnit.MILLIS)));
+        if (purgees > 0) {
+            log.debug("{} suppression(s) à synchroniser purgée(s)", purgees);
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Ligne(String type, String op, Long id, Object data) {
+
+        static Ligne upsert(String type, Object data) {
+            return new Ligne(type, "upsert", null, data);
+        }
+
+        static Ligne delete(String type, long id) {
+            return new Ligne(type, "delete", id, null);
+        }
+    }
+
+    record Debut(String type, boolean complet) {
+    }
+
+    record Fin(String type, String token) {
+    }
+
+    /**
+     * @param chantier état du chantier après l'écriture (id et version pour les écritures suivantes du client)
+     * @param checklist points créés, mis à jour et avancement pour une check-list
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Resultat(String ref, Long id, ChantierSummary chantier, Soumission checklist) {
+    }
+
+    /**
+     * @param detail en cas de conflit, le conflit de planning ou de version (voir {@link Ecriture#detail()})
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Echec(int index, String ref, Issue raison, Object detail) {
+
+        static Echec of(SyncMutation mutation, Issue raison, Object detail) {
+            return new Echec(-1, mutation.ref(), raison, detail);
+        }
+
+        Echec withIndex(int index) {
+            return new Echec(index, ref, raison, detail);
+        }
+    }
+
+    /**
+     * Résultats dans l'ordre du lot, ou le premier échec (le lot entier est alors annulé).
+     */
+    public record Bilan(List<Resultat> resultats, Echec echec) {
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.VerificationRequest;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Écritures des check-lists : une check-list complète part en un seul INSERT ... SELECT unnest ON CONFLICT
+ * (création ou mise à jour de chaque point), puis les compteurs d'avancement du chantier sont recalculés
+ * dans la même transaction. La ligne du chantier est verrouillée d'abord pour que deux soumissions
+ * simultanées ne recomptent pas chacune sur un instantané incomplet.
+ * Appelées dans une transaction englobante (lot de synchronisation), les écritures y participent.
+ */
+@Service
+public class VerificationService {
+
+    public static final int MAX_POINTS = 500;
+
+    private static final String UPSERT = """
+            INSERT INTO verification_chantier (chantier_id, point, resultat, mesure, unite, commentaire, verifie_le, updated_at)
+            SELECT ?, p.point, p.resultat, p.mesure, p.unite, p.commentaire, p.verifie_le, ?
+            FROM unnest(?::text[], ?::text[], ?::numeric[], ?::text[], ?::text[], ?::timestamp[])
+                AS p(point, resultat, mesure, unite, commentaire, verifie_le)
+            ON CONFLICT (chantier_id, point) DO UPDATE SET
+                resultat = EXCLUDED.resultat,
+                mesure = EXCLUDED.mesure,
+                unite = EXCLUDED.unite,
+                commentaire = EXCLUDED.commentaire,
+                verifie_le = EXCLUDED.verifie_le,
+                updated_at = EXCLUDED.updated_at
+            RETURNING (xmax = 0) AS cree
+            """;
+
+    // updated_at bouge pour que les ETag de la liste et du détail reflètent l'avancement.
+    private static final String RECOMPTER = """
+            UPDATE chantiers c SET
+                verifications_total = s.total,
+                verifications_faites = s.faites,
+                updated_at = ?
+            FROM (SELECT COUNT(*) AS total, COUNT(v.resultat) AS faites
+                  FROM verification_chantier v WHERE v.chantier_id = ?) s
+            WHERE c.id = ?
+            RETURNING c.verifications_total, c.verifications_faites
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DashboardStatsService dashboardStatsService;
+    private final JsonPageCache jsonPageCache;
+
+    public VerificationService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            DashboardStatsService dashboardStatsService,
+            JsonPageCache jsonPageCache
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dashboardStatsService = dashboardStatsService;
+        this.jsonPageCache = jsonPageCache;
+    }
+
+    /**
+     * @return points créés, mis à jour et avancement du chantier ; null si le chantier n'existe pas
+     * @throws IllegalArgumentException si la check-list est vide, trop longue, ou a un point vide ou en double
+     */
+    public Soumission submit(long chantierId, List<VerificationRequest> points) {
+        validate(points);
+        LocalDateTime maintenant = LocalDateTime.now();
+        int n = points.size();
+        String[] noms = new String[n];
+        String[] resultats = new String[n];
+        BigDecimal[] mesures = new BigDecimal[n];
+        String[] unites = new String[n];
+        String[] commentaires = new String[n];
+        Timestamp[] verifieLe = new Timestamp[n];
+        for (int i = 0; i < n; i++) {
+            VerificationRequest point = points.get(i);
+            noms[i] = point.point().trim();
+            resultats[i] = point.resultat() == null ? null : point.resultat().name();
+            mesures[i] = point.mesure();
+            unites[i] = point.unite();
+            commentaires[i] = point.commentaire();
+            verifieLe[i] = Timestamp.valueOf(point.verifieLe() != null ? point.verifieLe() : maintenant);
+        }
+
+        return transactionTemplate.execute(status -> {
+            if (!lock(chantierId)) {
+                return null;
+            }
+            List<Boolean> crees = jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(UPSERT);
+                ps.setLong(1, chantierId);
+                ps.setTimestamp(2, Timestamp.valueOf(maintenant));
+                ps.setArray(3, con.createArrayOf("text", noms));
+                ps.setArray(4, con.createArrayOf("text", resultats));
+                ps.setArray(5, con.createArrayOf("numeric", mesures));
+                ps.setArray(6, con.createArrayOf("text", unites));
+                ps.setArray(7, con.createArrayOf("text", commentaires));
+                ps.setArray(8, con.createArrayOf("timestamp", verifieLe));
+                return ps;
+            }, (rs, i) -> rs.getBoolean("cree"));
+            int creees = (int) crees.stream().filter(Boolean::booleanValue).count();
+            Avancement avancement = recount(chantierId, maintenant);
+            AfterCommit.run(() -> {
+                dashboardStatsService.verificationsChanged(creees);
+                jsonPageCache.invalidate(JsonPageCache.CHANTIERS);
+            });
+            return new Soumission(creees, n - creees, avancement);
+        });
+    }
+
+    /**
+     * Point vide (« à vérifier ») sans libellé, comme l'ancien POST sans corps.
+     *
+     * @return l'id de la vérification créée, null si le chantier n'existe pas
+     */
+    public Long createEmpty(long chantierId) {
+        return transactionTemplate.execute(status -> {
+            if (!lock(chantierId)) {
+                return null;
+            }
+            LocalDateTime maintenant = LocalDateTime.now();
+            Long cree = jdbcTemplate.queryForObject(
+                    "INSERT INTO verification_chantier (chantier_id, updated_at) VALUES (?, ?) RETURNING id",
+                    Long.class, chantierId, Timestamp.valueOf(maintenant));
+            recount(chantierId, maintenant);
+            AfterCommit.run(() -> {
+                dashboardStatsService.verificationsChanged(1);
+                jsonPageCache.invalidate(JsonPageCache.CHANTIERS);
+            });
+            return cree;
+        });
+    }
+
+    /**
+     * @return false si la vérification n'existe pas
+     */
+    public boolean delete(long id) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            List<Long> chantier = jdbcTemplate.queryForList(
+                    "SELECT chantier_id FROM verification_chantier WHERE id = ?", Long.class, id);
+            if (chantier.isEmpty() || !lock(chantier.get(0))) {
+                return false;
+            }
+            if (jdbcTemplate.update("DELETE FROM verification_chantier WHERE id = ?", id) == 0) {
+                return false;
+            }
+            recount(chantier.get(0), LocalDateTime.now());
+            AfterCommit.run(() -> {
+                dashboardStatsService.verificationsChanged(-1);
+                jsonPageCache.invalidate(JsonPageCache.CHANTIERS);
+            });
+            return true;
+        }));
+    }
+
+    /**
+     * Compteurs précalculés : ne lit que la ligne du chantier.
+     */
+    public Avancement avancement(long chantierId) {
+        return jdbcTemplate.query(
+                "SELECT verifications_total, verifications_faites FROM chantiers WHERE id = ?",
+                rs -> rs.next()
+                        ? new Avancement(chantierId, rs.getInt("verifications_total"), rs.getInt("verifications_faites"))
+                        : null,
+                chantierId);
+    }
+
+    // FOR NO KEY UPDATE : sérialise les écritures de check-list du chantier sans bloquer les clés étrangères.
+    private boolean lock(long chantierId) {
+        return !jdbcTemplate.queryForList(
+                "SELECT id FROM chantiers WHERE id = ? FOR NO KEY UPDATE", Long.class, chantierId).isEmpty();
+    }
+
+    private Avancement recount(long chantierId, LocalDateTime maintenant) {
+        return jdbcTemplate.queryForObject(RECOMPTER, (rs, i) -> new Avancement(
+                chantierId, rs.getInt("verifications_total"), rs.getInt("verifications_faites")
+        ), Timestamp.valueOf(maintenant), chantierId, chantierId);
+    }
+
+    private static void validate(List<VerificationRequest> points) {
+        if (points == null || points.isEmpty()) {
+            throw new IllegalArgumentException("Check-list vide");
+        }
+        if (points.size() > MAX_POINTS) {
+            throw new IllegalArgumentException("Plus de " + MAX_POINTS + " points");
+        }
+        // Un même point deux fois ferait échouer l'ON CONFLICT (ligne modifiée deux fois par la requête).
+        Set<String> vus = new HashSet<>();
+        for (VerificationRequest point : points) {
+            if (point == null || point.point() == null || point.point().isBlank() || point.point().length() > 255) {
+                throw new IllegalArgumentException("Point sans libellé ou trop long");
+            }
+            if (!vus.add(point.point().trim())) {
+                throw new IllegalArgumentException("Point en double : " + point.point());
+            }
+        }
+    }
+
+    public record Avancement(long chantierId, int total, int faites) {
+
+        @JsonProperty
+        public Double progression() {
+            return total == 0 ? null : (double) faites / total;
+        }
+    }
+
+    public record Soumission(int creees, int misesAJour, Avancement avancement) {
+    }
+}
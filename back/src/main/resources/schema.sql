@@ -36,4 +36,282 @@ BEGIN
         ';
     END IF;
 END
-$$@@
\ No newline at end of file
+$$@@
+
+-- Recherche plein texte : index trigrammes pour les LIKE '%q%' sur reference/adresse
+CREATE EXTENSION IF NOT EXISTS pg_trgm@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_reference_trgm
+    ON chantiers USING gin (LOWER(reference) gin_trgm_ops)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_adresse_trgm
+    ON chantiers USING gin (LOWER(adresse) gin_trgm_ops)@@
+
+
+-- Libération des fichiers de signature : recherche des autres chantiers qui partagent le même contenu
+CREATE INDEX IF NOT EXISTS idx_chantiers_signature_ref
+    ON chantiers (signature_ref) WHERE signature_ref IS NOT NULL@@
+
+-- Ids des chantiers : séquence poolée (incrément 50) partagée avec Hibernate.
+-- Les bases créées en IDENTITY perdent l'identité et reprennent après le plus grand id existant.
+DO $$
+BEGIN
+    IF EXISTS (
+        SELECT 1
+        FROM information_schema.columns
+        WHERE table_schema = 'public'
+          AND table_name = 'chantiers'
+          AND column_name = 'id'
+          AND is_identity = 'YES'
+    ) THEN
+        EXECUTE 'ALTER TABLE public.chantiers ALTER COLUMN id DROP IDENTITY';
+    END IF;
+
+    IF (SELECT COALESCE(MAX(id), 0) FROM chantiers) >= (SELECT last_value FROM chantiers_seq) THEN
+        PERFORM setval('chantiers_seq', (SELECT MAX(id) FROM chantiers));
+    END IF;
+
+    EXECUTE 'ALTER TABLE public.chantiers ALTER COLUMN id SET DEFAULT nextval(''chantiers_seq'')';
+END
+$$@@
+
+-- Rapports : agrégats mensuels tenus à jour par ReportingService ; les requêtes de rapport ne lisent jamais chantiers.
+-- rapport_chantiers_etat garde les dimensions déjà comptées de chaque chantier pour calculer les deltas.
+CREATE TABLE IF NOT EXISTS rapport_chantiers_mensuel (
+    mois date NOT NULL,
+    technicien_id bigint NOT NULL,
+    statut varchar(32) NOT NULL,
+    type_installation text NOT NULL,
+    total bigint NOT NULL,
+    PRIMARY KEY (mois, technicien_id, statut, type_installation)
+)@@
+
+CREATE TABLE IF NOT EXISTS rapport_chantiers_etat (
+    chantier_id bigint PRIMARY KEY,
+    mois date NOT NULL,
+    technicien_id bigint NOT NULL,
+    statut varchar(32) NOT NULL,
+    type_installation text NOT NULL
+)@@
+
+CREATE TABLE IF NOT EXISTS rapport_watermarks (
+    nom varchar(64) PRIMARY KEY,
+    modifie_le timestamp,
+    evenement_id bigint NOT NULL,
+    rafraichi_le timestamp NOT NULL
+)@@
+
+-- Sélection des chantiers modifiés depuis le dernier rafraîchissement (updated_at est nul jusqu'à la première modification)
+CREATE INDEX IF NOT EXISTS idx_chantiers_modifie_le
+    ON chantiers ((COALESCE(updated_at, created_at)))@@
+
+-- Versions (ETag) des clients et techniciens : les lignes antérieures à la colonne partent de 0.
+UPDATE clients SET version = 0 WHERE version IS NULL@@
+ALTER TABLE clients ALTER COLUMN version SET DEFAULT 0@@
+UPDATE techniciens SET version = 0 WHERE version IS NULL@@
+ALTER TABLE techniciens ALTER COLUMN version SET DEFAULT 0@@
+
+-- Verrouillage optimiste des chantiers : les lignes antérieures à la colonne partent de la version 0.
+UPDATE chantiers SET version = 0 WHERE version IS NULL@@
+ALTER TABLE chantiers ALTER COLUMN version SET DEFAULT 0@@
+
+-- Réponses des POST porteurs d'un en-tête Idempotency-Key (IdempotencyStore) ; statut nul tant que la requête est en cours.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    cle varchar(255) PRIMARY KEY,
+    methode varchar(10) NOT NULL,
+    chemin text NOT NULL,
+    empreinte bytea,
+    statut integer,
+    content_type text,
+    corps bytea,
+    reserve_le timestamp NOT NULL,
+    expire_le timestamp NOT NULL
+)@@
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expire_le ON idempotency_keys (expire_le)@@
+
+-- Jeton de la réservation en cours : complete() et release() ne touchent que la réservation qu'ils détiennent.
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS jeton uuid@@
+
+-- Check-lists : un point par chantier (les anciennes vérifications sans libellé restent permises, NULL étant distinct),
+-- et compteurs d'avancement recalés sur les lignes existantes.
+CREATE UNIQUE INDEX IF NOT EXISTS uk_verification_chantier_point ON verification_chantier (chantier_id, point)@@
+
+UPDATE chantiers c
+SET verifications_total = s.total, verifications_faites = s.faites
+FROM (SELECT chantier_id, COUNT(*) AS total, COUNT(resultat) AS faites
+      FROM verification_chantier GROUP BY chantier_id) s
+WHERE c.id = s.chantier_id
+  AND (c.verifications_total, c.verifications_faites) IS DISTINCT FROM (s.total, s.faites)@@
+
+-- Synchronisation hors ligne : dates de modification des clients et techniciens (les lignes existantes partent
+-- de maintenant, elles seront envoyées une fois de plus) et index des sélections « modifiés depuis le jeton ».
+UPDATE clients SET updated_at = LOCALTIMESTAMP WHERE updated_at IS NULL@@
+UPDATE techniciens SET updated_at = COALESCE(created_at, LOCALTIMESTAMP) WHERE updated_at IS NULL@@
+ALTER TABLE clients ALTER COLUMN updated_at SET DEFAULT LOCALTIMESTAMP@@
+ALTER TABLE techniciens ALTER COLUMN updated_at SET DEFAULT LOCALTIMESTAMP@@
+
+CREATE INDEX IF NOT EXISTS idx_clients_updated_at ON clients (updated_at)@@
+CREATE INDEX IF NOT EXISTS idx_techniciens_updated_at ON techniciens (updated_at)@@
+CREATE INDEX IF NOT EXISTS idx_verification_chantier_updated_at ON verification_chantier (updated_at)@@
+
+-- Suppressions à propager aux clients hors ligne, écrites par trigger dans la transaction de la suppression :
+-- les suppressions en cascade (vérifications d'un chantier) et en SQL direct sont couvertes.
+-- Purgées par SyncService au-delà de sync.tombstone-retention-ms.
+CREATE TABLE IF NOT EXISTS sync_suppressions (
+    id bigserial PRIMARY KEY,
+    ressource varchar(32) NOT NULL,
+    entite_id bigint NOT NULL,
+    supprime_le timestamp NOT NULL
+)@@
+
+CREATE INDEX IF NOT EXISTS idx_sync_suppressions_supprime_le ON sync_suppressions (supprime_le)@@
+
+CREATE OR REPLACE FUNCTION sync_suppressions_trigger() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO sync_suppressions (ressource, entite_id, supprime_le)
+    SELECT TG_ARGV[0], s.id, LOCALTIMESTAMP FROM supprimees s;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql@@
+
+DROP TRIGGER IF EXISTS trg_chantiers_sync_suppressions ON chantiers@@
+CREATE TRIGGER trg_chantiers_sync_suppressions AFTER DELETE ON chantiers
+    REFERENCING OLD TABLE AS supprimees FOR EACH STATEMENT EXECUTE FUNCTION sync_suppressions_trigger('chantier')@@
+
+DROP TRIGGER IF EXISTS trg_clients_sync_suppressions ON clients@@
+CREATE TRIGGER trg_clients_sync_suppressions AFTER DELETE ON clients
+    REFERENCING OLD TABLE AS supprimees FOR EACH STATEMENT EXECUTE FUNCTION sync_suppressions_trigger('client')@@
+
+DROP TRIGGER IF EXISTS trg_techniciens_sync_suppressions ON techniciens@@
+CREATE TRIGGER trg_techniciens_sync_suppressions AFTER DELETE ON techniciens
+    REFERENCING OLD TABLE AS supprimees FOR EACH STATEMENT EXECUTE FUNCTION sync_suppressions_trigger('technicien')@@
+
+DROP TRIGGER IF EXISTS trg_verification_chantier_sync_suppressions ON verification_chantier@@
+CREATE TRIGGER trg_verification_chantier_sync_suppressions AFTER DELETE ON verification_chantier
+    REFERENCING OLD TABLE AS supprimees FOR EACH STATEMENT EXECUTE FUNCTION sync_suppressions_trigger('verification')@@
+
+-- Recherche multicritère (ChantierRepository.searchSpecification) : statut ou technicien + période d'intervention,
+-- client seul. Le tri reste libre ; ces index servent le filtrage et le comptage.
+CREATE INDEX IF NOT EXISTS idx_chantiers_statut_date
+    ON chantiers (statut, date_intervention)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_technicien_date
+    ON chantiers (technicien_id, date_intervention)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_client
+    ON chantiers (client_id)@@
+
+-- Tris autorisés (SortableFields) : (champ, id) pour lire une page triée par parcours d'index, dans les deux sens,
+-- avec l'id comme départage.
+CREATE INDEX IF NOT EXISTS idx_chantiers_reference_id
+    ON chantiers (reference, id)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_date_intervention_id
+    ON chantiers (date_intervention, id)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_created_at_id
+    ON chantiers (created_at, id)@@
+
+CREATE INDEX IF NOT EXISTS idx_clients_nom_id
+    ON clients (nom, id)@@
+
+CREATE INDEX IF NOT EXISTS idx_techniciens_nom_id
+    ON techniciens (nom, id)@@
+
+-- Proximité (ChantierRepository.findWithinRadius / findNearest) : PostGIS n'étant pas disponible, les positions sont
+-- indexées en coordonnées terrestres 3D (cube + earthdistance) ; le GiST sert le rayon (earth_box) et le kNN (<->).
+CREATE EXTENSION IF NOT EXISTS cube@@
+
+CREATE EXTENSION IF NOT EXISTS earthdistance@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_position
+    ON chantiers USING gist (ll_to_earth(latitude, longitude)) WHERE latitude IS NOT NULL@@
+
+-- File du rattrapage de géocodage (GeocodingService.backfill).
+CREATE INDEX IF NOT EXISTS idx_chantiers_a_geocoder
+    ON chantiers (id) WHERE geocode_le IS NULL@@
+
+-- Archives : chantiers clos depuis longtemps, sortis de la table chantiers par ChantierArchiveService. Les colonnes
+-- de la liste sont reprises pour la recherche ; donnees garde la ligne complète et sa check-list telles qu'archivées.
+CREATE TABLE IF NOT EXISTS chantiers_archives (
+    id bigint PRIMARY KEY,
+    reference varchar(255) NOT NULL,
+    adresse varchar(255) NOT NULL,
+    type_installation varchar(255),
+    date_intervention date,
+    statut varchar(255) NOT NULL,
+    date_signature timestamp(6),
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6),
+    client_id bigint NOT NULL REFERENCES clients (id),
+    technicien_id bigint NOT NULL REFERENCES techniciens (id),
+    verifications_total integer NOT NULL,
+    verifications_faites integer NOT NULL,
+    version bigint,
+    signature_ref varchar(255),
+    archive_le timestamp(6) NOT NULL,
+    donnees jsonb NOT NULL
+)@@
+
+-- Mêmes filtres et tris que la liste des chantiers (?archives=true).
+CREATE INDEX IF NOT EXISTS idx_chantiers_archives_statut_date
+    ON chantiers_archives (statut, date_intervention)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_archives_technicien_date
+    ON chantiers_archives (technicien_id, date_intervention)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_archives_client
+    ON chantiers_archives (client_id)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_archives_reference_id
+    ON chantiers_archives (reference, id)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_archives_date_intervention_id
+    ON chantiers_archives (date_intervention, id)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_archives_created_at_id
+    ON chantiers_archives (created_at, id)@@
+
+-- Version de la liste des archives (ETag) et fichiers de signature encore référencés.
+CREATE INDEX IF NOT EXISTS idx_chantiers_archives_archive_le
+    ON chantiers_archives (archive_le)@@
+
+CREATE INDEX IF NOT EXISTS idx_chantiers_archives_signature_ref
+    ON chantiers_archives (signature_ref) WHERE signature_ref IS NOT NULL@@
+
+-- Versions des listes paginées (ETag faible des listes) : compteur par table incrémenté par trigger dans la
+-- transaction de chaque écriture, donc visible seulement à son commit et jamais en retard sur les données lues.
+-- Réparti sur 16 lignes par table (selon le processus serveur) pour que les écritures concurrentes ne s'attendent pas
+-- sur une même ligne ; la version d'une table est la somme de ses lignes, qui augmente à chaque commit.
+CREATE TABLE IF NOT EXISTS versions_listes (
+    ressource varchar(64) NOT NULL,
+    emplacement integer NOT NULL,
+    version bigint NOT NULL,
+    PRIMARY KEY (ressource, emplacement)
+)@@
+
+CREATE OR REPLACE FUNCTION versions_listes_trigger() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO versions_listes (ressource, emplacement, version)
+    VALUES (TG_TABLE_NAME, pg_backend_pid() % 16, 1)
+    ON CONFLICT (ressource, emplacement) DO UPDATE SET version = versions_listes.version + 1;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql@@
+
+DROP TRIGGER IF EXISTS trg_chantiers_versions_listes ON chantiers@@
+CREATE TRIGGER trg_chantiers_versions_listes AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON chantiers
+    FOR EACH STATEMENT EXECUTE FUNCTION versions_listes_trigger()@@
+
+DROP TRIGGER IF EXISTS trg_chantiers_archives_versions_listes ON chantiers_archives@@
+CREATE TRIGGER trg_chantiers_archives_versions_listes AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON chantiers_archives
+    FOR EACH STATEMENT EXECUTE FUNCTION versions_listes_trigger()@@
+
+DROP TRIGGER IF EXISTS trg_clients_versions_listes ON clients@@
+CREATE TRIGGER trg_clients_versions_listes AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON clients
+    FOR EACH STATEMENT EXECUTE FUNCTION versions_listes_trigger()@@
+
+DROP TRIGGER IF EXISTS trg_techniciens_versions_listes ON techniciens@@
+CREATE TRIGGER trg_techniciens_versions_listes AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON techniciens
+    FOR EACH STATEMENT EXECUTE FUNCTION versions_listes_trigger()@@
@@ -14,17 +14,12 @@ function setStatus(message, error = false) {
 
 async function loadStats() {
   try {
-    const [clients, techniciens, chantiers, verifications] = await Promise.all([
-      getJson("/api/clients?size=1"),
-      getJson("/api/techniciens?size=1"),
-      getJson("/api/chantiers?size=1"),
-      getJson("/api/verifications")
-    ]);
+    const stats = await getJson("/api/dashboard/stats");
 
-    document.getElementById("clientsCount").textContent = clients.totalElements ?? 0;
-    document.getElementById("techniciensCount").textContent = techniciens.totalElements ?? 0;
-    document.getElementById("chantiersCount").textContent = chantiers.totalElements ?? 0;
-    document.getElementById("verificationsCount").textContent = Array.isArray(verifications) ? verifications.length : 0;
+    document.getElementById("clientsCount").textContent = stats.totalClients ?? 0;
+    document.getElementById("techniciensCount").textContent = stats.totalTechniciens ?? 0;
+    document.getElementById("chantiersCount").textContent = stats.totalChantiers ?? 0;
+    document.getElementById("verificationsCount").textContent = stats.totalVerifications ?? 0;
 
     setStatus("Dashboard chargé.");
   } catch (error) {
@@ -0,0 +1,55 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatabaseConcurrencyGuardTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DatabaseConcurrencyGuard guard = new DatabaseConcurrencyGuard(1, 0, meterRegistry);
+
+    @Test
+    void asyncResponseKeepsItsPermitUntilCompletion() throws Exception {
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/api/chantiers/export");
+        export.setAsyncSupported(true);
+        guard.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        assertThat(disponibles()).isZero();
+
+        // Pendant l'écriture du flux, les requêtes qui lisent la base attendent ; les autres passent.
+        assertThat(status("/api/chantiers")).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(status("/api/planning")).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(status("/api/techniciens/available")).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(status("/api/dashboard/stats")).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(status("/api/chantiers/stream")).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(status("/dashboard.js")).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(status("/")).isEqualTo(HttpServletResponse.SC_OK);
+
+        export.getAsyncContext().complete();
+        assertThat(disponibles()).isEqualTo(1);
+        assertThat(status("/api/chantiers")).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(disponibles()).isEqualTo(1);
+    }
+
+    @Test
+    void idempotencyKeysAreClaimedUnderAPermit() {
+        assertThat(OrderUtils.getOrder(DatabaseConcurrencyGuard.class))
+                .isLessThan(OrderUtils.getOrder(IdempotencyFilter.class));
+    }
+
+    private int status(String chemin) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        guard.doFilter(new MockHttpServletRequest("GET", chemin), response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    private double disponibles() {
+        return meterRegistry.get("datasource.guard.available").gauge().value();
+    }
+}
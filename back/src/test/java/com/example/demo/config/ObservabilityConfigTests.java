@@ -0,0 +1,61 @@
+package com.example.demo.config;
+
+import com.example.demo.repository.ClientRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Seuil à 0 : toutes les requêtes passent par le journal des requêtes lentes.
+@SpringBootTest(properties = "datasource.slow-query.threshold-ms=0")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ExtendWith(OutputCaptureExtension.class)
+class ObservabilityConfigTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Test
+    void prometheusExposesEndpointRepositoryAndHibernateMetrics() throws Exception {
+        mockMvc.perform(get("/api/chantiers").param("size", "1")).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/chantiers\"")
+                .containsPattern("spring_data_repository_invocations_seconds_bucket\\{.*method=\"findSummaries\"")
+                .contains("hibernate_statements_total")
+                .contains("cache_gets_total{cache=\"clients\"");
+    }
+
+    @Test
+    void slowQueriesAreLoggedWithBindParameters(CapturedOutput output) {
+        double before = meterRegistry.counter("jdbc.slow.queries").count();
+
+        clientRepository.findByNomContainingIgnoreCase("requete-lente", PageRequest.of(0, 1));
+
+        assertThat(meterRegistry.counter("jdbc.slow.queries").count()).isGreaterThan(before);
+        assertThat(output).contains("Requête lente").contains("requete-lente");
+    }
+}
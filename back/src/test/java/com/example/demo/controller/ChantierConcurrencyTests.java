@@ -0,0 +1,369 @@
+package com.example.demo.controller;
+
+import com.example.demo.config.IdempotencyFilter;
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.service.IdempotencyStore;
+import com.example.demo.support.TestFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sans @Transactional : les écritures concurrentes doivent réellement se croiser en base.
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChantierConcurrencyTests {
+
+    private static final String PREFIXE = "CONC-";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TestFixtures.Fixture fixture;
+    private Client client;
+    private Technicien technicien;
+    private final List<String> cles = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        fixture = testFixtures.forPrefix(PREFIXE);
+        client = fixture.client("Client concurrence");
+        technicien = fixture.technicien("Concurrence", "Tech", "concurrence@example.com");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        cles.forEach(cle -> jdbcTemplate.update("DELETE FROM idempotency_keys WHERE cle = ?", cle));
+        fixture.cleanUp();
+    }
+
+    @Test
+    void concurrentVersionedUpdatesLoseNothing() throws Exception {
+        long id = create(PREFIXE + "STRESS");
+        int threads = 6;
+        int updatesParThread = 8;
+        AtomicInteger conflits = new AtomicInteger();
+        CountDownLatch depart = new CountDownLatch(1);
+
+        // Threads pairs : jetons ajoutés à l'adresse ; impairs : au type d'installation.
+        // Les modifications d'un même champ se heurtent (409 puis relecture), celles de champs différents fusionnent.
+        List<Callable<Void>> taches = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String champ = t % 2 == 0 ? "adresse" : "typeInstallation";
+            char thread = (char) ('a' + t);
+            taches.add(() -> {
+                depart.await();
+                for (int i = 0; i < updatesParThread; i++) {
+                    String jeton = ";" + thread + i;
+                    while (true) {
+                        ObjectNode chantier = read(id);
+                        chantier.put(champ, chantier.path(champ).asText("") + jeton);
+                        int statut = mockMvc.perform(put("/api/chantiers/{id}", id)
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(objectMapper.writeValueAsString(chantier)))
+                                .andReturn().getResponse().getStatus();
+                        if (statut == 200) {
+                            break;
+                        }
+                        assertThat(statut).isEqualTo(409);
+                        conflits.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> resultats = taches.stream().map(executor::submit).toList();
+            depart.countDown();
+            for (Future<Void> resultat : resultats) {
+                resultat.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ObjectNode fin = read(id);
+        List<String> adresse = jetons(fin.get("adresse").asText());
+        List<String> installation = jetons(fin.get("typeInstallation").asText());
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < updatesParThread; i++) {
+                String jeton = "" + (char) ('a' + t) + i;
+                assertThat(t % 2 == 0 ? adresse : installation).contains(jeton);
+            }
+        }
+        // Ni perdu ni appliqué deux fois.
+        assertThat(adresse.size() + installation.size()).isEqualTo(threads * updatesParThread);
+        // Chaque mise à jour acceptée produit exactement une version.
+        assertThat(fin.get("version").asLong()).isEqualTo(threads * updatesParThread);
+        assertThat(conflits.get()).isPositive();
+    }
+
+    @Test
+    void staleUpdateMergesDisjointFieldsAndRejectsConflictingOnes() throws Exception {
+        long id = create(PREFIXE + "FUSION");
+        ObjectNode lu = read(id);
+
+        ObjectNode bureau = lu.deepCopy();
+        bureau.put("adresse", "2 rue du Bureau");
+        mockMvc.perform(put("/api/chantiers/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bureau)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        // Même version de départ, autre champ : fusionné sans écraser l'adresse.
+        ObjectNode terrain = lu.deepCopy();
+        terrain.put("typeInstallation", "PAC");
+        mockMvc.perform(put("/api/chantiers/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(terrain)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2))
+                .andExpect(jsonPath("$.adresse").value("2 rue du Bureau"))
+                .andExpect(jsonPath("$.typeInstallation").value("PAC"));
+
+        // Même champ modifié autrement : conflit, rien n'est écrit.
+        ObjectNode autre = lu.deepCopy();
+        autre.put("adresse", "3 rue du Terrain");
+        mockMvc.perform(put("/api/chantiers/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(autre)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.versionActuelle").value(2))
+                .andExpect(jsonPath("$.champs.length()").value(1))
+                .andExpect(jsonPath("$.champs[0]").value("adresse"))
+                .andExpect(jsonPath("$.chantier.adresse").value("2 rue du Bureau"));
+
+        // Sans version : le dernier écrivain gagne, comme avant.
+        autre.remove("version");
+        mockMvc.perform(put("/api/chantiers/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(autre)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.adresse").value("3 rue du Terrain"))
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
+    @Test
+    void retriedPostWithSameIdempotencyKeyIsReplayed() throws Exception {
+        String cle = cle();
+        String body = body(PREFIXE + "IDEM");
+
+        MockHttpServletResponse premiere = mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .header(IdempotencyFilter.HEADER, cle).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn().getResponse();
+        long id = objectMapper.readTree(premiere.getContentAsString()).get("id").asLong();
+
+        mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .header(IdempotencyFilter.HEADER, cle).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.id").value(id));
+
+        // Même clé, autre requête : refusée plutôt que rejouée à tort.
+        mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .header(IdempotencyFilter.HEADER, cle).content(body(PREFIXE + "IDEM-AUTRE")))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertThat(countChantiers(PREFIXE + "IDEM%")).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentRetriesWithSameIdempotencyKeyCreateOneChantier() throws Exception {
+        String cle = cle();
+        String body = body(PREFIXE + "RAFALE");
+        int threads = 8;
+        CountDownLatch depart = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<MockHttpServletResponse> reponses = new ArrayList<>();
+        try {
+            List<Future<MockHttpServletResponse>> resultats = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                resultats.add(executor.submit(() -> {
+                    depart.await();
+                    return mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                            .header(IdempotencyFilter.HEADER, cle).content(body)).andReturn().getResponse();
+                }));
+            }
+            depart.countDown();
+            for (Future<MockHttpServletResponse> resultat : resultats) {
+                reponses.add(resultat.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Les requêtes arrivées pendant le traitement de la première reçoivent 409 ; les suivantes, sa réponse.
+        assertThat(reponses).extracting(MockHttpServletResponse::getStatus).containsOnly(200, 409).contains(200);
+        Set<Long> ids = new HashSet<>();
+        for (MockHttpServletResponse reponse : reponses) {
+            if (reponse.getStatus() == 200) {
+                ids.add(objectMapper.readTree(reponse.getContentAsString()).get("id").asLong());
+            }
+        }
+        assertThat(ids).hasSize(1);
+        assertThat(countChantiers(PREFIXE + "RAFALE")).isEqualTo(1);
+    }
+
+    @Test
+    void reclaimedIdempotencyKeyIsOnlyWrittenByItsNewHolder() {
+        String cle = cle();
+        UUID premier = idempotencyStore.claim(cle, "POST", "/api/chantiers");
+        assertThat(premier).isNotNull();
+        assertThat(idempotencyStore.claim(cle, "POST", "/api/chantiers")).isNull();
+
+        // Requête longue : le heartbeat renouvelle la réservation, qui n'est pas reprise malgré son ancienneté.
+        jdbcTemplate.update("UPDATE idempotency_keys SET reserve_le = now() - interval '1 hour' WHERE cle = ?", cle);
+        idempotencyStore.heartbeat();
+        assertThat(idempotencyStore.claim(cle, "POST", "/api/chantiers")).isNull();
+
+        // Réservation abandonnée (plus de heartbeat) : reprise sous un nouveau jeton.
+        idempotencyStore.release(cle, UUID.randomUUID());
+        assertThat(idempotencyStore.find(cle)).isNotNull();
+        jdbcTemplate.update("UPDATE idempotency_keys SET reserve_le = now() - interval '1 hour' WHERE cle = ?", cle);
+        UUID second = idempotencyStore.claim(cle, "POST", "/api/chantiers");
+        assertThat(second).isNotNull().isNotEqualTo(premier);
+
+        // L'ancien détenteur ne peut plus ni écrire sa réponse ni libérer la clé du nouveau.
+        assertThat(idempotencyStore.complete(cle, premier, new byte[0], 200, "text/plain", "ancien".getBytes())).isFalse();
+        idempotencyStore.release(cle, premier);
+        assertThat(idempotencyStore.find(cle).enCours()).isTrue();
+
+        assertThat(idempotencyStore.complete(cle, second, new byte[0], 201, "text/plain", "nouveau".getBytes())).isTrue();
+        assertThat(idempotencyStore.find(cle).statut()).isEqualTo(201);
+    }
+
+    @Test
+    void listEtagChangesWhenALateTransactionCommits() throws Exception {
+        long tardif = create(PREFIXE + "TARDIF");
+        create(PREFIXE + "RECENT");
+        CountDownLatch ecrit = new CountDownLatch(1);
+        CountDownLatch valider = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> transaction = executor.submit(() -> new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> {
+                        // Date de modification posée avant le commit, antérieure à celles déjà visibles.
+                        jdbcTemplate.update("""
+                                UPDATE chantiers SET adresse = 'Adresse tardive', updated_at = now() - interval '1 hour'
+                                WHERE id = ?
+                                """, tardif);
+                        ecrit.countDown();
+                        try {
+                            valider.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }));
+            ecrit.await();
+            String etag = mockMvc.perform(get("/api/chantiers"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            valider.countDown();
+            transaction.get();
+
+            mockMvc.perform(get("/api/chantiers").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isOk());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long create(String reference) throws Exception {
+        String created = mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .content(body(reference)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(0))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(created).get("id").asLong();
+    }
+
+    /**
+     * Chantier relu au format d'un ChantierRequest, version comprise.
+     */
+    private ObjectNode read(long id) throws Exception {
+        JsonNode chantier = objectMapper.readTree(mockMvc.perform(get("/api/chantiers/{id}", id))
+                .andReturn().getResponse().getContentAsString());
+        ObjectNode request = objectMapper.createObjectNode();
+        for (String champ : List.of("reference", "adresse", "typeInstallation", "dateIntervention",
+                "statut", "dateSignature", "version")) {
+            request.set(champ, chantier.get(champ));
+        }
+        request.put("clientId", chantier.get("client").get("id").asLong());
+        request.put("technicienId", chantier.get("technicien").get("id").asLong());
+        return request;
+    }
+
+    private String body(String reference) {
+        return """
+                {"reference": "%s", "adresse": "1 rue de la Concurrence", "clientId": %d, "technicienId": %d}
+                """.formatted(reference, client.getId(), technicien.getId());
+    }
+
+    private String cle() {
+        String cle = UUID.randomUUID().toString();
+        cles.add(cle);
+        return cle;
+    }
+
+    private long countChantiers(String reference) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM chantiers WHERE reference LIKE ?", Long.class, reference);
+    }
+
+    private static List<String> jetons(String valeur) {
+        return Arrays.stream(valeur.split(";"))
+                .filter(jeton -> jeton.matches("[a-z]\\d"))
+                .toList();
+    }
+}
@@ -0,0 +1,417 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Transactional
+class ChantierControllerTests {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private Long chantierId;
+    private Long clientId;
+    private Long technicienId;
+
+    @BeforeEach
+    void seed() {
+        // Un client et un technicien distincts par chantier : le pire cas pour un N+1.
+        for (int i = 0; i < PAGE_SIZE + 2; i++) {
+            Client client = new Client();
+            client.setNom("Client stats " + i);
+            entityManager.persist(client);
+            Technicien technicien = new Technicien("Stats", "Tech " + i, "stats" + i + "@example.com");
+            entityManager.persist(technicien);
+
+            Chantier chantier = new Chantier();
+            chantier.setReference("STATS-" + i);
+            chantier.setAdresse(i + " rue des Statistiques");
+            chantier.setStatut(ChantierStatut.EN_COURS);
+            chantier.setDateIntervention(LocalDate.now());
+            chantier.setClient(client);
+            chantier.setTechnicien(technicien);
+            entityManager.persist(chantier);
+            chantierId = chantier.getId();
+            clientId = client.getId();
+            technicienId = technicien.getId();
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listPageUsesOneProbeAndOneSelect() throws Exception {
+        // Les autres tests, annulés par rollback, laissent la même version : une version propre à ce test évite de
+        // retrouver leur total gardé.
+        entityManager.createNativeQuery("UPDATE versions_listes SET version = version + :saut WHERE ressource = 'chantiers'")
+                .setParameter("saut", System.nanoTime())
+                .executeUpdate();
+        statistics.clear();
+
+        String etag = mockMvc.perform(get("/api/chantiers").param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/")))
+                .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE))
+                .andExpect(jsonPath("$.content[0].clientNom").exists())
+                .andExpect(jsonPath("$.content[0].signatureClient").doesNotExist())
+                .andExpect(jsonPath("$.countStrategy").value("CACHED"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Sonde de version, page, puis COUNT(*) gardé pour cette version.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        // Même page, même version : JSON en cache, puis 304 pour un client qui a déjà l'ETag.
+        statistics.clear();
+        mockMvc.perform(get("/api/chantiers").param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE));
+        mockMvc.perform(get("/api/chantiers").param("size", String.valueOf(PAGE_SIZE)).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        // Autre page du même filtre : le total gardé sert, sans nouveau COUNT(*).
+        statistics.clear();
+        mockMvc.perform(get("/api/chantiers").param("size", String.valueOf(PAGE_SIZE / 2)).param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.countStrategy").value("CACHED"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        // La stratégie demandée est respectée aussi sans filtre.
+        mockMvc.perform(get("/api/chantiers").param("size", String.valueOf(PAGE_SIZE)).param("count", "exact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.countStrategy").value("EXACT"));
+        mockMvc.perform(get("/api/chantiers").param("size", String.valueOf(PAGE_SIZE)).param("count", "estimated"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.countStrategy").value("ESTIMATED"));
+    }
+
+    @Test
+    void filteredListCountFollowsTheRequestedStrategy() throws Exception {
+        mockMvc.perform(get("/api/chantiers").param("q", "STATS-").param("size", "5").param("count", "exact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(PAGE_SIZE + 2))
+                .andExpect(jsonPath("$.countStrategy").value("EXACT"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+
+        // Le total mis en cache par la première page sert aux suivantes et aux autres tris.
+        statistics.clear();
+        mockMvc.perform(get("/api/chantiers").param("q", "STATS-").param("size", "5"))
+                .andExpect(jsonPath("$.totalElements").value(PAGE_SIZE + 2))
+                .andExpect(jsonPath("$.countStrategy").value("CACHED"));
+        mockMvc.perform(get("/api/chantiers").param("q", "STATS-").param("size", "5").param("page", "1")
+                        .param("sort", "reference,asc"))
+                .andExpect(jsonPath("$.totalElements").value(PAGE_SIZE + 2))
+                .andExpect(jsonPath("$.countStrategy").value("CACHED"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+
+        mockMvc.perform(get("/api/chantiers").param("statut", "EN_COURS").param("size", "5").param("count", "estimated"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.countStrategy").value("ESTIMATED"));
+        // Dernière page : le total se déduit du contenu, quelle que soit la stratégie.
+        mockMvc.perform(get("/api/chantiers").param("q", "STATS-").param("size", "50").param("count", "estimated"))
+                .andExpect(jsonPath("$.totalElements").value(PAGE_SIZE + 2))
+                .andExpect(jsonPath("$.countStrategy").value("EXACT"));
+        mockMvc.perform(get("/api/chantiers").param("q", "STATS-").param("count", "approximatif"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listRejectsSortFieldsWithoutIndex() throws Exception {
+        mockMvc.perform(get("/api/chantiers").param("sort", "dateIntervention,asc"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/chantiers").param("sort", "adresse,asc"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/chantiers").param("sort", "reference,sideways"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/chantiers").param("after", "").param("sort", "signatureRef"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/clients").param("sort", "version,desc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listEtagChangesWhenADisplayedClientIsRenamed() throws Exception {
+        String etag = mockMvc.perform(get("/api/chantiers").param("size", String.valueOf(PAGE_SIZE)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/api/clients/{id}", clientId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\": \"Client renommé\"}"))
+                .andExpect(status().isOk());
+        entityManager.flush();
+
+        mockMvc.perform(get("/api/chantiers").param("size", String.valueOf(PAGE_SIZE)).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.content[?(@.clientId == %d)].clientNom", clientId).value("Client renommé"));
+    }
+
+    @Test
+    void cursorPageUsesOneSelect() throws Exception {
+        mockMvc.perform(get("/api/chantiers").param("after", "").param("size", String.valueOf(PAGE_SIZE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(PAGE_SIZE));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cursorWalkNeitherSkipsNorRepeatsRowsOnDuplicateKeys() throws Exception {
+        Client client = new Client();
+        client.setNom("Client curseur");
+        entityManager.persist(client);
+        Technicien technicien = entityManager.find(Technicien.class, technicienId);
+        // Trois chantiers le même jour, deux autres le lendemain, deux sans date : la page coupe dans les doublons.
+        LocalDate jour = LocalDate.of(2031, 3, 1);
+        List<LocalDate> dates = Arrays.asList(jour, jour.plusDays(1), null, jour, jour.plusDays(1), jour, null);
+        List<Chantier> chantiers = new ArrayList<>();
+        for (int i = 0; i < dates.size(); i++) {
+            Chantier chantier = new Chantier();
+            chantier.setReference("CURSEUR-" + i);
+            chantier.setAdresse(i + " rue du Curseur");
+            chantier.setDateIntervention(dates.get(i));
+            chantier.setClient(client);
+            chantier.setTechnicien(technicien);
+            entityManager.persist(chantier);
+            chantiers.add(chantier);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Ordre PostgreSQL : NULLS LAST en ASC, et DESC en est l'exact inverse.
+        List<Long> asc = chantiers.stream()
+                .sorted(Comparator.comparing(Chantier::getDateIntervention, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(Chantier::getId))
+                .map(Chantier::getId)
+                .toList();
+        List<Long> desc = new ArrayList<>(asc);
+        Collections.reverse(desc);
+
+        assertThat(walk(client.getId(), "dateIntervention,asc")).containsExactlyElementsOf(asc);
+        assertThat(walk(client.getId(), "dateIntervention,desc")).containsExactlyElementsOf(desc);
+    }
+
+    private List<Long> walk(Long clientId, String sort) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = "";
+        for (int page = 0; cursor != null; page++) {
+            assertThat(page).as("pages").isLessThan(10);
+            String json = mockMvc.perform(get("/api/chantiers").param("after", cursor).param("size", "2")
+                            .param("clientId", String.valueOf(clientId)).param("sort", sort))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<Number> content = JsonPath.read(json, "$.content[*].id");
+            content.forEach(id -> ids.add(id.longValue()));
+            cursor = JsonPath.read(json, "$.nextCursor");
+        }
+        return ids;
+    }
+
+    @Test
+    void detailFetchesClientAndTechnicienInOneSelect() throws Exception {
+        mockMvc.perform(get("/api/chantiers/{id}", chantierId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.client.nom").exists())
+                .andExpect(jsonPath("$.technicien.nom").exists());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void detailAnswersNotModifiedUntilTheTechnicienChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/chantiers/{id}", chantierId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/chantiers/{id}", chantierId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/api/techniciens/{id}", technicienId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\": \"Stats\", \"prenom\": \"Renommé\", \"email\": \"stats@example.com\"}"))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+
+        mockMvc.perform(get("/api/chantiers/{id}", chantierId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.technicien.prenom").value("Renommé"));
+    }
+
+    @Test
+    void bulkImportReportsRowErrors() throws Exception {
+        String body = """
+                [
+                  {"reference": "BULK-1", "adresse": "1 rue du Lot", "clientId": %d, "technicienId": %d},
+                  {"reference": "BULK-2", "adresse": "2 rue du Lot", "clientId": -1, "technicienId": %d},
+                  {"reference": "BULK-3", "adresse": "3 rue du Lot", "statut": "INCONNU", "clientId": %d, "technicienId": %d},
+                  42,
+                  {"reference": "BULK-5", "adresse": "5 rue du Lot", "statut": "EN_COURS", "clientId": %d, "technicienId": %d}
+                ]
+                """.formatted(clientId, technicienId, technicienId, clientId, technicienId, clientId, technicienId);
+        double clientsAvant = findAllByIdCount("ClientRepository");
+        double techniciensAvant = findAllByIdCount("TechnicienRepository");
+
+        mockMvc.perform(post("/api/chantiers/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lignes").value(5))
+                .andExpect(jsonPath("$.importes").value(2))
+                .andExpect(jsonPath("$.erreurs[0].ligne").value(3))
+                .andExpect(jsonPath("$.erreurs[1].ligne").value(4))
+                .andExpect(jsonPath("$.erreurs[1].message").value("Ligne illisible : objet JSON attendu"))
+                .andExpect(jsonPath("$.erreurs[2].ligne").value(2));
+
+        // Les références du lot résolues en une requête IN chacune, puis insertion groupée.
+        assertThat(findAllByIdCount("ClientRepository") - clientsAvant).isEqualTo(1);
+        assertThat(findAllByIdCount("TechnicienRepository") - techniciensAvant).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+    }
+
+    @Test
+    void bulkImportRejectsATruncatedArray() throws Exception {
+        String body = """
+                [
+                  {"reference": "BULK-1", "adresse": "1 rue du Lot", "clientId": %d, "technicienId": %d},
+                """.formatted(clientId, technicienId);
+
+        mockMvc.perform(post("/api/chantiers/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importes").value(1))
+                .andExpect(jsonPath("$.erreurs[0].ligne").value(2))
+                .andExpect(jsonPath("$.erreurs[0].message", startsWith("JSON invalide : ")));
+    }
+
+    private double findAllByIdCount(String repository) {
+        Timer timer = meterRegistry.find("spring.data.repository.invocations")
+                .tags("repository", repository, "method", "findAllById")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    void bulkImportAcceptsCsv() throws Exception {
+        String body = """
+                reference,adresse,dateIntervention,clientId,technicienId
+                CSV-1,"5, avenue des Virgules",2030-01-15,%d,%d
+                ,sans référence,,%d,%d
+                """.formatted(clientId, technicienId, clientId, technicienId);
+
+        mockMvc.perform(post("/api/chantiers/bulk").contentType("text/csv").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lignes").value(2))
+                .andExpect(jsonPath("$.importes").value(1))
+                .andExpect(jsonPath("$.erreurs[0].message").value("Référence manquante"));
+    }
+
+    @Test
+    void createResolvesClientAndTechnicienFromCache() throws Exception {
+        String body = """
+                {"reference": "CACHE-%d", "adresse": "1 rue du Cache", "clientId": %d, "technicienId": %d}
+                """;
+
+        mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .content(body.formatted(1, clientId, technicienId)))
+                .andExpect(status().isOk());
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(2);
+
+        statistics.clear();
+        mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .content(body.formatted(2, clientId, technicienId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.client.id").value(clientId));
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        // Une modification du client évince l'entrée : la création suivante relit la base.
+        mockMvc.perform(put("/api/clients/{id}", clientId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\": \"Client renommé\"}"))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .content(body.formatted(3, clientId, technicienId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.client.nom").value("Client renommé"));
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void createdChantierIsFoundAroundItsGeocodedAddress() throws Exception {
+        String body = """
+                {"reference": "GEO-LYON", "adresse": "10 rue Garibaldi, 69003 Lyon", "clientId": %d, "technicienId": %d}
+                """.formatted(clientId, technicienId);
+        mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        entityManager.flush();
+
+        mockMvc.perform(get("/api/chantiers/near")
+                        .param("lat", "45.76").param("lon", "4.84").param("radius", "20000").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.chantier.reference == 'GEO-LYON')]").exists());
+        mockMvc.perform(get("/api/chantiers/nearest")
+                        .param("lat", "43.30").param("lon", "5.37").param("k", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].distance").isNumber());
+        mockMvc.perform(get("/api/chantiers/{id}/nearest", chantierId))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/chantiers/near").param("lat", "95").param("lon", "4.84").param("radius", "1000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/chantiers/near").param("lat", "45.76").param("lon", "4.84").param("radius", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.service.ChantierAuditListener;
+import com.example.demo.support.TestFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sans @Transactional : les événements ne sont journalisés qu'après un vrai commit.
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChantierHistoryControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private TestFixtures.Fixture fixture;
+    private Client client;
+    private Technicien technicien;
+    private Long chantierId;
+
+    @BeforeEach
+    void seed() {
+        fixture = testFixtures.forPrefix("HIST-");
+        client = fixture.client("Client historique");
+        technicien = fixture.technicien("Historique", "Tech", "historique@example.com");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void historyRecordsCreationStatusTransitionsAndDeletion() throws Exception {
+        String body = """
+                {"reference": "HIST-1", "adresse": "1 rue de l'Historique", "statut": "%s", "clientId": %d, "technicienId": %d}
+                """;
+
+        String created = mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .header(ChantierAuditListener.AUTEUR_HEADER, "alice")
+                        .content(body.formatted("BROUILLON", client.getId(), technicien.getId())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        chantierId = fixture.track(objectMapper.readTree(created).get("id").asLong());
+
+        mockMvc.perform(put("/api/chantiers/{id}", chantierId).contentType(MediaType.APPLICATION_JSON)
+                        .header(ChantierAuditListener.AUTEUR_HEADER, "bob")
+                        .content(body.formatted("EN_COURS", client.getId(), technicien.getId())))
+                .andExpect(status().isOk());
+        // Aucun champ modifié : pas d'événement.
+        mockMvc.perform(put("/api/chantiers/{id}", chantierId).contentType(MediaType.APPLICATION_JSON)
+                        .content(body.formatted("EN_COURS", client.getId(), technicien.getId())))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/chantiers/{id}/cloturer", chantierId))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/chantiers/{id}", chantierId))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/chantiers/{id}/history", chantierId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(4))
+                .andExpect(jsonPath("$.content[0].type").value("CREATION"))
+                .andExpect(jsonPath("$.content[0].auteur").value("alice"))
+                .andExpect(jsonPath("$.content[0].changements.reference[1]").value("HIST-1"))
+                .andExpect(jsonPath("$.content[1].type").value("CHANGEMENT_STATUT"))
+                .andExpect(jsonPath("$.content[1].auteur").value("bob"))
+                .andExpect(jsonPath("$.content[1].statutAvant").value("BROUILLON"))
+                .andExpect(jsonPath("$.content[1].statutApres").value("EN_COURS"))
+                .andExpect(jsonPath("$.content[1].changements.statut[0]").value("BROUILLON"))
+                .andExpect(jsonPath("$.content[1].changements.adresse").doesNotExist())
+                .andExpect(jsonPath("$.content[2].statutAvant").value("EN_COURS"))
+                .andExpect(jsonPath("$.content[2].statutApres").value("TERMINE"))
+                .andExpect(jsonPath("$.content[3].type").value("SUPPRESSION"));
+    }
+}
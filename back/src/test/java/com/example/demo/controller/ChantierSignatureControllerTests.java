@@ -0,0 +1,203 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.repository.ChantierRepository;
+import com.example.demo.service.SignatureMigration;
+import com.example.demo.service.SignatureService;
+import com.example.demo.support.TestFixtures;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "signatures.max-size=1024")
+@AutoConfigureMockMvc
+@Transactional
+class ChantierSignatureControllerTests {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 1, 2, 3, 4};
+
+    @TempDir
+    static Path storageDir;
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("signatures.storage-dir", storageDir::toString);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SignatureMigration signatureMigration;
+
+    @Autowired
+    private SignatureService signatureService;
+
+    @Autowired
+    private ChantierRepository chantierRepository;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private Long chantierId;
+
+    @BeforeEach
+    void seed() {
+        TestFixtures.Fixture fixture = testFixtures.forPrefix("SIG-");
+        chantierId = fixture.chantier("SIG-1", "1 rue de la Signature", ChantierStatut.BROUILLON, null,
+                fixture.client("Client signature"), fixture.technicien("Signature", "Tech", "signature@example.com"))
+                .getId();
+    }
+
+    @Test
+    void uploadThenDownloadWithEtagAndRange() throws Exception {
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(PNG));
+
+        mockMvc.perform(put("/api/chantiers/{id}/signature", chantierId).contentType("image/png").content(PNG))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha256 + "\""))
+                .andExpect(jsonPath("$.taille").value(PNG.length))
+                .andExpect(jsonPath("$.dateSignature").exists());
+        assertThat(storageDir.resolve(sha256.substring(0, 2)).resolve(sha256)).exists();
+
+        mockMvc.perform(get("/api/chantiers/{id}", chantierId))
+                .andExpect(jsonPath("$.signatureSha256").value(sha256))
+                .andExpect(jsonPath("$.signatureRef").doesNotExist());
+
+        mockMvc.perform(get("/api/chantiers/{id}/signature", chantierId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(content().bytes(PNG));
+
+        mockMvc.perform(get("/api/chantiers/{id}/signature", chantierId).header(HttpHeaders.IF_NONE_MATCH, "\"" + sha256 + "\""))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/chantiers/{id}/signature", chantierId).header(HttpHeaders.RANGE, "bytes=0-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-3/" + PNG.length))
+                .andExpect(content().bytes(new byte[]{(byte) 0x89, 'P', 'N', 'G'}));
+    }
+
+    @Test
+    void multipartUploadAndDeleteReleasesFile() throws Exception {
+        var file = new MockMultipartFile("file", "signature.png", "image/png", PNG);
+        mockMvc.perform(multipart("/api/chantiers/{id}/signature", chantierId).file(file).with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                }))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/chantiers/{id}/signature", chantierId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/chantiers/{id}/signature", chantierId))
+                .andExpect(status().isNotFound());
+        try (var files = Files.walk(storageDir)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void releaseBetweenStoreAndAttachKeepsTheFile() throws Exception {
+        var stored = signatureService.store(new ByteArrayInputStream(PNG));
+        // Même contenu libéré ailleurs (dernier chantier qui le référençait) avant le rattachement.
+        signatureService.release(stored.ref());
+
+        signatureService.attach(chantierRepository.findById(chantierId).orElseThrow(), stored, "image/png");
+
+        assertThat(storageDir.resolve(stored.ref())).exists();
+        assertThat(stored.fichier()).doesNotExist();
+    }
+
+    @Test
+    void rejectsOversizedAndNonImageUploads() throws Exception {
+        mockMvc.perform(put("/api/chantiers/{id}/signature", chantierId).contentType("image/png").content(new byte[2048]))
+                .andExpect(status().isPayloadTooLarge());
+
+        var texte = new MockMultipartFile("file", "signature.txt", "text/plain", "pas une image".getBytes());
+        mockMvc.perform(multipart("/api/chantiers/{id}/signature", chantierId).file(texte).with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                }))
+                .andExpect(status().isUnsupportedMediaType());
+
+        mockMvc.perform(put("/api/chantiers/{id}/signature", chantierId).contentType("text/plain").content("x"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void migrationMovesInlineSignaturesOutOfTheRow() throws Exception {
+        jdbcTemplate.execute("ALTER TABLE chantiers ADD COLUMN signature_client text");
+        jdbcTemplate.update("UPDATE chantiers SET signature_client = ? WHERE id = ?",
+                "data:image/png;base64," + Base64.getEncoder().encodeToString(PNG), chantierId);
+
+        signatureMigration.run(null);
+
+        // Reprise vérifiée, mais la colonne ne part qu'au démarrage suivant.
+        assertThat(legacyColumns()).isOne();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT signature_client FROM chantiers WHERE id = ?", String.class, chantierId)).isNull();
+        entityManager.clear();
+        mockMvc.perform(get("/api/chantiers/{id}/signature", chantierId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(content().bytes(PNG));
+
+        signatureMigration.run(null);
+        assertThat(legacyColumns()).isZero();
+    }
+
+    @Test
+    void migrationKeepsNonBase64SignaturesAsText() throws Exception {
+        jdbcTemplate.execute("ALTER TABLE chantiers ADD COLUMN signature_client text");
+        // Le décodeur MIME ignorerait les espaces et la ponctuation et produirait des octets quelconques.
+        jdbcTemplate.update("UPDATE chantiers SET signature_client = ? WHERE id = ?", "Signé: J. Dupont", chantierId);
+
+        signatureMigration.run(null);
+
+        entityManager.clear();
+        mockMvc.perform(get("/api/chantiers/{id}/signature", chantierId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/plain;charset=UTF-8"))
+                .andExpect(content().string("Signé: J. Dupont"));
+    }
+
+    private Long legacyColumns() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM information_schema.columns WHERE table_name = 'chantiers' AND column_name = 'signature_client'",
+                Long.class);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.support.TestFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sans @Transactional : les notifications partent après le commit.
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChantierStreamTests {
+
+    private static final String PREFIXE = "STREAM-";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private TestFixtures.Fixture fixture;
+    private Client client;
+    private Technicien technicien;
+    private Technicien autre;
+    private final List<MvcResult> flux = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        fixture = testFixtures.forPrefix(PREFIXE);
+        client = fixture.client("Client flux");
+        technicien = fixture.technicien("Flux", "Tech", "flux@example.com");
+        autre = fixture.technicien("Flux", "Autre", "flux-autre@example.com");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        flux.forEach(result -> result.getRequest().getAsyncContext().complete());
+        fixture.cleanUp();
+    }
+
+    @Test
+    void subscribersReceiveTheChangesMatchingTheirFilter() throws Exception {
+        MvcResult duTechnicien = subscribe("technicienId", technicien.getId().toString());
+        MvcResult termines = subscribe("statut", "TERMINE");
+        MvcResult deLAutre = subscribe("technicienId", autre.getId().toString());
+
+        String body = mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"reference": "%sCLOTURE", "adresse": "1 rue du Flux", "statut": "EN_COURS",
+                         "clientId": %d, "technicienId": %d}
+                        """.formatted(PREFIXE, client.getId(), technicien.getId())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(body).path("id").asLong();
+        mockMvc.perform(post("/api/chantiers/{id}/cloturer", id))
+                .andExpect(status().isOk());
+
+        String evenements = awaitContent(duTechnicien, "\"type\":\"CHANGEMENT_STATUT\"");
+        assertThat(evenements).contains("event:chantier", "\"type\":\"CREATION\"", "\"statutAvant\":\"EN_COURS\"");
+        assertThat(awaitContent(termines, "\"type\":\"CHANGEMENT_STATUT\""))
+                .doesNotContain("\"type\":\"CREATION\"")
+                .contains("\"reference\":\"" + PREFIXE + "CLOTURE\"");
+        assertThat(deLAutre.getResponse().getContentAsString()).doesNotContain("event:chantier");
+    }
+
+    private MvcResult subscribe(String param, String value) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/chantiers/stream").param(param, value))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        flux.add(result);
+        return result;
+    }
+
+    // Les notifications sont envoyées par un thread virtuel après le commit.
+    private static String awaitContent(MvcResult result, String attendu) throws Exception {
+        long limite = System.currentTimeMillis() + 5000;
+        String contenu = result.getResponse().getContentAsString();
+        while (!contenu.contains(attendu) && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+            contenu = result.getResponse().getContentAsString();
+        }
+        assertThat(contenu).contains(attendu);
+        return contenu;
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Client;
+import com.example.demo.service.PlanningService;
+import com.example.demo.support.TestFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sans @Transactional : l'index du planning suit les écritures validées, le nettoyage passe par l'API.
+@SpringBootTest
+@AutoConfigureMockMvc
+class PlanningControllerTests {
+
+    private static final String JOUR = "2031-03-10";
+    private static final String LENDEMAIN = "2031-03-11";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlanningService planningService;
+
+    private TestFixtures.Fixture fixture;
+    private Client client;
+    private Long technicienId;
+    private final List<Long> chantierIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() throws Exception {
+        fixture = testFixtures.forPrefix("PLAN-");
+        client = fixture.client("Client planning");
+
+        String technicien = mockMvc.perform(post("/api/techniciens").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\": \"Planning\", \"prenom\": \"Tech\", \"email\": \"planning@example.com\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        technicienId = objectMapper.readTree(technicien).get("id").asLong();
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        for (Long id : chantierIds) {
+            mockMvc.perform(delete("/api/chantiers/{id}", id));
+        }
+        mockMvc.perform(delete("/api/techniciens/{id}", technicienId));
+        fixture.cleanUp();
+    }
+
+    @Test
+    void rejectsDoubleBookingAndAnswersFromMemory() throws Exception {
+        Long premier = create("PLAN-1", JOUR);
+
+        mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON).content(body("PLAN-2", JOUR, "EN_COURS")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.technicienId").value(technicienId))
+                .andExpect(jsonPath("$.chantierIds[0]").value(premier));
+        // Un chantier refusé n'occupe pas le technicien.
+        chantierIds.add(idOf(mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .content(body("PLAN-3", JOUR, "REFUSE")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/techniciens/available").param("date", JOUR))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", not(hasItem(technicienId.intValue()))));
+        mockMvc.perform(get("/api/techniciens/available").param("date", LENDEMAIN))
+                .andExpect(jsonPath("$[*].id", hasItem(technicienId.intValue())));
+        mockMvc.perform(get("/api/planning").param("from", JOUR).param("to", LENDEMAIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.techniciens[?(@.technicienId == %d)].total", technicienId).value(1))
+                .andExpect(jsonPath("$.techniciens[?(@.technicienId == %d)].jours['%s'][0]", technicienId, JOUR)
+                        .value(premier.intValue()));
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void updateMovesTheAssignment() throws Exception {
+        Long id = create("PLAN-4", JOUR);
+
+        // Re-soumettre le même créneau n'est pas un conflit avec soi-même.
+        mockMvc.perform(put("/api/chantiers/{id}", id).contentType(MediaType.APPLICATION_JSON).content(body("PLAN-4", LENDEMAIN, "EN_COURS")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/techniciens/available").param("date", JOUR))
+                .andExpect(jsonPath("$[*].id", hasItem(technicienId.intValue())));
+        mockMvc.perform(get("/api/techniciens/available").param("date", LENDEMAIN))
+                .andExpect(jsonPath("$[*].id", not(hasItem(technicienId.intValue()))));
+
+        mockMvc.perform(get("/api/planning").param("from", LENDEMAIN).param("to", JOUR))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void updateChecksConflictsOnlyWhenTheSlotChanges() throws Exception {
+        Long occupe = create("PLAN-5", JOUR);
+        Long refuse = idOf(mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .content(body("PLAN-6", JOUR, "REFUSE")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        chantierIds.add(refuse);
+
+        // Un chantier refusé qui redevient actif reprend une place : contrôlé.
+        mockMvc.perform(put("/api/chantiers/{id}", refuse).contentType(MediaType.APPLICATION_JSON)
+                        .content(body("PLAN-6", JOUR, "EN_COURS")))
+                .andExpect(status().isConflict());
+
+        // Double réservation antérieure au contrôle : modifier un chantier sans le déplacer reste possible.
+        jdbcTemplate.update("UPDATE chantiers SET statut = 'EN_COURS' WHERE id = ?", refuse);
+        planningService.rebuild();
+        mockMvc.perform(put("/api/chantiers/{id}", occupe).contentType(MediaType.APPLICATION_JSON)
+                        .content(body("PLAN-5", JOUR, "TERMINE")))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/chantiers/{id}", occupe).contentType(MediaType.APPLICATION_JSON)
+                        .content(body("PLAN-5", LENDEMAIN, "TERMINE")))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/chantiers/{id}", occupe).contentType(MediaType.APPLICATION_JSON)
+                        .content(body("PLAN-5", JOUR, "TERMINE")))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void concurrentBookingsOfTheSameSlotLetOnlyOneThrough() throws Exception {
+        int requetes = 8;
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<String>> reponses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(requetes)) {
+            for (int i = 0; i < requetes; i++) {
+                String reference = "PLAN-C" + i;
+                reponses.add(executor.submit(() -> {
+                    depart.await();
+                    var response = mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                            .content(body(reference, JOUR, "EN_COURS"))).andReturn().getResponse();
+                    return response.getStatus() == 200 ? response.getContentAsString() : null;
+                }));
+            }
+            depart.countDown();
+        }
+
+        List<String> creees = new ArrayList<>();
+        for (Future<String> reponse : reponses) {
+            if (reponse.get() != null) {
+                creees.add(reponse.get());
+            }
+        }
+        for (String json : creees) {
+            chantierIds.add(fixture.track(idOf(json)));
+        }
+        assertThat(creees).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM chantiers WHERE technicien_id = ? AND date_intervention = DATE '" + JOUR + "'",
+                Long.class, technicienId)).isEqualTo(1);
+    }
+
+    @Test
+    void optimizeSkipsBookedDaysAndKeepsOneChantierPerDay() throws Exception {
+        create("PLAN-5", JOUR);
+
+        mockMvc.perform(post("/api/planning/optimize").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"technicienIds": [%d], "proximite": true, "budgetMs": 50, "chantiers": [
+                          {"reference": "OPT-1", "adresse": "1 rue A, 69001 Lyon", "dateIntervention": "%s"},
+                          {"reference": "OPT-2", "adresse": "2 rue B, 69002 Lyon", "dateIntervention": "%s"},
+                          {"reference": "OPT-3", "adresse": "3 rue C, 75011 Paris", "dateIntervention": "%s"},
+                          {"reference": "OPT-4", "adresse": "4 rue D"}
+                        ]}
+                        """.formatted(technicienId, JOUR, LENDEMAIN, LENDEMAIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affectations.length()").value(1))
+                .andExpect(jsonPath("$.affectations[0].technicienId").value(technicienId))
+                .andExpect(jsonPath("$.affectations[0].dateIntervention").value(LENDEMAIN))
+                .andExpect(jsonPath("$.nonAffectes.length()").value(3))
+                .andExpect(jsonPath("$.nonAffectes[0].reference").value("OPT-1"))
+                .andExpect(jsonPath("$.nonAffectes[2].reference").value("OPT-4"));
+
+        mockMvc.perform(post("/api/planning/optimize").contentType(MediaType.APPLICATION_JSON).content("{\"chantiers\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long create(String reference, String date) throws Exception {
+        Long id = idOf(mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .content(body(reference, date, "EN_COURS")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        chantierIds.add(fixture.track(id));
+        return id;
+    }
+
+    private Long idOf(String json) throws Exception {
+        return objectMapper.readTree(json).get("id").asLong();
+    }
+
+    private String body(String reference, String date, String statut) {
+        return """
+                {"reference": "%s", "adresse": "1 rue du Planning", "dateIntervention": "%s", "statut": "%s",
+                 "clientId": %d, "technicienId": %d}
+                """.formatted(reference, date, statut, client.getId(), technicienId);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Client;
+import com.example.demo.support.TestFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sans @Transactional : le rafraîchissement lit les écritures validées, le nettoyage passe par l'API.
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReportControllerTests {
+
+    private static final String MOIS = "2032-07";
+    private static final String TYPE = "RAPPORT-TEST";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private TestFixtures.Fixture fixture;
+    private Client client;
+    private Long technicienId;
+    private final List<Long> chantierIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() throws Exception {
+        fixture = testFixtures.forPrefix("RAP-");
+        client = fixture.client("Client rapports");
+
+        String technicien = mockMvc.perform(post("/api/techniciens").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\": \"Rapport\", \"prenom\": \"Tech\", \"email\": \"rapport@example.com\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        technicienId = objectMapper.readTree(technicien).get("id").asLong();
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        for (Long id : chantierIds) {
+            mockMvc.perform(delete("/api/chantiers/{id}", id));
+        }
+        mockMvc.perform(post("/api/reports/refresh"));
+        mockMvc.perform(delete("/api/techniciens/{id}", technicienId));
+        fixture.cleanUp();
+    }
+
+    @Test
+    void refreshAppliesCreationsUpdatesAndDeletions() throws Exception {
+        Long premier = create("RAP-1", MOIS + "-03");
+        create("RAP-2", MOIS + "-20");
+        Long troisieme = create("RAP-3", MOIS + "-21");
+
+        mockMvc.perform(post("/api/reports/refresh"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.complet").value(false));
+        mockMvc.perform(get("/api/reports/installations").param("from", MOIS).param("to", MOIS))
+                .andExpect(jsonPath("$.lignes[?(@.typeInstallation == '%s')].total", TYPE).value(3));
+
+        mockMvc.perform(put("/api/chantiers/{id}", premier).contentType(MediaType.APPLICATION_JSON)
+                        .content(body("RAP-1", MOIS + "-03", "TERMINE")))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/chantiers/{id}", troisieme)).andExpect(status().isNoContent());
+
+        mockMvc.perform(post("/api/reports/refresh"))
+                .andExpect(jsonPath("$.modifies").value(1))
+                .andExpect(jsonPath("$.supprimes").value(1));
+        // Rejouer sans nouvelle écriture ne change rien.
+        mockMvc.perform(post("/api/reports/refresh"))
+                .andExpect(jsonPath("$.modifies").value(0));
+
+        mockMvc.perform(get("/api/reports/techniciens").param("from", MOIS).param("to", MOIS))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lignes[?(@.technicienId == %d)].total", technicienId).value(2))
+                .andExpect(jsonPath("$.lignes[?(@.technicienId == %d)].parStatut.EN_COURS", technicienId).value(1))
+                .andExpect(jsonPath("$.lignes[?(@.technicienId == %d)].parStatut.TERMINE", technicienId).value(1));
+        mockMvc.perform(get("/api/reports/monthly").param("from", MOIS).param("to", MOIS))
+                .andExpect(jsonPath("$.lignes[0].mois").value(MOIS))
+                .andExpect(jsonPath("$.rafraichiLe").exists());
+
+        // La reconstruction complète aboutit au même résultat.
+        mockMvc.perform(post("/api/reports/refresh").param("full", "true"))
+                .andExpect(jsonPath("$.complet").value(true));
+        mockMvc.perform(get("/api/reports/installations").param("from", MOIS).param("to", MOIS))
+                .andExpect(jsonPath("$.lignes[?(@.typeInstallation == '%s')].total", TYPE).value(2));
+    }
+
+    @Test
+    void rejectsInvertedPeriod() throws Exception {
+        mockMvc.perform(get("/api/reports/monthly").param("from", "2032-08").param("to", MOIS))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/reports/installations").param("from", "1990-01").param("to", "1990-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lignes", empty()));
+    }
+
+    private Long create(String reference, String date) throws Exception {
+        String json = mockMvc.perform(post("/api/chantiers").contentType(MediaType.APPLICATION_JSON)
+                        .content(body(reference, date, "EN_COURS")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long id = objectMapper.readTree(json).get("id").asLong();
+        chantierIds.add(fixture.track(id));
+        return id;
+    }
+
+    private String body(String reference, String date, String statut) {
+        return """
+                {"reference": "%s", "adresse": "1 rue des Rapports", "typeInstallation": "%s",
+                 "dateIntervention": "%s", "statut": "%s", "clientId": %d, "technicienId": %d}
+                """.formatted(reference, TYPE, date, statut, client.getId(), technicienId);
+    }
+}
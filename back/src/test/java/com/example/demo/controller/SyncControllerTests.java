@@ -0,0 +1,217 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.support.TestFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sans @Transactional : le lot a sa propre transaction et le flux NDJSON est lu sur un autre thread.
+@SpringBootTest
+@AutoConfigureMockMvc
+class SyncControllerTests {
+
+    private static final String PREFIXE = "SYNC-";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestFixtures.Fixture fixture;
+    private Client client;
+    private Technicien technicien;
+
+    @BeforeEach
+    void seed() {
+        fixture = testFixtures.forPrefix(PREFIXE);
+        client = fixture.client("Client synchro");
+        technicien = fixture.technicien("Synchro", "Tech", "synchro@example.com");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void offlineBatchIsAppliedAndDeltasFollowTheToken() throws Exception {
+        // Chantier ancien, hors de la fenêtre du prochain jeton.
+        long ancien = createViaBatch(PREFIXE + "ANCIEN");
+        jdbcTemplate.update("UPDATE chantiers SET created_at = created_at - interval '1 day', updated_at = NULL WHERE id = ?",
+                ancien);
+
+        List<JsonNode> complet = sync(null);
+        assertThat(complet.get(0).path("complet").asBoolean()).isTrue();
+        assertThat(upserts(complet, "chantier")).contains(ancien);
+        assertThat(upserts(complet, "client")).contains(client.getId());
+        String token = complet.get(complet.size() - 1).path("token").asText();
+        assertThat(token).isNotEmpty();
+
+        // Création, check-list sur la création (ref provisoire) et modification dans un seul lot.
+        String lot = """
+                [{"ref": "tmp-1", "ressource": "CHANTIER", "operation": "CREATION",
+                  "data": {"reference": "%1$sNOUVEAU", "adresse": "1 rue Hors Ligne", "statut": "EN_COURS",
+                           "clientId": %2$d, "technicienId": %3$d}},
+                 {"ressource": "VERIFICATION", "operation": "CHECKLIST", "cibleRef": "tmp-1",
+                  "data": [{"point": "Pression", "resultat": "CONFORME"}, {"point": "Fuites"}]},
+                 {"ressource": "CHANTIER", "operation": "MODIFICATION", "cibleRef": "tmp-1",
+                  "data": {"reference": "%1$sNOUVEAU", "adresse": "2 rue Hors Ligne", "statut": "EN_COURS",
+                           "clientId": %2$d, "technicienId": %3$d, "version": 0}}]
+                """.formatted(PREFIXE, client.getId(), technicien.getId());
+        String body = mockMvc.perform(post("/api/sync").contentType(MediaType.APPLICATION_JSON).content(lot))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].ref").value("tmp-1"))
+                .andExpect(jsonPath("$[1].checklist.avancement.total").value(2))
+                .andExpect(jsonPath("$[2].chantier.adresse").value("2 rue Hors Ligne"))
+                .andExpect(jsonPath("$[2].chantier.version").value(1))
+                .andReturn().getResponse().getContentAsString();
+        long nouveau = objectMapper.readTree(body).get(0).path("id").asLong();
+
+        List<JsonNode> delta = sync(token);
+        assertThat(delta.get(0).path("complet").asBoolean()).isFalse();
+        assertThat(upserts(delta, "chantier")).contains(nouveau).doesNotContain(ancien);
+        assertThat(delta).filteredOn(l -> "verification".equals(l.path("type").asText())
+                        && l.path("data").path("chantierId").asLong() == nouveau)
+                .hasSize(2);
+
+        // Les suppressions, y compris en cascade, partent comme des lignes delete.
+        List<Long> verifications = jdbcTemplate.queryForList(
+                "SELECT id FROM verification_chantier WHERE chantier_id = ?", Long.class, nouveau);
+        mockMvc.perform(post("/api/sync").contentType(MediaType.APPLICATION_JSON).content("""
+                        [{"ressource": "CHANTIER", "operation": "SUPPRESSION", "id": %d}]""".formatted(nouveau)))
+                .andExpect(status().isOk());
+        List<JsonNode> suppressions = sync(delta.get(delta.size() - 1).path("token").asText());
+        assertThat(deletes(suppressions, "chantier")).contains(nouveau);
+        assertThat(deletes(suppressions, "verification")).containsAll(verifications);
+    }
+
+    @Test
+    void failingBatchIsRolledBackEntirely() throws Exception {
+        String lot = """
+                [{"ref": "tmp-1", "ressource": "CHANTIER", "operation": "CREATION",
+                  "data": {"reference": "%sANNULE", "adresse": "Nulle part", "clientId": %d, "technicienId": %d}},
+                 {"ref": "tmp-2", "ressource": "CHANTIER", "operation": "CLOTURE", "id": -1}]
+                """.formatted(PREFIXE, client.getId(), technicien.getId());
+        mockMvc.perform(post("/api/sync").contentType(MediaType.APPLICATION_JSON).content(lot))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.index").value(1))
+                .andExpect(jsonPath("$.ref").value("tmp-2"))
+                .andExpect(jsonPath("$.raison").value("INTROUVABLE"));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM chantiers WHERE reference = ?", Long.class, PREFIXE + "ANNULE")).isZero();
+
+        mockMvc.perform(post("/api/sync").contentType(MediaType.APPLICATION_JSON).content("""
+                        [{"ressource": "VERIFICATION", "operation": "CHECKLIST", "cibleRef": "inconnue", "data": []}]"""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.raison").value("INVALIDE"));
+        mockMvc.perform(get("/api/sync").param("since", "pas-un-jeton"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void planningConflictsSeeEarlierWritesOfTheSameBatch() throws Exception {
+        String jour = "2031-03-14";
+        String lendemain = "2031-03-15";
+        String doublon = """
+                [{"ref": "tmp-1", "ressource": "CHANTIER", "operation": "CREATION",
+                  "data": {"reference": "%1$sJOUR-1", "adresse": "1 rue du Lot", "dateIntervention": "%4$s",
+                           "clientId": %2$d, "technicienId": %3$d}},
+                 {"ref": "tmp-2", "ressource": "CHANTIER", "operation": "CREATION",
+                  "data": {"reference": "%1$sJOUR-2", "adresse": "2 rue du Lot", "dateIntervention": "%4$s",
+                           "clientId": %2$d, "technicienId": %3$d}}]
+                """.formatted(PREFIXE, client.getId(), technicien.getId(), jour);
+        mockMvc.perform(post("/api/sync").contentType(MediaType.APPLICATION_JSON).content(doublon))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.index").value(1))
+                .andExpect(jsonPath("$.raison").value("CONFLIT"));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM chantiers WHERE reference LIKE ?", Long.class, PREFIXE + "JOUR-%")).isZero();
+
+        // Le premier chantier est déplacé plus tôt dans le lot : le jour est libre pour le second.
+        String deplacement = """
+                [{"ref": "tmp-1", "ressource": "CHANTIER", "operation": "CREATION",
+                  "data": {"reference": "%1$sJOUR-1", "adresse": "1 rue du Lot", "dateIntervention": "%4$s",
+                           "clientId": %2$d, "technicienId": %3$d}},
+                 {"ressource": "CHANTIER", "operation": "MODIFICATION", "cibleRef": "tmp-1",
+                  "data": {"reference": "%1$sJOUR-1", "adresse": "1 rue du Lot", "dateIntervention": "%5$s",
+                           "clientId": %2$d, "technicienId": %3$d, "version": 0}},
+                 {"ref": "tmp-2", "ressource": "CHANTIER", "operation": "CREATION",
+                  "data": {"reference": "%1$sJOUR-2", "adresse": "2 rue du Lot", "dateIntervention": "%4$s",
+                           "clientId": %2$d, "technicienId": %3$d}}]
+                """.formatted(PREFIXE, client.getId(), technicien.getId(), jour, lendemain);
+        mockMvc.perform(post("/api/sync").contentType(MediaType.APPLICATION_JSON).content(deplacement))
+                .andExpect(status().isOk());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM chantiers WHERE reference LIKE ?", Long.class, PREFIXE + "JOUR-%")).isEqualTo(2);
+    }
+
+    private long createViaBatch(String reference) throws Exception {
+        String body = mockMvc.perform(post("/api/sync").contentType(MediaType.APPLICATION_JSON).content("""
+                        [{"ressource": "CHANTIER", "operation": "CREATION",
+                          "data": {"reference": "%s", "adresse": "Adresse", "clientId": %d, "technicienId": %d}}]
+                        """.formatted(reference, client.getId(), technicien.getId())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get(0).path("id").asLong();
+    }
+
+    private List<JsonNode> sync(String token) throws Exception {
+        var requete = get("/api/sync");
+        if (token != null) {
+            requete.param("since", token);
+        }
+        MvcResult result = mockMvc.perform(requete).andExpect(request().asyncStarted()).andReturn();
+        String ndjson = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> lignes = new ArrayList<>();
+        for (String ligne : ndjson.split("\n")) {
+            lignes.add(objectMapper.readTree(ligne));
+        }
+        assertThat(lignes.get(lignes.size() - 1).path("type").asText()).isEqualTo("fin");
+        return lignes;
+    }
+
+    private static List<Long> upserts(List<JsonNode> lignes, String type) {
+        return lignes.stream()
+                .filter(l -> type.equals(l.path("type").asText()) && "upsert".equals(l.path("op").asText()))
+                .map(l -> l.path("data").path("id").asLong())
+                .toList();
+    }
+
+    private static List<Long> deletes(List<JsonNode> lignes, String type) {
+        return lignes.stream()
+                .filter(l -> type.equals(l.path("type").asText()) && "delete".equals(l.path("op").asText()))
+                .map(l -> l.path("id").asLong())
+                .toList();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.support.TestFixtures;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class VerificationChantierControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private Long chantierId;
+
+    @BeforeEach
+    void seed() {
+        TestFixtures.Fixture fixture = testFixtures.forPrefix("CHECKLIST-");
+        chantierId = fixture.chantier("CHECKLIST-1", "1 rue de la Check-list", ChantierStatut.EN_COURS, null,
+                fixture.client("Client check-list"), fixture.technicien("Check", "List", "checklist@example.com"))
+                .getId();
+    }
+
+    @Test
+    void checklistIsSubmittedInOneRequestAndResubmissionUpdatesPoints() throws Exception {
+        // 30 points, dont les 10 derniers encore à vérifier.
+        String checklist = IntStream.range(0, 30)
+                .mapToObj(i -> i < 20
+                        ? """
+                          {"point": "P%02d", "resultat": "CONFORME", "mesure": %d.5, "unite": "bar"}""".formatted(i, i)
+                        : """
+                          {"point": "P%02d"}""".formatted(i))
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mockMvc.perform(post("/api/verifications/chantier/{id}/checklist", chantierId)
+                        .contentType(MediaType.APPLICATION_JSON).content(checklist))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.creees").value(30))
+                .andExpect(jsonPath("$.misesAJour").value(0))
+                .andExpect(jsonPath("$.avancement.total").value(30))
+                .andExpect(jsonPath("$.avancement.faites").value(20));
+
+        // Deux points complétés, un nouveau : pas de doublon.
+        mockMvc.perform(post("/api/verifications/chantier/{id}/checklist", chantierId)
+                        .contentType(MediaType.APPLICATION_JSON).content("""
+                                [{"point": "P20", "resultat": "NON_CONFORME", "commentaire": "Fuite"},
+                                 {"point": "P21", "resultat": "NON_APPLICABLE"},
+                                 {"point": "P30", "resultat": "CONFORME"}]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.creees").value(1))
+                .andExpect(jsonPath("$.misesAJour").value(2))
+                .andExpect(jsonPath("$.avancement.total").value(31))
+                .andExpect(jsonPath("$.avancement.faites").value(23));
+
+        mockMvc.perform(get("/api/verifications/chantier/{id}", chantierId).param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(31))
+                .andExpect(jsonPath("$.content.length()").value(10))
+                .andExpect(jsonPath("$.content[0].point").value("P00"))
+                .andExpect(jsonPath("$.content[0].mesure").value(0.5))
+                .andExpect(jsonPath("$.content[0].chantierId").value(chantierId));
+
+        // L'avancement vient des compteurs du chantier, y compris dans la liste des chantiers.
+        mockMvc.perform(get("/api/verifications/chantier/{id}/avancement", chantierId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.progression").value(23.0 / 31));
+        mockMvc.perform(get("/api/chantiers").param("q", "CHECKLIST-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].verificationsTotal").value(31))
+                .andExpect(jsonPath("$.content[0].verificationsFaites").value(23));
+    }
+
+    @Test
+    void invalidChecklistsAreRejected() throws Exception {
+        mockMvc.perform(post("/api/verifications/chantier/{id}/checklist", chantierId)
+                        .contentType(MediaType.APPLICATION_JSON).content("[{\"point\": \"A\"}, {\"point\": \"A\"}]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/verifications/chantier/{id}/checklist", chantierId)
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/verifications/chantier/{id}/checklist", -1)
+                        .contentType(MediaType.APPLICATION_JSON).content("[{\"point\": \"A\"}]"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void deletingAVerificationUpdatesProgress() throws Exception {
+        mockMvc.perform(post("/api/verifications/chantier/{id}/checklist", chantierId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"point\": \"A\", \"resultat\": \"CONFORME\"}, {\"point\": \"B\"}]"))
+                .andExpect(status().isOk());
+        String body = mockMvc.perform(get("/api/verifications/chantier/{id}", chantierId))
+                .andReturn().getResponse().getContentAsString();
+        long id = JsonPath.<Number>read(body, "$.content[0].id").longValue();
+
+        mockMvc.perform(delete("/api/verifications/{id}", id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/verifications/chantier/{id}/avancement", chantierId))
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.faites").value(0));
+    }
+}
@@ -0,0 +1,377 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ChantierFilter;
+import com.example.demo.dto.ChantierSummary;
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.pagination.KeysetSpecification;
+import com.example.demo.pagination.SortableFields;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+@SpringBootTest
+@Transactional
+class ChantierRepositoryTests {
+
+    @Autowired
+    private ChantierRepository chantierRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private TechnicienRepository technicienRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private List<Chantier> chantiers;
+
+    @BeforeEach
+    void seed() {
+        Client client = new Client();
+        client.setNom("Client test recherche");
+        clientRepository.save(client);
+        Technicien technicien = technicienRepository.save(new Technicien("Test", "Recherche", "recherche@example.com"));
+
+        chantiers = List.of(
+                chantier("ZZTRGM-001", "12 rue des Lilas, Lyon", client, technicien),
+                chantier("ZZTRGM-002", "4 avenue Foch, Paris", client, technicien),
+                chantier("ZZTRGM-LILAS", "1 place Bellecour, Lyon", client, technicien),
+                chantier("ZZTRGM-003", "8 impasse des lilas, Nantes", client, technicien)
+        );
+        chantierRepository.saveAllAndFlush(chantiers);
+    }
+
+    @Test
+    void trigramIndexesExist() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE tablename = 'chantiers'", String.class);
+
+        assertThat(indexes).contains("idx_chantiers_reference_trgm", "idx_chantiers_adresse_trgm");
+    }
+
+    @Test
+    void searchMatchesSubstringFilter() {
+        String q = "LiLaS";
+
+        Set<Long> attendus = chantiers.stream()
+                .filter(c -> c.getReference().toLowerCase().contains(q.toLowerCase())
+                        || c.getAdresse().toLowerCase().contains(q.toLowerCase()))
+                .map(Chantier::getId)
+                .collect(Collectors.toSet());
+
+        Set<Long> search = chantierRepository.search(ChantierFilter.of(q, null, null), PageRequest.of(0, 50))
+                .getContent().stream()
+                .map(ChantierSummary::id)
+                .collect(Collectors.toSet());
+        Set<Long> ranked = Set.copyOf(chantierRepository.searchRankedIds(q, PageRequest.of(0, 50)).getContent());
+
+        assertThat(attendus).hasSize(3);
+        assertThat(search).containsAll(attendus);
+        assertThat(ranked).isEqualTo(search);
+    }
+
+    @Test
+    void searchRankedOrdersBestMatchFirst() {
+        var page = chantierRepository.searchRankedIds("zztrgm-lilas", PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent().get(0)).isEqualTo(chantiers.get(2).getId());
+    }
+
+    @Test
+    void searchCombinesOnlyTheSuppliedCriteria() {
+        Chantier lilas = chantiers.get(0);
+        ChantierFilter filter = ChantierFilter.of("lilas", List.of(ChantierStatut.BROUILLON, ChantierStatut.EN_COURS),
+                null, LocalDate.now().minusDays(1), LocalDate.now(), List.of(lilas.getTechnicien().getId()),
+                List.of(lilas.getClient().getId()), null);
+
+        var page = chantierRepository.search(filter, PageRequest.of(0, 10, Sort.by("reference")));
+
+        assertThat(page.getContent()).extracting(ChantierSummary::reference)
+                .containsExactly("ZZTRGM-001", "ZZTRGM-003", "ZZTRGM-LILAS");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(chantierRepository.search(
+                ChantierFilter.of(null, List.of(ChantierStatut.TERMINE), null, null, null, null,
+                        List.of(lilas.getClient().getId()), null),
+                PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    @Test
+    void searchTreatsWildcardsLiterally() {
+        Chantier joker = chantiers.get(0);
+        Chantier pourcent = chantierRepository.saveAndFlush(
+                chantier("ZZTRGM-50%_A", "9 rue des Jokers", joker.getClient(), joker.getTechnicien()));
+
+        // Sans échappement, « _ » accepterait le tiret de ZZTRGM-001 et « % » n'importe quelle suite.
+        assertThat(chantierRepository.search(ChantierFilter.of("zztrgm_00", null, null), PageRequest.of(0, 10))
+                .getTotalElements()).isZero();
+        assertThat(chantierRepository.search(ChantierFilter.of("50%_a", null, null), PageRequest.of(0, 10))
+                .getContent()).extracting(ChantierSummary::id).containsExactly(pourcent.getId());
+        assertThat(chantierRepository.count(ChantierFilter.of("\\", null, null))).isZero();
+        // Même motif dans le SQL de l'estimation.
+        assertThat(chantierRepository.estimateCount(ChantierFilter.of("\\", null, null))).isNotNegative();
+    }
+
+    /**
+     * Plans des requêtes réellement émises par Hibernate (SQL et paramètres capturés sur le proxy JDBC),
+     * sur le jeu de {@link #seedPlanDataset()}.
+     */
+    @Test
+    void searchFiltersUseIndexesOnSeededDataset() {
+        seedPlanDataset();
+        Long clientId = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM clients WHERE nom LIKE 'ZZEXPLAIN%'", Long.class);
+        Long technicienId = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM techniciens WHERE nom = 'ZZEXPLAIN'", Long.class);
+        LocalDate debut = LocalDate.of(2024, 3, 1);
+
+        List<ChantierFilter> filtres = List.of(
+                ChantierFilter.of(null, List.of(ChantierStatut.EN_COURS), null, debut, debut.plusMonths(1).minusDays(1),
+                        null, null, null),
+                ChantierFilter.of(null, null, null, debut, debut.plusMonths(3), List.of(technicienId), null, null),
+                ChantierFilter.of(null, null, null, null, null, null, List.of(clientId), null),
+                ChantierFilter.of(null, List.of(ChantierStatut.BROUILLON, ChantierStatut.REFUSE), null, null, null,
+                        null, null, null)
+        );
+        for (ChantierFilter filter : filtres) {
+            List<CapturedQuery> requetes = capture(() ->
+                    chantierRepository.search(filter, PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "id"))));
+
+            assertThat(requetes).as("page et comptage").hasSize(2);
+            for (CapturedQuery requete : requetes) {
+                assertThat(explain(requete)).as(filter + "\n" + requete.sql()).doesNotContain("Seq Scan on chantiers");
+            }
+        }
+    }
+
+    /**
+     * Chaque tri autorisé, dans les deux sens, se lit sur son index (champ, id) et s'arrête à la limite :
+     * pas de nœud Sort (tri top-N de toute la table) dans le plan.
+     */
+    @Test
+    void sortedPagesComeFromIndexScans() {
+        seedPlanDataset();
+
+        for (String field : List.of("id", "reference", "dateIntervention", "createdAt")) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                Sort sort = SortableFields.CHANTIERS.parse(new String[]{field, direction.name()}).toSort();
+                List<CapturedQuery> requetes = capture(() ->
+                        chantierRepository.findSummaries(ChantierFilter.AUCUN, PageRequest.of(2, 20, sort)));
+
+                assertThat(requetes).hasSize(1);
+                assertThat(explain(requetes.get(0))).as(sort + "\n" + requetes.get(0).sql())
+                        .doesNotContain("Sort Key")
+                        .doesNotContain("Seq Scan on chantiers");
+            }
+        }
+        assertThatThrownBy(() -> SortableFields.CHANTIERS.parse(new String[]{"adresse", "asc"}))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Sans sens, décroissant comme le défaut id,desc.
+        assertThat(SortableFields.CHANTIERS.parse(new String[]{"reference"}).direction()).isEqualTo(Sort.Direction.DESC);
+    }
+
+    /**
+     * Page suivante d'un curseur, sur chaque tri et dans les deux sens : une borne sur l'index (champ, id), sans
+     * BitmapOr ni tri, et une seule requête tant que la page se remplit avant la queue des NULL.
+     */
+    @Test
+    void cursorPagesSeekOnTheSortIndex() {
+        seedPlanDataset();
+        Map<String, Object> milieu = jdbcTemplate.queryForMap("""
+                SELECT id, reference, date_intervention, created_at FROM chantiers WHERE reference = 'ZZEXPLAIN-15000'
+                """);
+
+        for (String field : List.of("reference", "dateIntervention", "createdAt")) {
+            String colonne = field.replaceAll("([A-Z])", "_$1").toLowerCase(Locale.ROOT);
+            Object derniere = milieu.get(colonne);
+            Map<String, Object> keys = new HashMap<>();
+            keys.put(field, derniere instanceof java.sql.Date date ? date.toLocalDate()
+                    : derniere instanceof java.sql.Timestamp horodatage ? horodatage.toLocalDateTime() : derniere);
+            keys.put("id", ((Number) milieu.get("id")).longValue());
+
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                SortableFields.Order order = SortableFields.CHANTIERS.parse(new String[]{field, direction.name()});
+                List<CapturedQuery> requetes = capture(() -> KeysetSpecification.fetch(order, keys,
+                        ChantierRepository.searchSpecification(ChantierFilter.AUCUN), 21,
+                        (spec, limit) -> chantierRepository.findBy(spec,
+                                query -> query.sortBy(order.toSort()).limit(limit).all())));
+
+                assertThat(requetes).as(order.toString()).hasSize(1);
+                assertThat(explain(requetes.get(0))).as(order + "\n" + requetes.get(0).sql())
+                        .contains("idx_chantiers_" + colonne + "_id")
+                        .doesNotContain("BitmapOr")
+                        .doesNotContain("Sort Key")
+                        .doesNotContain("Seq Scan on chantiers");
+            }
+        }
+    }
+
+    /**
+     * Rayon et k plus proches sur le jeu de {@link #seedPlanDataset()} géocodé en grille sur la France : plan sur
+     * idx_chantiers_position, mêmes résultats qu'un calcul de distance sur toutes les lignes.
+     */
+    @Test
+    void proximityQueriesUseSpatialIndex() {
+        seedPlanDataset();
+        jdbcTemplate.update("""
+                UPDATE chantiers SET latitude = 43 + (id % 600) / 100.0, longitude = -1 + ((id / 600) % 800) / 100.0,
+                                     geocode_le = LOCALTIMESTAMP
+                WHERE reference LIKE 'ZZEXPLAIN-%'
+                """);
+        jdbcTemplate.execute("ANALYZE chantiers");
+        double lat = 46.0037;
+        double lon = 2.0071;
+
+        List<CapturedQuery> requetes = capture(() -> chantierRepository.findWithinRadius(lat, lon, 5000, 100));
+        requetes.addAll(capture(() -> chantierRepository.findNearest(lat, lon, 0, 10)));
+        for (CapturedQuery requete : requetes) {
+            assertThat(explain(requete)).as(requete.sql())
+                    .contains("idx_chantiers_position")
+                    .doesNotContain("Seq Scan on chantiers");
+        }
+
+        List<ChantierRepository.Proximite> rayon = chantierRepository.findWithinRadius(lat, lon, 5000, 100);
+        List<Long> attendus = jdbcTemplate.queryForList("""
+                SELECT id FROM chantiers
+                WHERE latitude IS NOT NULL
+                  AND earth_distance(ll_to_earth(?, ?), ll_to_earth(latitude, longitude)) <= 5000
+                """, Long.class, lat, lon);
+        assertThat(rayon).isNotEmpty();
+        assertThat(rayon).extracting(ChantierRepository.Proximite::getId).containsExactlyInAnyOrderElementsOf(attendus);
+        assertThat(rayon).extracting(ChantierRepository.Proximite::getDistance).isSorted();
+
+        List<Double> proches = chantierRepository.findNearest(lat, lon, 0, 10).stream()
+                .map(ChantierRepository.Proximite::getDistance)
+                .toList();
+        List<Double> parForceBrute = jdbcTemplate.queryForList("""
+                SELECT earth_distance(ll_to_earth(?, ?), ll_to_earth(latitude, longitude)) AS distance
+                FROM chantiers
+                WHERE latitude IS NOT NULL
+                ORDER BY distance
+                LIMIT 10
+                """, Double.class, lat, lon);
+        assertThat(proches).hasSize(10);
+        for (int i = 0; i < proches.size(); i++) {
+            assertThat(proches.get(i)).isCloseTo(parForceBrute.get(i), offset(0.01));
+        }
+
+        // Adresses identiques : distance égale, ordre stable par id.
+        jdbcTemplate.update("""
+                UPDATE chantiers SET latitude = ?, longitude = ?
+                WHERE reference IN ('ZZEXPLAIN-3', 'ZZEXPLAIN-1', 'ZZEXPLAIN-2')
+                """, lat, lon);
+        List<Long> memePoint = jdbcTemplate.queryForList("""
+                SELECT id FROM chantiers WHERE reference IN ('ZZEXPLAIN-3', 'ZZEXPLAIN-1', 'ZZEXPLAIN-2') ORDER BY id
+                """, Long.class);
+        assertThat(chantierRepository.findNearest(lat, lon, 0, 3))
+                .extracting(ChantierRepository.Proximite::getId)
+                .containsExactlyElementsOf(memePoint);
+    }
+
+    /**
+     * ~30 000 chantiers répartis entre 100 clients et 100 techniciens, statistiques à jour.
+     */
+    private void seedPlanDataset() {
+        for (int i = 0; i < 100; i++) {
+            Client client = new Client();
+            client.setNom("ZZEXPLAIN client " + i);
+            clientRepository.save(client);
+            technicienRepository.save(new Technicien("ZZEXPLAIN", "Tech " + i, "explain" + i + "@example.com"));
+        }
+        jdbcTemplate.update("""
+                INSERT INTO chantiers (reference, adresse, statut, date_intervention, created_at, client_id, technicien_id)
+                SELECT 'ZZEXPLAIN-' || g, g || ' rue du Plan',
+                       CASE WHEN g % 50 = 0 THEN 'BROUILLON' WHEN g % 50 = 1 THEN 'REFUSE'
+                            WHEN g % 50 < 5 THEN 'EN_COURS' WHEN g % 2 = 0 THEN 'TERMINE' ELSE 'VALIDE' END,
+                       DATE '2023-01-01' + (g % 1100), LOCALTIMESTAMP, cl.id, t.id
+                FROM generate_series(1, 30000) g
+                JOIN (SELECT id, ROW_NUMBER() OVER (ORDER BY id) - 1 AS n FROM clients WHERE nom LIKE 'ZZEXPLAIN%') cl
+                  ON cl.n = g % 100
+                JOIN (SELECT id, ROW_NUMBER() OVER (ORDER BY id) - 1 AS n FROM techniciens WHERE nom = 'ZZEXPLAIN') t
+                  ON t.n = (g / 7) % 100
+                """);
+        jdbcTemplate.execute("ANALYZE chantiers");
+    }
+
+    private String explain(CapturedQuery requete) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + requete.sql(), String.class, requete.args()));
+    }
+
+    private List<CapturedQuery> capture(Runnable action) {
+        List<CapturedQuery> requetes = new ArrayList<>();
+        QueryExecutionListener listener = new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                for (QueryInfo info : queryInfoList) {
+                    List<ParameterSetOperation> operations = info.getParametersList().isEmpty()
+                            ? List.of() : info.getParametersList().get(0);
+                    Object[] args = operations.stream()
+                            .sorted(Comparator.comparingInt(op -> (Integer) op.getArgs()[0]))
+                            .map(op -> op.getMethod().getName().equals("setNull") ? null : op.getArgs()[1])
+                            .toArray();
+                    requetes.add(new CapturedQuery(info.getQuery(), args));
+                }
+            }
+        };
+        ChainListener chain = (ChainListener) ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener();
+        chain.addListener(listener);
+        try {
+            action.run();
+        } finally {
+            chain.getListeners().remove(listener);
+        }
+        return requetes;
+    }
+
+    private record CapturedQuery(String sql, Object[] args) {
+    }
+
+    private static Chantier chantier(String reference, String adresse, Client client, Technicien technicien) {
+        Chantier chantier = new Chantier();
+        chantier.setReference(reference);
+        chantier.setAdresse(adresse);
+        chantier.setStatut(ChantierStatut.BROUILLON);
+        chantier.setDateIntervention(LocalDate.now());
+        chantier.setClient(client);
+        chantier.setTechnicien(technicien);
+        return chantier;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.entity.VerificationChantier;
+import com.example.demo.support.TestFixtures;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class ChantierArchiveServiceTests {
+
+    private static final String ADRESSE = "1 rue des Archives";
+
+    @Autowired
+    private ChantierArchiveService chantierArchiveService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private Chantier termineAncien;
+    private Chantier enCoursAncien;
+
+    @BeforeEach
+    void seed() {
+        TestFixtures.Fixture fixture = testFixtures.forPrefix("ZZARCHIVE-");
+        Client client = fixture.client("ZZARCHIVE client");
+        Technicien technicien = fixture.technicien("ZZARCHIVE", "Tech", "archive@example.com");
+
+        LocalDate ilYaDeuxAns = LocalDate.now().minusYears(2);
+        termineAncien = fixture.chantier("ZZARCHIVE-1", ADRESSE, ChantierStatut.TERMINE, ilYaDeuxAns, client, technicien);
+        enCoursAncien = fixture.chantier("ZZARCHIVE-2", ADRESSE, ChantierStatut.EN_COURS, ilYaDeuxAns, client, technicien);
+        fixture.chantier("ZZARCHIVE-3", ADRESSE, ChantierStatut.VALIDE, ilYaDeuxAns, client, technicien);
+        VerificationChantier verification = new VerificationChantier();
+        verification.setChantier(termineAncien);
+        entityManager.persist(verification);
+        entityManager.flush();
+        entityManager.clear();
+
+        jdbcTemplate.update("UPDATE chantiers SET created_at = ?, updated_at = ? WHERE id IN (?, ?)",
+                LocalDateTime.now().minusYears(2), LocalDateTime.now().minusYears(2),
+                termineAncien.getId(), enCoursAncien.getId());
+    }
+
+    @Test
+    void archivesOnlyOldClosedChantiers() {
+        assertThat(chantierArchiveService.archiver(LocalDateTime.now().minusMonths(12))).isGreaterThanOrEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForList("SELECT reference FROM chantiers WHERE reference LIKE 'ZZARCHIVE-%'",
+                String.class)).containsExactlyInAnyOrder("ZZARCHIVE-2", "ZZARCHIVE-3");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT statut FROM chantiers_archives WHERE id = ?", String.class, termineAncien.getId()))
+                .isEqualTo("TERMINE");
+        // La check-list part avec le chantier, conservée dans l'archive.
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT jsonb_array_length(donnees -> 'verifications') FROM chantiers_archives WHERE id = ?",
+                Integer.class, termineAncien.getId())).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM verification_chantier WHERE chantier_id = ?", Long.class, termineAncien.getId()))
+                .isZero();
+
+        assertThat(chantierArchiveService.archiver(LocalDateTime.now().minusMonths(12))).isZero();
+    }
+
+    @Test
+    void listReadsArchivesOnlyWhenAsked() throws Exception {
+        chantierArchiveService.archiver(LocalDateTime.now().minusMonths(12));
+
+        mockMvc.perform(get("/api/chantiers").param("q", "ZZARCHIVE").param("count", "exact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.totalElements").value(2));
+        mockMvc.perform(get("/api/chantiers").param("q", "ZZARCHIVE").param("archives", "true")
+                        .param("count", "exact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].reference").value("ZZARCHIVE-1"))
+                .andExpect(jsonPath("$.content[0].clientNom").value("ZZARCHIVE client"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+        mockMvc.perform(get("/api/chantiers").param("statut", "TERMINE").param("archives", "true")
+                        .param("count", "estimated").param("sort", "dateIntervention,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").isNumber());
+        mockMvc.perform(get("/api/chantiers").param("archives", "true").param("sort", "adresse"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/chantiers/{id}", termineAncien.getId()))
+                .andExpect(status().isNotFound());
+    }
+}
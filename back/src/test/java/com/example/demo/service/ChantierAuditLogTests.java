@@ -0,0 +1,76 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ChantierEvenementType;
+import com.example.demo.service.ChantierAuditLog.ChantierEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+// Sans démarrer le thread d'écriture : chaque flush() est explicite.
+class ChantierAuditLogTests {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Long> ecrits = new ArrayList<>();
+
+    private final ChantierAuditLog auditLog = new ChantierAuditLog(
+            jdbcTemplate, new ObjectMapper(), meterRegistry, 4, 2, 200);
+
+    @Test
+    void failedBatchIsRewrittenFirstAndFullQueueDropsAndCounts() {
+        doAnswer(invocation -> {
+            throw new DataAccessResourceFailureException("base arrêtée");
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+
+        for (long id = 1; id <= 6; id++) {
+            auditLog.record(event(id));
+        }
+        // File limitée à 4 événements : les deux derniers sont perdus, le producteur n'est pas bloqué.
+        assertThat(meterRegistry.counter("chantiers.audit.dropped").count()).isEqualTo(2);
+        assertThat(meterRegistry.get("chantiers.audit.queue").gauge().value()).isEqualTo(4);
+
+        // Une erreur inattendue ne perd pas le lot en cours.
+        doAnswer(invocation -> {
+            throw new IllegalStateException("inattendue");
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        auditLog.flush();
+        assertThat(meterRegistry.get("chantiers.audit.queue").gauge().value()).isEqualTo(4);
+
+        doAnswer(invocation -> {
+            Collection<ChantierEvent> lot = invocation.getArgument(1);
+            lot.forEach(event -> ecrits.add(event.chantierId()));
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        auditLog.record(event(7));
+        auditLog.flush();
+
+        // Le lot en échec repart en tête : l'ordre d'enregistrement est conservé.
+        assertThat(ecrits).containsExactly(1L, 2L, 3L, 4L, 7L);
+        assertThat(meterRegistry.counter("chantiers.audit.written").count()).isEqualTo(5);
+        assertThat(meterRegistry.get("chantiers.audit.queue").gauge().value()).isZero();
+    }
+
+    private static ChantierEvent event(long chantierId) {
+        return new ChantierEvent(chantierId, ChantierEvenementType.MODIFICATION, null, null, null, null, 1L,
+                LocalDateTime.now());
+    }
+}
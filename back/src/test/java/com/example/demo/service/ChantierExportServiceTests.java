@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ChantierFilter;
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.TechnicienRepository;
+import com.example.demo.service.ChantierExportService.ExportFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * L'export d'un million de lignes est hors de la suite par défaut : ./mvnw -Pexport-memory test le lance seul, avec
+ * un tas réduit où un export qui accumulerait les lignes en mémoire échouerait en OutOfMemoryError.
+ */
+@SpringBootTest
+@Transactional
+class ChantierExportServiceTests {
+
+    private static final long ROWS = 1_000_000;
+    private static final long MAX_HEAP = 256L * 1024 * 1024;
+
+    @Autowired
+    private ChantierExportService exportService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private TechnicienRepository technicienRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Client client;
+    private Technicien technicien;
+    private ChantierFilter filter;
+
+    @BeforeEach
+    void seed() {
+        client = new Client();
+        client.setNom("ZZEXPORT client");
+        clientRepository.saveAndFlush(client);
+        technicien = technicienRepository.saveAndFlush(new Technicien("ZZEXPORT", "Tech", "export@example.com"));
+        filter = new ChantierFilter(null, null, null, null, null, List.of(client.getId()), null);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "exporttest", matches = "true")
+    void exportsOneMillionRowsWithConstantMemory() throws Exception {
+        assertThat(Runtime.getRuntime().maxMemory()).as("tas du profil export-memory").isLessThanOrEqualTo(MAX_HEAP);
+        // Le curseur lit la vraie table : l'export rejoint la transaction du test qui a inséré les lignes.
+        jdbcTemplate.update("""
+                INSERT INTO chantiers (reference, adresse, type_installation, statut, date_intervention, created_at,
+                                       client_id, technicien_id)
+                SELECT 'ZZEXPORT-' || g, g || ', rue "Export"', 'PAC', 'EN_COURS', DATE '2030-01-01', LOCALTIMESTAMP, ?, ?
+                FROM generate_series(1, ?) g
+                """, client.getId(), technicien.getId(), ROWS);
+
+        for (ExportFormat format : ExportFormat.values()) {
+            LineCountingOutputStream out = new LineCountingOutputStream();
+            exportService.export(format, filter, out);
+
+            long header = format == ExportFormat.CSV ? 1 : 0;
+            assertThat(out.lines).as(format.name()).isEqualTo(ROWS + header);
+        }
+    }
+
+    @Test
+    void csvEscapesSeparatorsAndQuotes() throws Exception {
+        Long id = jdbcTemplate.queryForObject("""
+                INSERT INTO chantiers (reference, adresse, type_installation, statut, date_intervention, created_at,
+                                       client_id, technicien_id)
+                VALUES ('ZZEXPORT-7', '7, rue "Export"', 'PAC', 'EN_COURS', DATE '2030-01-01', LOCALTIMESTAMP, ?, ?)
+                RETURNING id
+                """, Long.class, client.getId(), technicien.getId());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(ExportFormat.CSV, filter, out);
+
+        assertThat(out.toString()).contains(id + ",ZZEXPORT-7,\"7, rue \"\"Export\"\"\",PAC,2030-01-01,EN_COURS,,");
+    }
+
+    private static final class LineCountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
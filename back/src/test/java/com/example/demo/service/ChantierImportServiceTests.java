@@ -0,0 +1,104 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.service.ChantierImportService.ImportError;
+import com.example.demo.service.ChantierImportService.ImportReport;
+import com.example.demo.support.TestFixtures;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sans @Transactional : chaque lot de l'import doit valider ou échouer dans sa propre transaction.
+@SpringBootTest
+class ChantierImportServiceTests {
+
+    private static final String PREFIXE = "IMPORT-";
+
+    @Autowired
+    private ChantierImportService chantierImportService;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TestFixtures.Fixture fixture;
+    private Client client;
+    private Technicien technicien;
+
+    @BeforeEach
+    void seed() {
+        fixture = testFixtures.forPrefix(PREFIXE);
+        client = fixture.client("Client import");
+        technicien = fixture.technicien("Import", "Tech", "import@example.com");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void rejectedChunkIsRetriedRowByRow() throws Exception {
+        // Référence trop longue pour la colonne : valide pour l'import, refusée par la base avec tout son lot.
+        String tropLongue = PREFIXE + "X".repeat(300);
+        String body = """
+                [
+                  {"reference": "%s1", "adresse": "1 rue du Lot", "clientId": %d, "technicienId": %d},
+                  {"reference": "%s", "adresse": "2 rue du Lot", "clientId": %d, "technicienId": %d},
+                  {"reference": "%s3", "adresse": "3 rue du Lot", "clientId": %d, "technicienId": %d}
+                ]
+                """.formatted(PREFIXE, client.getId(), technicien.getId(), tropLongue, client.getId(), technicien.getId(),
+                PREFIXE, client.getId(), technicien.getId());
+
+        ImportReport report = chantierImportService.importJson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.lignes()).isEqualTo(3);
+        assertThat(report.importes()).isEqualTo(2);
+        assertThat(report.erreurs()).extracting(ImportError::ligne).containsExactly(2);
+        assertThat(report.erreurs().get(0).message()).startsWith("Ligne rejetée : ");
+        assertThat(jdbcTemplate.queryForList("SELECT reference FROM chantiers WHERE reference LIKE ?", String.class,
+                PREFIXE + "%")).containsExactlyInAnyOrder(PREFIXE + "1", PREFIXE + "3");
+    }
+
+    @Test
+    void planningConflictsAreReportedAndImportedRowsArePublished() throws Exception {
+        // Même technicien, même jour : la deuxième ligne entre en conflit avec la première du même lot.
+        String body = """
+                [
+                  {"reference": "%1$s1", "adresse": "1 rue du Planning", "statut": "EN_COURS",
+                   "dateIntervention": "2031-03-10", "clientId": %2$d, "technicienId": %3$d},
+                  {"reference": "%1$s2", "adresse": "2 rue du Planning", "statut": "EN_COURS",
+                   "dateIntervention": "2031-03-10", "clientId": %2$d, "technicienId": %3$d},
+                  {"reference": "%1$s3", "adresse": "3 rue du Planning", "statut": "EN_COURS",
+                   "dateIntervention": "2031-03-11", "clientId": %2$d, "technicienId": %3$d}
+                ]
+                """.formatted(PREFIXE, client.getId(), technicien.getId());
+        double publiees = meterRegistry.counter("chantiers.stream.published").count();
+
+        ImportReport report = chantierImportService.importJson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.importes()).isEqualTo(2);
+        assertThat(report.erreurs()).extracting(ImportError::ligne).containsExactly(2);
+        assertThat(report.erreurs().get(0).message()).startsWith("Conflit de planning : ");
+        assertThat(jdbcTemplate.queryForList("SELECT reference FROM chantiers WHERE reference LIKE ?", String.class,
+                PREFIXE + "%")).containsExactlyInAnyOrder(PREFIXE + "1", PREFIXE + "3");
+        assertThat(meterRegistry.counter("chantiers.stream.published").count() - publiees).isEqualTo(2);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.repository.ChantierRepository;
+import com.example.demo.repository.ChantierRepository.StatutDateCount;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.TechnicienRepository;
+import com.example.demo.repository.VerificationChantierRepository;
+import com.example.demo.service.DashboardStatsService.DashboardStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// La « base » est une liste en mémoire : après chaque écriture, les compteurs tenus par deltas doivent égaler
+// ceux que reconcile() recalcule par GROUP BY.
+class DashboardStatsServiceTests {
+
+    private static final LocalDate AUJOURDHUI = LocalDate.now();
+
+    private final ChantierRepository chantierRepository = mock(ChantierRepository.class);
+    private final ClientRepository clientRepository = mock(ClientRepository.class);
+    private final TechnicienRepository technicienRepository = mock(TechnicienRepository.class);
+    private final VerificationChantierRepository verificationRepository = mock(VerificationChantierRepository.class);
+    private final DashboardStatsService stats = new DashboardStatsService(
+            chantierRepository, clientRepository, technicienRepository, verificationRepository,
+            mock(PlatformTransactionManager.class));
+
+    private final List<Chantier> base = new ArrayList<>();
+    private long prochainId = 1;
+    // Écriture concurrente exécutée pendant la prochaine lecture du GROUP BY.
+    private Runnable pendantLecture = () -> {
+    };
+
+    @BeforeEach
+    void mockGroupBy() {
+        when(chantierRepository.countByStatutAndDateIntervention()).thenAnswer(invocation -> {
+            Map<List<Object>, Long> groupes = new HashMap<>();
+            base.forEach(c -> groupes.merge(Arrays.asList(c.getStatut(), c.getDateIntervention()), 1L,
+                    Long::sum));
+            List<StatutDateCount> rows = new ArrayList<>();
+            groupes.forEach((cle, total) -> rows.add(row((ChantierStatut) cle.get(0), (LocalDate) cle.get(1), total)));
+            Runnable ecriture = pendantLecture;
+            pendantLecture = () -> {
+            };
+            ecriture.run();
+            return rows;
+        });
+        stats.reconcile();
+    }
+
+    @Test
+    void deltasMatchReconcileAfterCreateUpdateAndDelete() {
+        Chantier enRetard = create(ChantierStatut.EN_COURS, AUJOURDHUI.minusDays(3));
+        Chantier memeJour = create(ChantierStatut.EN_COURS, AUJOURDHUI.minusDays(3));
+        Chantier brouillon = create(ChantierStatut.BROUILLON, AUJOURDHUI.minusDays(1));
+        create(ChantierStatut.EN_COURS, AUJOURDHUI);
+        Chantier aVenir = create(ChantierStatut.VALIDE, AUJOURDHUI.plusDays(5));
+        Chantier sansDate = create(ChantierStatut.BROUILLON, null);
+        assertMatchesReconcile();
+        assertThat(stats.snapshot().chantiersEnRetardParStatut())
+                .containsEntry(ChantierStatut.EN_COURS, 2L)
+                .containsEntry(ChantierStatut.BROUILLON, 1L);
+
+        // Report après aujourd'hui : le chantier sort des retards.
+        update(enRetard, ChantierStatut.EN_COURS, AUJOURDHUI.plusDays(2));
+        // Clôture : un chantier terminé n'est plus en retard, même à date passée.
+        update(memeJour, ChantierStatut.TERMINE, memeJour.getDateIntervention());
+        // Réouverture à une date passée : le chantier entre dans les retards.
+        update(aVenir, ChantierStatut.REFUSE, AUJOURDHUI.minusDays(10));
+        update(sansDate, ChantierStatut.EN_COURS, AUJOURDHUI.minusDays(1));
+        assertMatchesReconcile();
+        assertThat(stats.snapshot().chantiersEnRetardParStatut())
+                .containsEntry(ChantierStatut.EN_COURS, 1L)
+                .containsEntry(ChantierStatut.BROUILLON, 1L)
+                .containsEntry(ChantierStatut.REFUSE, 1L);
+
+        delete(brouillon);
+        delete(aVenir);
+        delete(memeJour);
+        assertMatchesReconcile();
+        assertThat(stats.snapshot().chantiersEnRetardParStatut())
+                .containsEntry(ChantierStatut.EN_COURS, 1L)
+                .containsEntry(ChantierStatut.BROUILLON, 0L)
+                .containsEntry(ChantierStatut.REFUSE, 0L);
+        assertThat(stats.totalChantiers()).isEqualTo(base.size());
+    }
+
+    @Test
+    void reconcileAbsorbsWritesTheDeltasMissed() {
+        create(ChantierStatut.EN_COURS, AUJOURDHUI.minusDays(2));
+        // Écriture externe : la base change sans delta.
+        Chantier externe = chantier(ChantierStatut.BROUILLON, AUJOURDHUI.minusDays(4));
+        base.add(externe);
+        assertThat(stats.totalChantiers()).isEqualTo(1);
+
+        stats.reconcile();
+        assertThat(stats.totalChantiers()).isEqualTo(2);
+        assertThat(stats.snapshot().chantiersEnRetard()).isEqualTo(2);
+
+        // Les deltas suivants repartent de l'état recalé.
+        delete(externe);
+        assertMatchesReconcile();
+    }
+
+    @Test
+    void reconcileDiscardsASnapshotReadWhileDeltasArrive() {
+        create(ChantierStatut.EN_COURS, AUJOURDHUI.minusDays(2));
+        // Commit après l'instantané, delta appliqué avant le recalage : sans nouvelle lecture, il serait perdu.
+        pendantLecture = () -> create(ChantierStatut.BROUILLON, AUJOURDHUI.minusDays(1));
+
+        stats.reconcile();
+        assertThat(stats.totalChantiers()).isEqualTo(2);
+        assertThat(stats.snapshot().chantiersEnRetard()).isEqualTo(2);
+        assertMatchesReconcile();
+    }
+
+    private Chantier create(ChantierStatut statut, LocalDate date) {
+        Chantier chantier = chantier(statut, date);
+        base.add(chantier);
+        stats.chantierCreated(chantier);
+        return chantier;
+    }
+
+    private void update(Chantier chantier, ChantierStatut statut, LocalDate date) {
+        ChantierStatut ancienStatut = chantier.getStatut();
+        LocalDate ancienneDate = chantier.getDateIntervention();
+        chantier.setStatut(statut);
+        chantier.setDateIntervention(date);
+        stats.chantierUpdated(ancienStatut, ancienneDate, chantier);
+    }
+
+    private void delete(Chantier chantier) {
+        base.removeIf(c -> Objects.equals(c.getId(), chantier.getId()));
+        stats.chantierDeleted(chantier, 0);
+    }
+
+    private Chantier chantier(ChantierStatut statut, LocalDate date) {
+        Chantier chantier = new Chantier();
+        chantier.setId(prochainId++);
+        chantier.setStatut(statut);
+        chantier.setDateIntervention(date);
+        return chantier;
+    }
+
+    // Comparé à chaque date autour des échéances : toute entrée du cumul par date est vérifiée, pas seulement
+    // le total d'aujourd'hui.
+    private void assertMatchesReconcile() {
+        List<DashboardStats> parDeltas = new ArrayList<>();
+        for (int jour = -12; jour <= 8; jour++) {
+            parDeltas.add(stats.snapshot(AUJOURDHUI.plusDays(jour)));
+        }
+        stats.reconcile();
+        for (int jour = -12; jour <= 8; jour++) {
+            assertThat(parDeltas.get(jour + 12)).as("retards au %s", AUJOURDHUI.plusDays(jour))
+                    .usingRecursiveComparison().ignoringFields("reconcileAt")
+                    .isEqualTo(stats.snapshot(AUJOURDHUI.plusDays(jour)));
+        }
+    }
+
+    private static StatutDateCount row(ChantierStatut statut, LocalDate date, long total) {
+        return new StatutDateCount() {
+            @Override
+            public ChantierStatut getStatut() {
+                return statut;
+            }
+
+            @Override
+            public LocalDate getDateIntervention() {
+                return date;
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+        };
+    }
+}
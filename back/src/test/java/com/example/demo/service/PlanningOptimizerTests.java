@@ -0,0 +1,100 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlanningOptimizerTests {
+
+    private static final int JOURS = 30;
+    private static final int TECHNICIENS = 200;
+    private static final int CHANTIERS = 5_000;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void assignsFiveThousandChantiersToTwoHundredTechniciansWithinBudget() {
+        var probleme = probleme(true);
+
+        long debut = System.nanoTime();
+        var solution = PlanningOptimizer.solve(probleme, 1_000, Runtime.getRuntime().availableProcessors(),
+                executor);
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+
+        assertThat(dureeMs).isLessThan(5_000);
+        assertThat(solution.nonAffectes()).isZero();
+
+        Set<Long> creneaux = new HashSet<>();
+        int[] charge = probleme.charge().clone();
+        for (int c = 0; c < CHANTIERS; c++) {
+            int t = solution.techniciens()[c];
+            int jour = probleme.jours()[c];
+            assertThat(probleme.occupe()[t][jour]).isFalse();
+            assertThat(creneaux.add((long) t * JOURS + jour)).as("un chantier par technicien et par jour").isTrue();
+            charge[t]++;
+        }
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (int c : charge) {
+            min = Math.min(min, c);
+            max = Math.max(max, c);
+        }
+        assertThat(max - min).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void proximityReducesZonesPerTechnician() {
+        var sansProximite = PlanningOptimizer.solve(probleme(false), 0, 1, executor);
+        var avecProximite = PlanningOptimizer.solve(probleme(true), 300, 1, executor);
+
+        assertThat(zones(probleme(true), avecProximite)).isLessThan(zones(probleme(true), sansProximite));
+    }
+
+    @Test
+    void chantiersBeyondCapacityStayUnassigned() {
+        var probleme = new PlanningOptimizer.Probleme(new int[]{0, 0, 0}, new int[]{-1, -1, -1}, 1, 0,
+                new boolean[][]{{false}, {true}}, new int[2], false);
+
+        var solution = PlanningOptimizer.solve(probleme, 10, 1, executor);
+
+        assertThat(solution.nonAffectes()).isEqualTo(2);
+        assertThat(solution.techniciens()).containsOnly(0, -1);
+    }
+
+    private static PlanningOptimizer.Probleme probleme(boolean proximite) {
+        Random random = new Random(42);
+        int[] jours = new int[CHANTIERS];
+        int[] zones = new int[CHANTIERS];
+        for (int c = 0; c < CHANTIERS; c++) {
+            jours[c] = c % JOURS;
+            zones[c] = random.nextInt(20);
+        }
+        boolean[][] occupe = new boolean[TECHNICIENS][JOURS];
+        int[] charge = new int[TECHNICIENS];
+        for (int t = 0; t < TECHNICIENS; t += 10) {
+            occupe[t][t % JOURS] = true;
+            charge[t] = 1;
+        }
+        return new PlanningOptimizer.Probleme(jours, zones, JOURS, 20, occupe, charge, proximite);
+    }
+
+    private static int zones(PlanningOptimizer.Probleme probleme, PlanningOptimizer.Solution solution) {
+        Set<Long> zones = new HashSet<>();
+        for (int c = 0; c < probleme.nbChantiers(); c++) {
+            zones.add((long) solution.techniciens()[c] * probleme.nbZones() + probleme.zones()[c]);
+        }
+        return zones.size();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PlanningOptimisationRequest.ChantierAPlanifier;
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.entity.Technicien;
+import com.example.demo.repository.ChantierRepository;
+import com.example.demo.repository.TechnicienRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PlanningServiceTests {
+
+    private static final LocalDate JOUR = LocalDate.of(2031, 3, 10);
+
+    private final ChantierRepository chantierRepository = mock(ChantierRepository.class);
+    private final TechnicienRepository technicienRepository = mock(TechnicienRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final PlanningService planningService = new PlanningService(
+            chantierRepository, technicienRepository, transactionManager, 1, 1);
+
+    @Test
+    void writesCommittedDuringARebuildSurviveTheSwap() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Technicien technicien = new Technicien("Planning", "Tech", "planning@example.com");
+        technicien.setId(1L);
+        when(technicienRepository.findAll()).thenReturn(List.of(technicien));
+        when(chantierRepository.streamAffectations(ChantierStatut.REFUSE))
+                .thenAnswer(invocation -> Stream.of(affectation(10L)));
+        planningService.rebuild();
+
+        // La lecture en flux part d'un instantané antérieur à ces écritures validées pendant la reconstruction.
+        when(chantierRepository.streamAffectations(ChantierStatut.REFUSE)).thenAnswer(invocation -> {
+            planningService.chantierDeleted(10L);
+            planningService.chantierSaved(chantier(11L, technicien));
+            Technicien nouveau = new Technicien("Nouveau", "Tech", "nouveau@example.com");
+            nouveau.setId(2L);
+            planningService.technicienSaved(nouveau);
+            return Stream.of(affectation(10L));
+        });
+        planningService.rebuild();
+
+        assertThat(planningService.conflit(1L, JOUR, ChantierStatut.EN_COURS, null).chantierIds())
+                .containsExactly(11L);
+        assertThat(planningService.disponibles(JOUR)).extracting(PlanningService.TechnicienInfo::id)
+                .containsExactly(2L);
+    }
+
+    @Test
+    void optimisationsBeyondTheCapAreRefused() throws InterruptedException {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Technicien premier = new Technicien("Premier", "Tech", "premier@example.com");
+        premier.setId(1L);
+        Technicien second = new Technicien("Second", "Tech", "second@example.com");
+        second.setId(2L);
+        when(technicienRepository.findAll()).thenReturn(List.of(premier, second));
+        when(chantierRepository.streamAffectations(ChantierStatut.REFUSE)).thenAnswer(invocation -> Stream.empty());
+        planningService.rebuild();
+        List<ChantierAPlanifier> chantiers = List.of(new ChantierAPlanifier("OPT-1", "1 rue X, 69003 Lyon", JOUR));
+
+        // Une optimisation occupe la seule place pendant son budget : les suivantes sont refusées sans attendre.
+        var longue = CompletableFuture.supplyAsync(() -> {
+            PlanningService.Optimisation optimisation;
+            // Une sonde ci-dessous peut tenir la place au moment où celle-ci démarre.
+            do {
+                optimisation = planningService.optimiser(chantiers, null, false, 1_000);
+            } while (optimisation == null);
+            return optimisation;
+        });
+        boolean refusee = false;
+        while (!refusee && !longue.isDone()) {
+            Thread.sleep(5);
+            refusee = planningService.optimiser(chantiers, null, false, 0) == null;
+        }
+        assertThat(longue.join()).isNotNull();
+        assertThat(refusee).isTrue();
+        assertThat(planningService.optimiser(chantiers, null, false, 0)).isNotNull();
+    }
+
+    private static Chantier chantier(Long id, Technicien technicien) {
+        Chantier chantier = new Chantier();
+        chantier.setId(id);
+        chantier.setTechnicien(technicien);
+        chantier.setDateIntervention(JOUR);
+        chantier.setStatut(ChantierStatut.EN_COURS);
+        return chantier;
+    }
+
+    private static ChantierRepository.Affectation affectation(Long id) {
+        return new ChantierRepository.Affectation() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getTechnicienId() {
+                return 1L;
+            }
+
+            @Override
+            public LocalDate getDateIntervention() {
+                return JOUR;
+            }
+        };
+    }
+}
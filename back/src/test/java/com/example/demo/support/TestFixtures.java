@@ -0,0 +1,116 @@
+package com.example.demo.support;
+
+import com.example.demo.entity.Chantier;
+import com.example.demo.entity.ChantierStatut;
+import com.example.demo.entity.Client;
+import com.example.demo.entity.Technicien;
+import com.example.demo.repository.ChantierRepository;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.TechnicienRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Données des tests d'intégration, partagées par les classes de test (composant détecté depuis les sources de test).
+ * Dans un test {@code @Transactional}, tout part au rollback ; sans, {@link Fixture#cleanUp()} supprime ce qui a
+ * été validé : chantiers dont la référence porte le préfixe de la classe, avec leurs événements et leur check-list,
+ * puis les techniciens et clients créés.
+ */
+@Component
+public class TestFixtures {
+
+    private final ClientRepository clientRepository;
+    private final TechnicienRepository technicienRepository;
+    private final ChantierRepository chantierRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TestFixtures(
+            ClientRepository clientRepository,
+            TechnicienRepository technicienRepository,
+            ChantierRepository chantierRepository,
+            JdbcTemplate jdbcTemplate
+    ) {
+        this.clientRepository = clientRepository;
+        this.technicienRepository = technicienRepository;
+        this.chantierRepository = chantierRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param prefixe début des références des chantiers de la classe de test, supprimés au nettoyage
+     */
+    public Fixture forPrefix(String prefixe) {
+        return new Fixture(prefixe);
+    }
+
+    public final class Fixture {
+
+        private final String prefixe;
+        private final List<Client> clients = new ArrayList<>();
+        private final List<Technicien> techniciens = new ArrayList<>();
+        private final List<Long> chantierIds = new ArrayList<>();
+
+        private Fixture(String prefixe) {
+            this.prefixe = prefixe;
+        }
+
+        public Client client(String nom) {
+            Client client = new Client();
+            client.setNom(nom);
+            client = clientRepository.saveAndFlush(client);
+            clients.add(client);
+            return client;
+        }
+
+        public Technicien technicien(String nom, String prenom, String email) {
+            Technicien technicien = technicienRepository.saveAndFlush(new Technicien(nom, prenom, email));
+            techniciens.add(technicien);
+            return technicien;
+        }
+
+        public Chantier chantier(
+                String reference,
+                String adresse,
+                ChantierStatut statut,
+                LocalDate dateIntervention,
+                Client client,
+                Technicien technicien
+        ) {
+            Chantier chantier = new Chantier();
+            chantier.setReference(reference);
+            chantier.setAdresse(adresse);
+            chantier.setStatut(statut);
+            chantier.setDateIntervention(dateIntervention);
+            chantier.setClient(client);
+            chantier.setTechnicien(technicien);
+            return chantierRepository.saveAndFlush(chantier);
+        }
+
+        /**
+         * Chantier déjà supprimé (par l'API) avant le nettoyage : ses événements sont effacés d'après son id.
+         */
+        public Long track(Long chantierId) {
+            chantierIds.add(chantierId);
+            return chantierId;
+        }
+
+        public void cleanUp() {
+            jdbcTemplate.update("""
+                    DELETE FROM chantier_evenements
+                    WHERE chantier_id IN (SELECT id FROM chantiers WHERE reference LIKE ?)
+                    """, prefixe + "%");
+            chantierIds.forEach(id -> jdbcTemplate.update("DELETE FROM chantier_evenements WHERE chantier_id = ?", id));
+            jdbcTemplate.update("""
+                    DELETE FROM verification_chantier
+                    WHERE chantier_id IN (SELECT id FROM chantiers WHERE reference LIKE ?)
+                    """, prefixe + "%");
+            jdbcTemplate.update("DELETE FROM chantiers WHERE reference LIKE ?", prefixe + "%");
+            techniciens.forEach(technicienRepository::delete);
+            clients.forEach(clientRepository::delete);
+        }
+    }
+}
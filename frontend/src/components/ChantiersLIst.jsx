@@ -48,19 +48,18 @@ export default function ChantiersLIst({ api, apiBase }) {
       chantiers.filter(ch =>
         matchesSearch(ch.reference, search) ||
         matchesSearch(ch.adresse, search) ||
-        matchesSearch(ch.client?.nom, search) ||
-        matchesSearch(`${ch.technicien?.prenom || ""} ${ch.technicien?.nom || ""}`, search)
+        matchesSearch(ch.clientNom, search) ||
+        matchesSearch(`${ch.technicienPrenom || ""} ${ch.technicienNom || ""}`, search)
       ),
     [chantiers, search]
   );
 
   function chantierClientNom(ch) {
-    return ch.client?.nom || "Non assigné";
+    return ch.clientNom || "Non assigné";
   }
 
   function chantierTechnicienNom(ch) {
-    const t = ch.technicien;
-    return t ? `${t.prenom} ${t.nom}` : "Non assigné";
+    return ch.technicienId ? `${ch.technicienPrenom} ${ch.technicienNom}` : "Non assigné";
   }
 
   async function handleAddChantier() {
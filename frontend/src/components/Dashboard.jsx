@@ -18,22 +18,14 @@ export default function Dashboard({ api, apiBase }) {
       setLoading(true);
       setError(null);
 
-      const [clientsRes, techniciensRes, chantiersRes] = await Promise.all([
-        api(`${API_ROUTES.clients}?size=200`),
-        api(`${API_ROUTES.techniciens}?size=200`),
-        api(`${API_ROUTES.chantiers}?size=200`)
+      // Les compteurs sont agrégés côté serveur ; seuls quelques chantiers sont chargés pour les listes.
+      const [statsRes, chantiersRes] = await Promise.all([
+        api(API_ROUTES.dashboardStats),
+        api(`${API_ROUTES.chantiers}?size=20`)
       ]);
 
-      const clients = Array.isArray(clientsRes) ? clientsRes : clientsRes?.content || [];
-      const techniciens = Array.isArray(techniciensRes) ? techniciensRes : techniciensRes?.content || [];
       const chantiers = Array.isArray(chantiersRes) ? chantiersRes : chantiersRes?.content || [];
-
-      // Calcul des statistiques
-      const chantiersEnCours = chantiers.filter(c => c.statut === "EN_COURS").length;
-      const chantiersEnRetard = chantiers.filter(c => {
-        if (c.statut === "TERMINE" || c.statut === "VALIDE") return false;
-        return new Date(c.dateIntervention) < new Date();
-      }).length;
+      const parStatut = statsRes?.chantiersParStatut || {};
 
       const chiffresAffairesEstime = chantiers.reduce((acc, c) => {
         // À adapter si vous avez un montant dans l'entité Chantier
@@ -41,14 +33,13 @@ export default function Dashboard({ api, apiBase }) {
       }, 0);
 
       setStats({
-        totalClients: clients.length,
-        totalTechniciens: techniciens.length,
-        totalChantiers: chantiers.length,
-        chantiersEnCours,
-        chantiersEnRetard,
-        chantiersTermines: chantiers.filter(c => c.statut === "TERMINE" || c.statut === "VALIDE").length,
+        totalClients: statsRes?.totalClients ?? 0,
+        totalTechniciens: statsRes?.totalTechniciens ?? 0,
+        totalChantiers: statsRes?.totalChantiers ?? 0,
+        chantiersEnCours: parStatut.EN_COURS ?? 0,
+        chantiersEnRetard: statsRes?.chantiersEnRetard ?? 0,
+        chantiersTermines: (parStatut.TERMINE ?? 0) + (parStatut.VALIDE ?? 0),
         chiffresAffairesEstime,
-        clients,
         chantiers
       });
     } catch (err) {
@@ -12,6 +12,7 @@ export const API_ROUTES = {
   clients: "/api/clients",
   techniciens: "/api/techniciens",
   chantiers: "/api/chantiers",
+  dashboardStats: "/api/dashboard/stats",
   index: "/api"
 };
 